@@ -1,75 +1,236 @@
-/*
- * Part of planned enhancement: Category 1 - Software Design: Refactoring service layer
- * Christopher DeMello
- * Professor Conlan
- * CS499
- * Created: 1/21/26
- */
-package com.CS360.weighttracker.service;
-
-import android.database.sqlite.SQLiteConstraintException;
-
-import com.CS360.weighttracker.Dao.UserDAO;
-import com.CS360.weighttracker.model.User;
-import com.CS360.weighttracker.util.PasswordUtils;
-
-import java.util.Locale;
-
-//This is a service layer component for user authentication and registration. It centralizes all login
-// and account creation logic. It acts as a middle man between the UI layer and the database
-public class AuthService {
-    private final UserDAO userDao;
-
-    public AuthService(UserDAO userDao) {
-        this.userDao = userDao;
-    }
-
-    //verifies user when signing in
-    public User authenticate(String username, String password) {
-        //Checks for null pointer exception
-        if (username == null || password == null)
-            return null;
-        //gets user by matching username
-        User user = userDao.getUserByUsername(username);
-        //if user doesn't exist
-        if (user == null) {
-            return null;
-        }
-        //hashes the input password and compares it to stored hash
-        boolean ok = PasswordUtils.verifyPassword(
-                password,
-                user.getPasswordHash(),
-                user.getPasswordSalt(),
-                user.getPasswordIters()
-        );
-        //returns authenicated user if valid
-        return ok ? user : null;
-    }
-    // Inserts a new user into database and hashes password
-    public boolean register(String username, String password) {
-        //check if null
-        if (username == null || password == null) return false;
-        //trims whitespace
-        username = username.trim();
-        //checks if empty
-        if (username.isEmpty() || password.isEmpty()) return false;
-        //checks password length
-        if (password.length() < 6) return false;
-        //Generates a salt
-        String salt = PasswordUtils.generateSalt();
-        //gets iteration
-        int iters = PasswordUtils.ITERS;
-        //hashes password
-        String hash = PasswordUtils.hashPassword(password, salt, iters);
-        //makes a new user with username, hash, salt, and iterations
-        User user = new User(username, hash, salt, iters);
-        //adds user to database
-        try {
-            userDao.insert(user);
-            return true;
-            // Unique username violated, throws exception
-        } catch (SQLiteConstraintException dup) {
-            return false;
-        }
-    }
-}
+/*
+ * Part of planned enhancement: Category 1 - Software Design: Refactoring service layer
+ * Christopher DeMello
+ * Professor Conlan
+ * CS499
+ * Created: 1/21/26
+ */
+package com.CS360.weighttracker.service;
+
+import android.database.sqlite.SQLiteConstraintException;
+import android.util.Log;
+
+import com.CS360.weighttracker.Dao.UserDAO;
+import com.CS360.weighttracker.model.User;
+import com.CS360.weighttracker.util.Metrics;
+import com.CS360.weighttracker.util.PasswordUtils;
+
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+//This is a service layer component for user authentication and registration. It centralizes all login
+// and account creation logic. It acts as a middle man between the UI layer and the database
+public class AuthService {
+    //How many login/register requests may wait for a hashing thread before new ones are rejected
+    public static final int DEFAULT_MAX_QUEUED = 16;
+
+    //How long each PBKDF2 run takes, and how many requests were turned away because the queue was full
+    private static final Metrics.Histogram HASH_TIME = Metrics.histogram("auth.pbkdf2");
+    private static final Metrics.Counter REJECTED = Metrics.counter("auth.rejected");
+    //Logins that updated a stored hash to this device's iteration count
+    private static final Metrics.Counter REHASHED = Metrics.counter("auth.rehashed");
+    //Rehashes that could not be saved. The login still succeeds with the old hash
+    private static final Metrics.Counter REHASH_FAILED = Metrics.counter("auth.rehashFailed");
+    private static final String TAG = "AuthService";
+
+    private final UserDAO userDao;
+    //Runs PBKDF2 off the caller's thread. Bounded so logins cannot start unlimited key derivations
+    private final ExecutorService hashExecutor;
+    //Where authenticate starts a session, or null to only check the password
+    private final SessionManager sessions;
+
+    public AuthService(UserDAO userDao) {
+        this(userDao, DefaultHashExecutor.INSTANCE, null);
+    }
+
+    //Every successful authenticate also starts a session, so a login screen that only calls
+    //authenticate leaves a session for the dashboard to resume and for logout to revoke
+    public AuthService(UserDAO userDao, SessionManager sessions) {
+        this(userDao, DefaultHashExecutor.INSTANCE, sessions);
+    }
+
+    //Lets callers supply their own executor, for example one made by newHashExecutor with a
+    //different queue size
+    public AuthService(UserDAO userDao, ExecutorService hashExecutor) {
+        this(userDao, hashExecutor, null);
+    }
+
+    public AuthService(UserDAO userDao, ExecutorService hashExecutor, SessionManager sessions) {
+        this.userDao = userDao;
+        this.hashExecutor = hashExecutor;
+        this.sessions = sessions;
+        //Measures this device's PBKDF2 speed in the background while the user is still typing, so
+        //the first login does not pay for it
+        PasswordUtils.warmUp(hashExecutor);
+    }
+
+    //Creates an executor for password hashing with one thread per CPU core. At most maxQueued
+    //requests wait in line; past that new requests are rejected instead of piling up, and the
+    //returned future fails with RejectedExecutionException so the UI can ask the user to retry
+    public static ExecutorService newHashExecutor(int maxQueued) {
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread t = new Thread(r, "auth-hash-" + count.incrementAndGet());
+            //Do not keep the app process alive just for hashing threads
+            t.setDaemon(true);
+            return t;
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(maxQueued),
+                factory,
+                new ThreadPoolExecutor.AbortPolicy());
+        //Lets idle threads exit when nobody is logging in
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    //Shared by every AuthService that does not pass its own executor, so the limit applies to the
+    //whole app. Created the first time it is used
+    private static final class DefaultHashExecutor {
+        static final ExecutorService INSTANCE = newHashExecutor(DEFAULT_MAX_QUEUED);
+
+        static {
+            //Requests waiting for a hashing thread
+            Metrics.gauge("auth.queued", () -> ((ThreadPoolExecutor) INSTANCE).getQueue().size());
+        }
+    }
+
+    //Checks the password once and starts a session for the user. Later checks use the returned
+    //token with SessionManager.validate instead of running PBKDF2 again. Returns null if the
+    //username or password is wrong
+    public String login(String username, String password, SessionManager sessions) {
+        User user = checkPassword(username, password);
+        return user == null ? null : sessions.issue(user.getId());
+    }
+
+    //Same as login but runs on the hashing executor
+    public CompletableFuture<String> loginAsync(String username, String password, SessionManager sessions) {
+        return submit(() -> login(username, password, sessions));
+    }
+
+    //Same as authenticate but runs on the hashing executor. Completes with the user, or null if
+    //the username or password is wrong
+    public CompletableFuture<User> authenticateAsync(String username, String password) {
+        return submit(() -> authenticate(username, password));
+    }
+
+    //Same as register but runs on the hashing executor. Completes with true if the account was made
+    public CompletableFuture<Boolean> registerAsync(String username, String password) {
+        return submit(() -> register(username, password));
+    }
+
+    //Queues work on the hashing executor. If the queue is full the future fails right away
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, hashExecutor);
+        } catch (RejectedExecutionException busy) {
+            REJECTED.inc();
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(busy);
+            return failed;
+        }
+    }
+
+    //verifies user when signing in. Starts a session for them if this service was given a
+    //SessionManager
+    public User authenticate(String username, String password) {
+        User user = checkPassword(username, password);
+        if (user != null && sessions != null) {
+            sessions.issue(user.getId());
+        }
+        return user;
+    }
+
+    //Checks the username and password, and updates an outdated hash. Returns null if either is wrong
+    private User checkPassword(String username, String password) {
+        //Checks for null pointer exception
+        if (username == null || password == null)
+            return null;
+        //gets user by matching username
+        User user = userDao.getUserByUsername(username);
+        //if user doesn't exist
+        if (user == null) {
+            return null;
+        }
+        //hashes the input password and compares it to stored hash
+        long start = Metrics.now();
+        boolean ok = PasswordUtils.verifyPassword(
+                password,
+                user.getPasswordHash(),
+                user.getPasswordSalt(),
+                user.getPasswordIters()
+        );
+        HASH_TIME.recordSince(start);
+        if (!ok) {
+            return null;
+        }
+        //The password is only known here, so this is when an old or device-mismatched cost can be fixed
+        if (PasswordUtils.needsRehash(user.getPasswordIters())) {
+            rehash(user, password);
+        }
+        //returns authenicated user
+        return user;
+    }
+
+    //Stores a new salt and hash using this device's calibrated iteration count, so the next login
+    //takes about PasswordUtils.TARGET_VERIFY_MILLIS. Only runs after a successful login, and never
+    //stores fewer iterations than the hash it replaces
+    private void rehash(User user, String password) {
+        String salt = PasswordUtils.generateSalt();
+        int iters = Math.max(user.getPasswordIters(), PasswordUtils.currentIterations());
+        long start = Metrics.now();
+        String hash = PasswordUtils.hashPassword(password, salt, iters);
+        HASH_TIME.recordSince(start);
+        try {
+            userDao.updatePassword(user.getId(), hash, salt, iters);
+            user.setPasswordHash(hash);
+            user.setPasswordSalt(salt);
+            user.setPasswordIters(iters);
+            REHASHED.inc();
+        } catch (RuntimeException e) {
+            //The old hash is still valid, so the login succeeds and the rehash is tried next time.
+            //Counted and logged so a broken updatePassword does not go unnoticed
+            REHASH_FAILED.inc();
+            Log.w(TAG, "Could not save rehashed password for user " + user.getId(), e);
+        }
+    }
+    // Inserts a new user into database and hashes password
+    public boolean register(String username, String password) {
+        //check if null
+        if (username == null || password == null) return false;
+        //trims whitespace
+        username = username.trim();
+        //checks if empty
+        if (username.isEmpty() || password.isEmpty()) return false;
+        //checks password length
+        if (password.length() < 6) return false;
+        //Generates a salt
+        String salt = PasswordUtils.generateSalt();
+        //gets iteration count calibrated for this device, or the default if calibration is still running
+        int iters = PasswordUtils.currentIterations();
+        //hashes password
+        long start = Metrics.now();
+        String hash = PasswordUtils.hashPassword(password, salt, iters);
+        HASH_TIME.recordSince(start);
+        //makes a new user with username, hash, salt, and iterations
+        User user = new User(username, hash, salt, iters);
+        //adds user to database
+        try {
+            userDao.insert(user);
+            return true;
+            // Unique username violated, throws exception
+        } catch (SQLiteConstraintException dup) {
+            return false;
+        }
+    }
+}
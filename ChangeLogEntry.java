@@ -0,0 +1,118 @@
+package com.CS360.weighttracker.model;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+//Creates a change_log entity that records every change to a user's weight entries, so sync can
+//send only what changed since the last upload instead of the whole history
+
+//Part of Category three planned enhancement
+//Each row is one change to one entry, named by the entry's syncId: the entry was added with this
+//date and weight, or it was deleted. Keying by entry instead of by date keeps every weigh-in of a
+//day when it reaches another device. Rows are written in the same transaction as the entry change
+//and removed once the server has them.
+@Entity(
+        tableName = "change_log",
+        //Pending changes are read as version > last uploaded for one user
+        indices = {
+                @Index(value = {"userId", "version"})
+        },
+        foreignKeys = {
+                @ForeignKey(
+                        //Connects to User database
+                        entity = User.class,
+                        parentColumns = "id",
+                        childColumns = "userId",
+                        //If user account is deleted, nothing is left to sync
+                        onDelete = ForeignKey.CASCADE
+                )
+        })
+
+public class ChangeLogEntry {
+    //AUTOINCREMENT, so versions keep going up even after old rows are removed
+    @PrimaryKey(autoGenerate = true)
+    private long version;
+
+    private int userId;
+    //weight_entries.syncId of the entry that changed
+    @ColumnInfo(defaultValue = "0")
+    private long syncId;
+    //Epoch day, same as weight_entries.date
+    @ColumnInfo(name = "date")
+    private int epochDay;
+    //0 when deleted
+    private double weight;
+    private boolean deleted;
+    //Wall clock time of the change in milliseconds. The newest change to an entry wins
+    private long updatedAt;
+
+    //Used by Room
+    public ChangeLogEntry(int userId, long syncId, int epochDay, double weight, boolean deleted, long updatedAt) {
+        this.userId = userId;
+        this.syncId = syncId;
+        this.epochDay = epochDay;
+        this.weight = weight;
+        this.deleted = deleted;
+        this.updatedAt = updatedAt;
+    }
+
+    // Getters and Setters
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public long getSyncId() {
+        return syncId;
+    }
+
+    public void setSyncId(long syncId) {
+        this.syncId = syncId;
+    }
+
+    public int getEpochDay() {
+        return epochDay;
+    }
+
+    public void setEpochDay(int epochDay) {
+        this.epochDay = epochDay;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    public void setWeight(double weight) {
+        this.weight = weight;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(boolean deleted) {
+        this.deleted = deleted;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -1,91 +1,276 @@
-//Chart rendering uses MPAndroidChart
-//Library: MPAndroidChart by Phi Jay
-//License: Apache 2.0
-//Source: https://github.com/PhilJay/MPAndroidChart
-
-/*
-* Part of planned enhancement: Category 1 - Software Design
-* Christopher DeMello
-* Professor Conlan
-* CS499
-* Created: 1/24/26
-*/
-
-package com.CS360.weighttracker.util;
-
-import com.CS360.weighttracker.model.WeightEntry;
-import com.github.mikephil.charting.components.XAxis;
-import com.github.mikephil.charting.data.Entry;
-import com.github.mikephil.charting.data.LineData;
-import com.github.mikephil.charting.data.LineDataSet;
-import com.github.mikephil.charting.formatter.ValueFormatter;
-
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-
-//Logic for chart setup. Keep out of dashboard activity for clean and reusable code
-public class ChartUtils {
-    private ChartUtils() {}
-
-
-    //This function converts database weight entries to be used in the chart
-    //Sets weights as y-axis data
-    //Extracts and separates the x-axis dates
-    //Returns a data points object to render chart
-    public static LineData buildWeightLineData(List<WeightEntry> weights,
-                                               List<String> xLabelsOut) {
-        //prevents null pointer exception and chart render safely if no data
-        if (weights == null) {
-            weights = Collections.emptyList();
-        }
-        //Entry represents one point on the line chart.
-        List<Entry> entries = new ArrayList<>();
-        //Clears stale labels from previous chart render
-        xLabelsOut.clear();
-
-        //loops through weight entries and adds x and y labels to them
-        for (int i = 0; i < weights.size(); i++) {
-            //get weight entry that contains date and weight
-            WeightEntry weight = weights.get(i);
-            //at position i, plot this weight
-            entries.add(new Entry(i, (float) weight.getWeight()));
-            //get date associated with weight entry
-            xLabelsOut.add(weight.getDate());
-        }
-        //Adds one line on the chart and a legend for Weight
-        LineDataSet dataSet = new LineDataSet(entries, "Weight");
-        //prevents clutter over every dot
-        dataSet.setDrawValues(false);
-        //Shows each individual entry
-        dataSet.setDrawCircles(true);
-        //Makes line thicker than default
-        dataSet.setLineWidth(2f);
-
-        return new LineData(dataSet);
-    }
-    //Configures the x-axis of the chart
-    public static void styleXAxisAsDates(XAxis xAxis, List<String> labels) {
-        //Sets to x-axis to the bottom
-        xAxis.setPosition(XAxis.XAxisPosition.BOTTOM);
-        //ensures each label maps to one entry
-        xAxis.setGranularity(1f);
-        //prevents overlap of dates
-        xAxis.setLabelRotationAngle(-45f);
-
-        //Converts axis to display date strings
-        xAxis.setValueFormatter(new ValueFormatter() {
-            @Override
-            //assigns value of x-axis to an integer
-            public String getFormattedValue(float value) {
-                int i = (int) value;
-                //prevents edge cases
-                if (i < 0 || i >= labels.size()) {
-                    return "";
-                }
-                //returns numeric x-value into date string
-                return labels.get(i);
-            }
-        });
-    }
-}
+//Chart rendering uses MPAndroidChart
+//Library: MPAndroidChart by Phi Jay
+//License: Apache 2.0
+//Source: https://github.com/PhilJay/MPAndroidChart
+
+/*
+* Part of planned enhancement: Category 1 - Software Design
+* Christopher DeMello
+* Professor Conlan
+* CS499
+* Created: 1/24/26
+*/
+
+package com.CS360.weighttracker.util;
+
+import com.CS360.weighttracker.model.WeightEntry;
+import com.github.mikephil.charting.components.XAxis;
+import com.github.mikephil.charting.data.Entry;
+import com.github.mikephil.charting.data.LineData;
+import com.github.mikephil.charting.data.LineDataSet;
+import com.github.mikephil.charting.formatter.ValueFormatter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+//Logic for chart setup. Keep out of dashboard activity for clean and reusable code
+public class ChartUtils {
+    private ChartUtils() {}
+
+    //Time to downsample the series and build the chart's points
+    private static final Metrics.Histogram BUILD_TIME = Metrics.histogram("chart.build");
+
+
+    //This function converts database weight entries to be used in the chart
+    //Sets weights as y-axis data
+    //Extracts and separates the x-axis dates
+    //Returns a data points object to render chart
+    public static LineData buildWeightLineData(List<WeightEntry> weights,
+                                               List<String> xLabelsOut) {
+        //prevents null pointer exception and chart render safely if no data
+        if (weights == null) {
+            weights = Collections.emptyList();
+        }
+        //Entry represents one point on the line chart.
+        List<Entry> entries = new ArrayList<>();
+        //Clears stale labels from previous chart render
+        xLabelsOut.clear();
+
+        //loops through weight entries and adds x and y labels to them
+        for (int i = 0; i < weights.size(); i++) {
+            //get weight entry that contains date and weight
+            WeightEntry weight = weights.get(i);
+            //at position i, plot this weight
+            entries.add(new Entry(i, (float) weight.getWeight()));
+            //get date associated with weight entry
+            xLabelsOut.add(weight.getDate());
+        }
+        //Adds one line on the chart and a legend for Weight
+        LineDataSet dataSet = new LineDataSet(entries, "Weight");
+        //prevents clutter over every dot
+        dataSet.setDrawValues(false);
+        //Shows each individual entry
+        dataSet.setDrawCircles(true);
+        //Makes line thicker than default
+        dataSet.setLineWidth(2f);
+
+        return new LineData(dataSet);
+    }
+    //Same as above but builds the chart from a WeightSeries, so each point's x value is the row
+    //position in the series. The series is first downsampled to at most maxPoints points (about the
+    //chart's width in pixels), since drawing more points than pixels only costs render time
+    public static LineData buildWeightLineData(WeightSeries series, int maxPoints) {
+        return buildWeightLineData(series, 0, series.size(), maxPoints);
+    }
+
+    //Builds the chart with full detail (maxPoints) between visibleFrom and visibleTo (row positions,
+    //end exclusive) and a coarse outline outside of it. Used to re-run the downsampling when the
+    //user zooms in, so the zoomed-in range still has one point per pixel
+    public static LineData buildWeightLineData(WeightSeries series, int visibleFrom, int visibleTo,
+                                               int maxPoints) {
+        long start = Metrics.now();
+        int n = series.size();
+        maxPoints = Math.max(3, maxPoints);
+        visibleFrom = Math.max(0, Math.min(visibleFrom, n));
+        visibleTo = Math.max(visibleFrom, Math.min(visibleTo, n));
+        //The parts left and right of the visible range only need a rough shape for panning
+        int outline = Math.max(3, maxPoints / 4);
+
+        int[] picked = new int[Math.min(n, maxPoints + 2 * outline)];
+        int count = downsampleLttb(series, 0, visibleFrom, outline, picked, 0);
+        count = downsampleLttb(series, visibleFrom, visibleTo, maxPoints, picked, count);
+        count = downsampleLttb(series, visibleTo, n, outline, picked, count);
+
+        List<Entry> entries = new ArrayList<>(count);
+        for (int k = 0; k < count; k++) {
+            int i = picked[k];
+            //at position i, plot this weight
+            entries.add(new Entry(i, (float) series.weightAt(i)));
+        }
+        //Adds one line on the chart and a legend for Weight
+        LineDataSet dataSet = new LineDataSet(entries, "Weight");
+        dataSet.setDrawValues(false);
+        dataSet.setDrawCircles(true);
+        dataSet.setLineWidth(2f);
+
+        LineData lineData = new LineData(dataSet);
+        BUILD_TIME.recordSince(start);
+        return lineData;
+    }
+
+    //Largest-Triangle-Three-Buckets downsampling. Picks at most threshold rows from [from, to) that
+    //keep the visual shape of the line: the first and last rows are always kept, and from each
+    //bucket in between it keeps the row that makes the largest triangle with the previously kept
+    //row and the average of the next bucket. Peaks and dips survive, flat stretches get thinned.
+    //Writes the picked row positions into out starting at outPos and returns the new count.
+
+    /*
+     * Based on the algorithm described in:
+     *   Sveinn Steinarsson. "Downsampling Time Series for Visual Representation."
+     *   University of Iceland, 2013.
+     */
+    static int downsampleLttb(WeightSeries series, int from, int to, int threshold,
+                              int[] out, int outPos) {
+        int n = to - from;
+        //Nothing to thin out, keeps every row
+        if (threshold >= n) {
+            for (int i = from; i < to; i++) {
+                out[outPos++] = i;
+            }
+            return outPos;
+        }
+        //Too few points for buckets, keeps only the two ends
+        if (threshold < 3) {
+            out[outPos++] = from;
+            out[outPos++] = to - 1;
+            return outPos;
+        }
+        //Size of each bucket, not counting the first and last rows
+        double every = (double) (n - 2) / (threshold - 2);
+        int a = from;
+        out[outPos++] = a;
+
+        for (int b = 0; b < threshold - 2; b++) {
+            //Average point of the next bucket
+            int avgStart = from + (int) ((b + 1) * every) + 1;
+            int avgEnd = Math.min(from + (int) ((b + 2) * every) + 1, to);
+            double avgX = 0;
+            double avgY = 0;
+            for (int j = avgStart; j < avgEnd; j++) {
+                avgX += j;
+                avgY += series.weightAt(j);
+            }
+            int avgLength = avgEnd - avgStart;
+            avgX /= avgLength;
+            avgY /= avgLength;
+
+            //Picks the row in this bucket with the largest triangle area
+            int rangeStart = from + (int) (b * every) + 1;
+            int rangeEnd = from + (int) ((b + 1) * every) + 1;
+            double ax = a;
+            double ay = series.weightAt(a);
+            double maxArea = -1;
+            int next = rangeStart;
+            for (int j = rangeStart; j < rangeEnd; j++) {
+                double area = Math.abs((ax - avgX) * (series.weightAt(j) - ay)
+                        - (ax - j) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = j;
+                }
+            }
+            out[outPos++] = next;
+            a = next;
+        }
+        out[outPos++] = to - 1;
+        return outPos;
+    }
+
+    //Inserts one point into an existing chart dataset instead of rebuilding it. The position must
+    //match where the entry went in the WeightSeries so x values stay equal to the row positions.
+    //Appending at the end is O(1); an insert in the middle shifts the x values of later points.
+    public static void insertPoint(LineData lineData, int position, double weight) {
+        LineDataSet dataSet = (LineDataSet) lineData.getDataSetByIndex(0);
+        List<Entry> values = dataSet.getValues();
+        int at = firstAtOrAfter(values, position);
+        //Renumbers later points so each x still matches its row in the series
+        for (int i = at; i < values.size(); i++) {
+            Entry e = values.get(i);
+            e.setX(e.getX() + 1);
+        }
+        values.add(at, new Entry(position, (float) weight));
+        //Recalculates min/max for the axis
+        dataSet.notifyDataSetChanged();
+        lineData.notifyDataChanged();
+    }
+
+    //Removes one row from an existing chart dataset instead of rebuilding it. If downsampling had
+    //dropped that row, only the later points are renumbered
+    public static void removePoint(LineData lineData, int position) {
+        LineDataSet dataSet = (LineDataSet) lineData.getDataSetByIndex(0);
+        List<Entry> values = dataSet.getValues();
+        int at = firstAtOrAfter(values, position);
+        if (at < values.size() && (int) values.get(at).getX() == position) {
+            values.remove(at);
+        }
+        //Renumbers later points so each x still matches its row in the series
+        for (int i = at; i < values.size(); i++) {
+            Entry e = values.get(i);
+            e.setX(e.getX() - 1);
+        }
+        //Recalculates min/max for the axis
+        dataSet.notifyDataSetChanged();
+        lineData.notifyDataChanged();
+    }
+
+    //Binary search for the first chart point whose x is >= position
+    private static int firstAtOrAfter(List<Entry> values, int position) {
+        int lo = 0;
+        int hi = values.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values.get(mid).getX() < position) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    //Configures the x-axis of the chart
+    public static void styleXAxisAsDates(XAxis xAxis, List<String> labels) {
+        //Sets to x-axis to the bottom
+        xAxis.setPosition(XAxis.XAxisPosition.BOTTOM);
+        //ensures each label maps to one entry
+        xAxis.setGranularity(1f);
+        //prevents overlap of dates
+        xAxis.setLabelRotationAngle(-45f);
+
+        //Converts axis to display date strings
+        xAxis.setValueFormatter(new ValueFormatter() {
+            @Override
+            //assigns value of x-axis to an integer
+            public String getFormattedValue(float value) {
+                int i = (int) value;
+                //prevents edge cases
+                if (i < 0 || i >= labels.size()) {
+                    return "";
+                }
+                //returns numeric x-value into date string
+                return labels.get(i);
+            }
+        });
+    }
+
+    //Configures the x-axis for a chart built from a WeightSeries. Labels are made from the row's
+    //epoch day only when the axis draws them, instead of keeping one label String per row
+    public static void styleXAxisAsDates(XAxis xAxis, WeightSeries series) {
+        xAxis.setPosition(XAxis.XAxisPosition.BOTTOM);
+        xAxis.setGranularity(1f);
+        xAxis.setLabelRotationAngle(-45f);
+
+        xAxis.setValueFormatter(new ValueFormatter() {
+            @Override
+            public String getFormattedValue(float value) {
+                int i = (int) value;
+                //prevents edge cases
+                if (i < 0 || i >= series.size()) {
+                    return "";
+                }
+                return EpochDays.format(series.dayAt(i));
+            }
+        });
+    }
+}
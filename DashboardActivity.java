@@ -1,261 +1,836 @@
-//Chart rendering uses MPAndroidChart
-//Library: MPAndroidChart by Phi Jay
-//License: Apache 2.0
-//Source: https://github.com/PhilJay/MPAndroidChart
-
-/*
- * Part of planned enhancement:
- * Category 1 - Software Design
- * Category 2 - Data Structure and Algorithms
- * Category 3 - Databases
- *
- * Christopher DeMello
- * Professor Conlan
- * CS499
- * Created: 1/24/26
- * Modified: 2/20/26
- */
-
-package com.CS360.weighttracker;
-
-import android.content.Intent;
-import android.graphics.Color;
-import android.os.Build;
-import android.os.Bundle;
-
-import androidx.annotation.NonNull;
-import androidx.annotation.RequiresApi;
-import androidx.appcompat.app.AlertDialog;
-import androidx.appcompat.app.AppCompatActivity;
-import androidx.appcompat.widget.Toolbar;
-
-import android.view.KeyEvent;
-import android.view.Menu;
-import android.view.MenuItem;
-import android.view.inputmethod.EditorInfo;
-import android.widget.EditText;
-import android.widget.TextView;
-
-import com.CS360.weighttracker.Dao.AppDatabase;
-import com.CS360.weighttracker.model.WeightEntry;
-import com.CS360.weighttracker.repository.WeightRepository;
-import com.CS360.weighttracker.util.ChartUtils;
-import com.CS360.weighttracker.util.HashMapWeightLookup;
-import com.CS360.weighttracker.util.InputValidator;
-import com.github.mikephil.charting.charts.Chart;
-import com.github.mikephil.charting.charts.LineChart;
-
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
-public class DashboardActivity extends AppCompatActivity {
-
-    private int userId;
-    private WeightRepository weightRepository;
-
-    //Used to help render chart
-    private LineChart weightLineChart;
-    private final List<String> xLabels = new ArrayList<>();
-
-    //Used to implement HashMap lookup
-    private EditText editTextLookupDate;
-    private TextView tvDisplayWeightFromDate;
-    private Map<String, WeightEntry> weightByDate = new HashMap<>();
-
-    //Used to implement stats - total weight loss and BMI
-    private TextView tvDisplayDifferenceWeight;
-    private TextView tvDisplayBMI;
-
-    //Dashboard activity is started
-    @RequiresApi(api = Build.VERSION_CODES.O)
-    @Override
-    protected void onCreate(Bundle savedInstanceState) {
-        super.onCreate(savedInstanceState);
-        //Grab XML layout
-        setContentView(R.layout.activity_dashboard);
-
-        userId = getIntent().getIntExtra("USER_ID", -1);
-
-        //Inflates toolbar for returning to main activity and logging out
-        Toolbar toolbar = findViewById(R.id.toolbarDashboard);
-        setSupportActionBar(toolbar);
-
-        //Finds chart container in XML layout
-        weightLineChart = findViewById(R.id.lineChartWeightTrend);
-
-        //finds text view in XML layout for stats
-        tvDisplayDifferenceWeight = findViewById(R.id.tvDisplayDifferenceWeight);
-        tvDisplayBMI = findViewById(R.id.tvDisplayBMI);
-
-        //Finds edit and text view in XML layout for weight lookup
-        editTextLookupDate = findViewById(R.id.editTextLookupDate);
-        tvDisplayWeightFromDate = findViewById(R.id.tvDisplayWeightFromDate);
-
-        //Triggers a search lookup when user finishes keyboard input
-        editTextLookupDate.setOnEditorActionListener((v, actionId, event) -> {
-            boolean imeDone = (actionId == EditorInfo.IME_ACTION_SEARCH);
-            boolean enterKey = (event != null && event.getKeyCode() == KeyEvent.KEYCODE_ENTER
-                    && event.getAction() == KeyEvent.ACTION_DOWN);
-
-            if (imeDone || enterKey) {
-                runLookupByDate();
-                return true;
-            }
-            return false;
-        });
-
-        //Sets up database to be used
-        AppDatabase database = AppDatabase.getInstance(this);
-        //Communicates to database through repository
-        weightRepository = new WeightRepository(database.weightEntryDao());
-        //Sets up Chart
-        setupChartBaseStyle();
-        //Watches to see if weights are added and reformats chart
-        observeWeightsandRender();
-        //Watches to update to current stats
-        observeStats();
-    }
-
-    //Creates a chart for single use based on weight entries list.
-    private void setupChartBaseStyle() {
-        //Removes description text for cleaner look
-        //Removes right-side Y-axis
-        //Adds text if chart is empty
-        //Set background color to white
-        weightLineChart.getDescription().setEnabled(false);
-        weightLineChart.getAxisRight().setEnabled(false);
-        weightLineChart.setNoDataText("No weights yet. Add an entry to see chart.");
-        weightLineChart.setBackgroundColor(Color.WHITE);
-
-        //Gets the x-axis object, passes to chart utility. This helps with bottom positioning
-        //Ensures one label per entry, and converts numeric index to date string
-        ChartUtils.styleXAxisAsDates(weightLineChart.getXAxis(), xLabels);
-    }
-
-    //Allows chart to be dynamic. It listens for new weight entries and re-renders when needed
-    @RequiresApi(api = Build.VERSION_CODES.O)
-    private void observeWeightsandRender() {
-        weightRepository.observeEntries(userId).observe(this, weights -> {
-
-            //Build /refresh HashMap index (Category 2)
-            weightByDate = HashMapWeightLookup.buildIndex(weights);
-
-            //Builds chart points and updates xLabels with dates
-            weightLineChart.setData(ChartUtils.buildWeightLineData(weights, xLabels));
-            //When new data arrives, xLabels changes. This means reapplying labels for alignment
-            ChartUtils.styleXAxisAsDates(weightLineChart.getXAxis(), xLabels);
-            //Forces a redraw of view
-            weightLineChart.invalidate();
-
-            //if user typed a date, refresh the lookup result automatically. This keeps it dynamic
-            //like the chart
-            String currentTyped = editTextLookupDate.getText().toString();
-            if (currentTyped != null && !currentTyped.trim().isEmpty()) {
-                runLookupByDate();
-            }
-        });
-    }
-
-    //Inflates menu
-    @Override
-    public boolean onCreateOptionsMenu(Menu menu) {
-        getMenuInflater().inflate(R.menu.menu_dashboard, menu);
-        return true;
-    }
-
-    //Inflates Icons within menu
-    @Override
-    public boolean onOptionsItemSelected(@NonNull MenuItem item) {
-        int id = item.getItemId();
-        //if home icon is clicked, return to main activity
-        if (id == R.id.action_home) {
-            Intent intent = new Intent(this, MainActivity.class);
-            intent.putExtra("USER_ID", userId);
-            // Optional: avoids stacking multiple MainActivities
-            intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_SINGLE_TOP);
-            startActivity(intent);
-            finish();
-            return true;
-        }
-        //if dropdown menu, then logout is selected. Return Login screen
-        if (id == R.id.action_logout) {
-            showLogoutDialog();
-            return true;
-        }
-
-        return super.onOptionsItemSelected(item);
-    }
-
-    //Creates a dialog box to make sure user wants to logout
-    private void showLogoutDialog() {
-        new AlertDialog.Builder(this)
-                .setTitle("Log out?")
-                .setMessage("Are you sure you want to log out?")
-                .setPositiveButton("Log out", (dialog, which) -> {
-                    Intent intent = new Intent(this, LoginActivity.class);
-
-                    // Clear back stack so user can't press back into the app
-                    intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
-
-                    startActivity(intent);
-                    finish();
-                })
-                .setNegativeButton("Cancel", null)
-                .show();
-    }
-
-    //Gets user input for weight lookup from specific date
-    @RequiresApi(api = Build.VERSION_CODES.O)
-    private void runLookupByDate() {
-        //gets user input
-        String dateInput = editTextLookupDate.getText().toString();
-
-        //Reuse InputValidator class to validate date
-        InputValidator.InputValidationResult dateResult = InputValidator.validateDate(dateInput);
-
-        //if date result not valid, display result in text view
-        if (!dateResult.ok) {
-            tvDisplayWeightFromDate.setText(dateResult.error);
-            return;
-        }
-        //normalize date after validation
-        String normalizedDate = dateResult.value;
-        //finds matching date and returns weight entry
-        WeightEntry match = HashMapWeightLookup.findByDate(weightByDate, normalizedDate);
-
-        if (match == null) {
-            //if no date not found
-            tvDisplayWeightFromDate.setText("No weight entry found");
-        } else {
-            //display weight from weight entry
-            tvDisplayWeightFromDate.setText(match.getWeight() + " lbs");
-        }
-
-    }
-
-    //Method set up for the planned enhancement category three: databases
-    //Used to display BMI and total weight lost stats
-    private void observeStats() {
-        //Display total weight lost
-        weightRepository.observeTotalWeightLost(userId).observe(this, totalLost -> {
-            //checks if null
-            if (totalLost == null) {
-                tvDisplayDifferenceWeight.setText("N/A");
-                //displays if available
-            } else {
-                tvDisplayDifferenceWeight.setText(String.format("%.1f lbs", totalLost));
-            }
-        });
-        //Display BMI
-        weightRepository.observeBMI(userId).observe(this, bmi -> {
-            if (bmi == null) {
-                tvDisplayBMI.setText("N/A");
-            } else {
-                tvDisplayBMI.setText(String.format("%.1f", bmi));
-            }
-        });
-
-    }
+//Chart rendering uses MPAndroidChart
+//Library: MPAndroidChart by Phi Jay
+//License: Apache 2.0
+//Source: https://github.com/PhilJay/MPAndroidChart
+
+/*
+ * Part of planned enhancement:
+ * Category 1 - Software Design
+ * Category 2 - Data Structure and Algorithms
+ * Category 3 - Databases
+ *
+ * Christopher DeMello
+ * Professor Conlan
+ * CS499
+ * Created: 1/24/26
+ * Modified: 2/20/26
+ */
+
+package com.CS360.weighttracker;
+
+import android.content.Intent;
+import android.graphics.Color;
+import android.os.Build;
+import android.os.Bundle;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+import androidx.appcompat.app.AlertDialog;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.Toolbar;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
+
+import android.view.KeyEvent;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.view.MotionEvent;
+import android.view.inputmethod.EditorInfo;
+import android.widget.EditText;
+import android.widget.TextView;
+
+import com.CS360.weighttracker.Dao.AppDatabase;
+import com.CS360.weighttracker.model.WeightEntry;
+import com.CS360.weighttracker.model.WeightRangeStats;
+import com.CS360.weighttracker.repository.WeightRepository;
+import com.CS360.weighttracker.service.SessionManager;
+import com.CS360.weighttracker.service.TrendService;
+import com.CS360.weighttracker.util.ChartUtils;
+import com.CS360.weighttracker.util.EpochDays;
+import com.CS360.weighttracker.util.HashMapWeightLookup;
+import com.CS360.weighttracker.util.InputValidator;
+import com.CS360.weighttracker.util.Metrics;
+import com.CS360.weighttracker.util.SeriesSnapshot;
+import com.CS360.weighttracker.util.WeightRangeIndex;
+import com.CS360.weighttracker.util.WeightSeries;
+import com.github.mikephil.charting.charts.Chart;
+import com.github.mikephil.charting.charts.LineChart;
+import com.github.mikephil.charting.data.LineData;
+import com.github.mikephil.charting.listener.ChartTouchListener;
+import com.github.mikephil.charting.listener.OnChartGestureListener;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class DashboardActivity extends AppCompatActivity {
+
+    //Only a window of recent history is loaded instead of the whole history. The chart starts on
+    //the last VISIBLE_DAYS, plus PREFETCH_DAYS more so panning back does not wait on the database
+    private static final int VISIBLE_DAYS = 90;
+    private static final int PREFETCH_DAYS = 30;
+    //How many more days are loaded each time the user drags past the oldest loaded point
+    private static final int PAGE_DAYS = 90;
+    //Upper bound for the window so newly added entries are always included
+    private static final int LATEST_DAY = Integer.MAX_VALUE;
+    //Main-thread time to hand the chart a prepared snapshot. The chart draws on the next frame,
+    //which is reported by the system's frame metrics, not here
+    private static final Metrics.Histogram RENDER_TIME = Metrics.histogram("dashboard.render");
+    //Background time to build the series and chart points for a snapshot
+    private static final Metrics.Histogram PREPARE_TIME = Metrics.histogram("dashboard.prepare");
+    //Time from onCreate until the first chart is handed over, from the saved snapshot or from Room,
+    //whichever is ready first. Compare runs with and without a snapshot file to see what it saves
+    private static final Metrics.Histogram FIRST_DRAW_TIME = Metrics.histogram("dashboard.firstDraw");
+
+    private int userId;
+    private WeightRepository weightRepository;
+
+    //Epoch day of the oldest date in the loaded window. Changing it re-queries the window
+    private final MutableLiveData<Integer> windowStartDay = new MutableLiveData<>();
+    //Set while a page of older history is being looked up
+    private boolean loadingOlder = false;
+    private boolean olderHistoryExists = true;
+    //Oldest day shown before loading older history, so the chart can stay where the user was
+    private int anchorDay = EpochDays.INVALID;
+    //Runs one-off database reads off the main thread
+    private final ExecutorService dbExecutor = Executors.newSingleThreadExecutor();
+    //Builds render snapshots off the main thread. One thread, so snapshots finish in order
+    private final ExecutorService renderExecutor = Executors.newSingleThreadExecutor();
+    //Back buffer: the newest prepared snapshot waiting for the main thread to swap it in
+    private final AtomicReference<RenderSnapshot> pendingSnapshot = new AtomicReference<>();
+    //Main thread only. Generation of the newest snapshot requested and of the one on screen
+    private int requestedGeneration = 0;
+    private int shownGeneration = 0;
+    //Set from onCreate until the first chart is shown
+    private long createStart;
+    //True while the chart shows the snapshot saved on disk instead of Room's rows
+    private boolean seriesFromDisk = false;
+    //True once Room's stats have been shown, so a late snapshot does not overwrite them
+    private boolean statsFromRoom = false;
+    //Set after a bulk replace so the next emission rebuilds the series even if it looks in sync
+    private boolean rebuildRequested = false;
+
+    //Used to help render chart
+    private LineChart weightLineChart;
+    //Kept so single inserts/deletes can be patched into the chart without rebuilding it
+    private LineData weightLineData;
+
+    //Used to implement date lookup. The series is a compact date-sorted copy of the weights
+    private EditText editTextLookupDate;
+    private TextView tvDisplayWeightFromDate;
+    private WeightSeries weightSeries = WeightSeries.empty();
+    //Range min/max/average index over weightSeries. Built on the first range lookup after the
+    //series changes, since most series changes are never followed by a range lookup
+    private WeightRangeIndex weightRangeIndex;
+
+    //A series and the chart points built from it, prepared on renderExecutor. The worker never
+    //touches it after publishing it, so the main thread can take it over without copying.
+    //saved is set when the series came from the snapshot on disk instead of Room
+    private static final class RenderSnapshot {
+        final int generation;
+        final WeightSeries series;
+        final LineData lineData;
+        final SeriesSnapshot saved;
+
+        RenderSnapshot(int generation, WeightSeries series, LineData lineData, SeriesSnapshot saved) {
+            this.generation = generation;
+            this.series = series;
+            this.lineData = lineData;
+            this.saved = saved;
+        }
+    }
+
+    //Receives single entry changes from the repository and patches the series and chart in place.
+    //Writes happen on a background thread, so the work is posted to the main thread.
+    private final WeightRepository.ChangeListener entryChangeListener = new WeightRepository.ChangeListener() {
+        @Override
+        public void onEntryInserted(WeightEntry entry) {
+            runOnUiThread(() -> applyEntryInserted(entry));
+        }
+
+        @Override
+        public void onEntryDeleted(WeightEntry entry) {
+            runOnUiThread(() -> applyEntryDeleted(entry));
+        }
+
+        //A coalesced batch is patched in with one post and one redraw
+        @Override
+        public void onEntriesWritten(List<WeightEntry> inserted, List<WeightEntry> deleted) {
+            runOnUiThread(() -> {
+                boolean changed = false;
+                for (WeightEntry entry : deleted) {
+                    changed |= patchEntryDeleted(entry);
+                }
+                for (WeightEntry entry : inserted) {
+                    changed |= patchEntryInserted(entry);
+                }
+                if (changed) {
+                    refreshAfterPatch();
+                }
+            });
+        }
+
+        //An import or sync can change any row, including a weight replaced on the same date, so
+        //patching cannot keep up. Re-queries the window and rebuilds from the result
+        @Override
+        public void onEntriesReplaced(int changedUserId) {
+            if (changedUserId != userId) {
+                return;
+            }
+            runOnUiThread(() -> {
+                rebuildRequested = true;
+                weightRangeIndex = null;
+                windowStartDay.setValue(windowStartDay.getValue());
+                refreshLookupIfTyped();
+            });
+        }
+    };
+
+    //Used to implement stats - total weight loss and BMI
+    private TextView tvDisplayDifferenceWeight;
+    private TextView tvDisplayBMI;
+
+    //Dashboard activity is started
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        createStart = Metrics.now();
+        //Grab XML layout
+        setContentView(R.layout.activity_dashboard);
+
+        userId = getIntent().getIntExtra("USER_ID", -1);
+
+        //Inflates toolbar for returning to main activity and logging out
+        Toolbar toolbar = findViewById(R.id.toolbarDashboard);
+        setSupportActionBar(toolbar);
+
+        //Finds chart container in XML layout
+        weightLineChart = findViewById(R.id.lineChartWeightTrend);
+
+        //finds text view in XML layout for stats
+        tvDisplayDifferenceWeight = findViewById(R.id.tvDisplayDifferenceWeight);
+        tvDisplayBMI = findViewById(R.id.tvDisplayBMI);
+
+        //Finds edit and text view in XML layout for weight lookup
+        editTextLookupDate = findViewById(R.id.editTextLookupDate);
+        tvDisplayWeightFromDate = findViewById(R.id.tvDisplayWeightFromDate);
+
+        //Triggers a search lookup when user finishes keyboard input
+        editTextLookupDate.setOnEditorActionListener((v, actionId, event) -> {
+            boolean imeDone = (actionId == EditorInfo.IME_ACTION_SEARCH);
+            boolean enterKey = (event != null && event.getKeyCode() == KeyEvent.KEYCODE_ENTER
+                    && event.getAction() == KeyEvent.ACTION_DOWN);
+
+            if (imeDone || enterKey) {
+                runLookupByDate();
+                return true;
+            }
+            return false;
+        });
+
+        //Sets up database to be used
+        AppDatabase database = AppDatabase.getInstance(this);
+        //Communicates to database through repository
+        weightRepository = new WeightRepository(database.weightEntryDao());
+        //Sets up Chart
+        setupChartBaseStyle();
+
+        //Reopened without a user id (for example after the process was killed), so resumes the
+        //saved session instead of asking for the password again. SessionManager reads prefs and
+        //may create its signing key, so the session is checked off the main thread
+        if (userId == -1) {
+            dbExecutor.execute(() -> {
+                int resumed = new SessionManager(this).getCurrentUserId();
+                runOnUiThread(() -> {
+                    if (isDestroyed()) {
+                        return;
+                    }
+                    if (resumed == SessionManager.NO_USER) {
+                        openLogin();
+                        return;
+                    }
+                    userId = resumed;
+                    showUser();
+                });
+            });
+        } else {
+            showUser();
+        }
+    }
+
+    //Starts loading and watching the signed in user's data
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    private void showUser() {
+        //Watches to see if weights are added and reformats chart
+        observeWeightsandRender();
+        //Draws what was shown last time while Room loads
+        showSavedSnapshot();
+        //Patches the chart when a single entry is added or deleted
+        weightRepository.addChangeListener(entryChangeListener);
+        //Watches to update to current stats
+        observeStats();
+        //Shows the smoothed trend weight and weekly rate
+        observeTrend();
+    }
+
+    //Goes back to the login screen. Clears the back stack so the user can't press back into the app
+    private void openLogin() {
+        Intent intent = new Intent(this, LoginActivity.class);
+        intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+        startActivity(intent);
+        finish();
+    }
+
+    //Creates a chart for single use based on weight entries list.
+    private void setupChartBaseStyle() {
+        //Removes description text for cleaner look
+        //Removes right-side Y-axis
+        //Adds text if chart is empty
+        //Set background color to white
+        weightLineChart.getDescription().setEnabled(false);
+        weightLineChart.getAxisRight().setEnabled(false);
+        weightLineChart.setNoDataText("No weights yet. Add an entry to see chart.");
+        weightLineChart.setBackgroundColor(Color.WHITE);
+
+        //Gets the x-axis object, passes to chart utility. This helps with bottom positioning
+        //Ensures one label per entry, and converts numeric index to date string
+        ChartUtils.styleXAxisAsDates(weightLineChart.getXAxis(), weightSeries);
+    }
+
+    //Allows chart to be dynamic. It listens for new weight entries and re-renders when needed
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    private void observeWeightsandRender() {
+        //Starts with the visible range plus the prefetch margin
+        int today = (int) LocalDate.now().toEpochDay();
+        windowStartDay.setValue(today - VISIBLE_DAYS - PREFETCH_DAYS);
+        //Re-queries only the window whenever its start moves. The stream only re-queries for this
+        //user's writes and only emits when the rows are different
+        LiveData<List<WeightEntry>> windowEntries = Transformations.switchMap(windowStartDay,
+                startDay -> weightRepository.streamEntriesInRange(userId, startDay, LATEST_DAY));
+
+        //Loads an older page when the user drags the chart to the oldest loaded point
+        weightLineChart.setOnChartGestureListener(new OnChartGestureListener() {
+            @Override
+            public void onChartGestureEnd(MotionEvent me, ChartTouchListener.ChartGesture gesture) {
+                if (gesture == ChartTouchListener.ChartGesture.DRAG
+                        && weightLineChart.getLowestVisibleX() <= 0.5f) {
+                    loadOlderHistory();
+                }
+                //Zooming or panning changes which rows are on screen, so re-run the downsampling
+                //at full detail for the new visible range
+                if (gesture == ChartTouchListener.ChartGesture.X_ZOOM
+                        || gesture == ChartTouchListener.ChartGesture.PINCH_ZOOM
+                        || gesture == ChartTouchListener.ChartGesture.DRAG) {
+                    downsampleVisibleRange();
+                }
+            }
+
+            @Override
+            public void onChartGestureStart(MotionEvent me, ChartTouchListener.ChartGesture gesture) {}
+
+            @Override
+            public void onChartLongPressed(MotionEvent me) {}
+
+            @Override
+            public void onChartDoubleTapped(MotionEvent me) {}
+
+            @Override
+            public void onChartSingleTapped(MotionEvent me) {}
+
+            @Override
+            public void onChartFling(MotionEvent me1, MotionEvent me2, float velocityX, float velocityY) {}
+
+            @Override
+            public void onChartScale(MotionEvent me, float scaleX, float scaleY) {}
+
+            @Override
+            public void onChartTranslate(MotionEvent me, float dX, float dY) {}
+        });
+
+        windowEntries.observe(this, weights -> {
+            //Inserts and deletes are already patched in by entryChangeListener. If the emitted rows
+            //are exactly the patched series (same days, ids and weights) and no rebuild is in
+            //flight, skip the full rebuild. Comparing the rows and not only the count catches a
+            //sync that replaced the weight on a date
+            if (weightLineData != null && shownGeneration == requestedGeneration
+                    && !seriesFromDisk && !rebuildRequested && weightSeries.matches(weights)) {
+                return;
+            }
+            rebuildRequested = false;
+            //The series and chart points are built on renderExecutor. The width is read here
+            //since views may only be touched on the main thread
+            int generation = ++requestedGeneration;
+            int pointBudget = chartPointBudget();
+            renderExecutor.execute(() -> prepareSnapshot(generation, weights, pointBudget));
+        });
+    }
+
+    //Runs on renderExecutor. Builds the date-sorted series used for lookups (Category 2) and the
+    //chart points, downsampled to about one point per pixel of chart width, then hands them to the
+    //main thread
+    private void prepareSnapshot(int generation, List<WeightEntry> weights, int pointBudget) {
+        long start = Metrics.now();
+        WeightSeries series = HashMapWeightLookup.buildSeries(weights);
+        LineData lineData = ChartUtils.buildWeightLineData(series, pointBudget);
+        PREPARE_TIME.recordSince(start);
+        //Replaces any snapshot the main thread has not picked up yet, since this one is newer
+        pendingSnapshot.set(new RenderSnapshot(generation, series, lineData, null));
+        runOnUiThread(this::swapInSnapshot);
+    }
+
+    //Draws the chart and stats from the snapshot saved when the dashboard last stopped, so they
+    //show before Room has opened the database. The file is memory-mapped and decoded on
+    //renderExecutor. Room's first result replaces it; if Room is faster the snapshot is dropped
+    private void showSavedSnapshot() {
+        File file = snapshotFile();
+        int fromDay = windowStartDay.getValue();
+        int generation = ++requestedGeneration;
+        int pointBudget = chartPointBudget();
+        renderExecutor.execute(() -> {
+            long start = Metrics.now();
+            SeriesSnapshot saved = SeriesSnapshot.read(file, userId, fromDay);
+            if (saved == null) {
+                return;
+            }
+            LineData lineData = ChartUtils.buildWeightLineData(saved.series, pointBudget);
+            PREPARE_TIME.recordSince(start);
+            //Only set if nothing newer is waiting, so the snapshot never replaces Room's rows
+            pendingSnapshot.compareAndSet(null,
+                    new RenderSnapshot(generation, saved.series, lineData, saved));
+            runOnUiThread(this::swapInSnapshot);
+        });
+    }
+
+    //Saves the visible window and stats so the next cold start can draw them right away
+    @Override
+    protected void onStop() {
+        super.onStop();
+        File file = snapshotFile();
+        int fromDay = windowStartDay.getValue();
+        dbExecutor.execute(() -> {
+            try {
+                weightRepository.saveSeriesSnapshot(file, userId, fromDay);
+            } catch (IOException e) {
+                //Only costs the next cold start its head start
+                Log.w("DashboardActivity", "Could not save chart snapshot", e);
+            }
+        });
+    }
+
+    //Snapshots are a cache, so the system may delete them when storage runs low
+    private File snapshotFile() {
+        return SeriesSnapshot.fileFor(new File(getCacheDir(), "snapshots"), userId);
+    }
+
+    //Main thread. Swaps the prepared snapshot in as the front buffer and redraws
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    private void swapInSnapshot() {
+        RenderSnapshot snapshot = pendingSnapshot.getAndSet(null);
+        //Already swapped by an earlier post, or superseded by a newer emission still being built
+        if (snapshot == null || snapshot.generation != requestedGeneration || isDestroyed()) {
+            return;
+        }
+        long renderStart = Metrics.now();
+        shownGeneration = snapshot.generation;
+        seriesFromDisk = snapshot.saved != null;
+        weightSeries = snapshot.series;
+        weightLineData = snapshot.lineData;
+        weightRangeIndex = null;
+        weightLineChart.setData(weightLineData);
+        //When new data arrives, the series changes. This means reapplying labels for alignment
+        ChartUtils.styleXAxisAsDates(weightLineChart.getXAxis(), weightSeries);
+        //After loading older history, keeps the chart on the point the user was looking at
+        if (anchorDay != EpochDays.INVALID) {
+            int anchorIndex = weightSeries.ceilingIndex(anchorDay);
+            if (anchorIndex >= 0) {
+                weightLineChart.moveViewToX(anchorIndex);
+            }
+            anchorDay = EpochDays.INVALID;
+        }
+        //Forces a redraw of view
+        weightLineChart.invalidate();
+        RENDER_TIME.recordSince(renderStart);
+        if (createStart != 0) {
+            FIRST_DRAW_TIME.recordSince(createStart);
+            createStart = 0;
+        }
+        if (seriesFromDisk && !statsFromRoom) {
+            showStats(snapshot.saved.totalWeightLost, snapshot.saved.bmi);
+        }
+
+        //If nothing was logged recently, jumps back to the most recent older entries. Left to
+        //Room's rows when showing the saved snapshot
+        if (weightSeries.isEmpty() && !seriesFromDisk) {
+            loadOlderHistory();
+        }
+
+        refreshLookupIfTyped();
+    }
+
+    //How many chart points are worth drawing: about one per pixel of chart width. Before the chart
+    //is laid out its width is 0, so the screen width is used instead
+    private int chartPointBudget() {
+        int width = weightLineChart.getWidth();
+        if (width <= 0) {
+            width = getResources().getDisplayMetrics().widthPixels;
+        }
+        return width;
+    }
+
+    //Rebuilds the chart points for the range currently on screen after a zoom or pan
+    private void downsampleVisibleRange() {
+        if (weightLineData == null || weightSeries.size() <= chartPointBudget()) {
+            return;
+        }
+        int from = (int) Math.floor(weightLineChart.getLowestVisibleX());
+        int to = (int) Math.ceil(weightLineChart.getHighestVisibleX()) + 1;
+        weightLineData = ChartUtils.buildWeightLineData(weightSeries, from, to, chartPointBudget());
+        weightLineChart.setData(weightLineData);
+        weightLineChart.invalidate();
+    }
+
+    //Moves the window start back so older entries are loaded. The newest entry before the current
+    //window is read first, so a long gap in the history is skipped in one step
+    private void loadOlderHistory() {
+        if (loadingOlder || !olderHistoryExists) {
+            return;
+        }
+        loadingOlder = true;
+        int currentStart = windowStartDay.getValue();
+        dbExecutor.execute(() -> {
+            List<WeightEntry> older = weightRepository.getEntriesPageBefore(userId, currentStart, 0, 1);
+            runOnUiThread(() -> {
+                loadingOlder = false;
+                if (older.isEmpty()) {
+                    olderHistoryExists = false;
+                    return;
+                }
+                int newestOlderDay = older.get(0).getEpochDay();
+                if (!weightSeries.isEmpty()) {
+                    anchorDay = weightSeries.dayAt(0);
+                }
+                windowStartDay.setValue(Math.min(currentStart, newestOlderDay + 1) - PAGE_DAYS);
+            });
+        });
+    }
+
+    //Adds one new entry to the series and chart
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    private void applyEntryInserted(WeightEntry entry) {
+        if (patchEntryInserted(entry)) {
+            refreshAfterPatch();
+        }
+    }
+
+    //Removes one deleted entry from the series and chart
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    private void applyEntryDeleted(WeightEntry entry) {
+        if (patchEntryDeleted(entry)) {
+            refreshAfterPatch();
+        }
+    }
+
+    //Inserts an entry into the series and chart points without redrawing. Skips entries for
+    //other users and entries that a full rebuild already picked up. Returns true if anything changed
+    private boolean patchEntryInserted(WeightEntry entry) {
+        if (entry.getUserId() != userId || weightLineData == null) {
+            return false;
+        }
+        int day = entry.getEpochDay();
+        //Entries older than the loaded window are not shown
+        if (day == EpochDays.INVALID || day < windowStartDay.getValue()) {
+            return false;
+        }
+        int position = weightSeries.insert(day, entry.getWeight(), entry.getId());
+        if (position < 0) {
+            return false;
+        }
+        weightRangeIndex = null;
+        ChartUtils.insertPoint(weightLineData, position, entry.getWeight());
+        return true;
+    }
+
+    //Removes an entry from the series and chart points without redrawing. Returns true if it was shown
+    private boolean patchEntryDeleted(WeightEntry entry) {
+        if (entry.getUserId() != userId || weightLineData == null) {
+            return false;
+        }
+        int position = weightSeries.remove(entry.getEpochDay(), entry.getId());
+        if (position < 0) {
+            return false;
+        }
+        weightRangeIndex = null;
+        ChartUtils.removePoint(weightLineData, position);
+        return true;
+    }
+
+    //Redraws the chart and the lookup result once after one or more patches
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    private void refreshAfterPatch() {
+        weightLineChart.notifyDataSetChanged();
+        weightLineChart.invalidate();
+        refreshLookupIfTyped();
+    }
+
+    //if user typed a date, refresh the lookup result automatically. This keeps it dynamic
+    //like the chart
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    private void refreshLookupIfTyped() {
+        String currentTyped = editTextLookupDate.getText().toString();
+        if (currentTyped != null && !currentTyped.trim().isEmpty()) {
+            runLookupByDate();
+        }
+    }
+
+    //Stops listening for entry changes when the dashboard closes
+    @Override
+    protected void onDestroy() {
+        //Turn on with: adb shell setprop log.tag.Metrics DEBUG
+        if (Log.isLoggable("Metrics", Log.DEBUG)) {
+            Log.d("Metrics", Metrics.dump());
+        }
+        weightRepository.removeChangeListener(entryChangeListener);
+        dbExecutor.shutdown();
+        renderExecutor.shutdown();
+        super.onDestroy();
+    }
+
+    //Inflates menu
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.menu_dashboard, menu);
+        return true;
+    }
+
+    //Inflates Icons within menu
+    @Override
+    public boolean onOptionsItemSelected(@NonNull MenuItem item) {
+        int id = item.getItemId();
+        //if home icon is clicked, return to main activity
+        if (id == R.id.action_home) {
+            Intent intent = new Intent(this, MainActivity.class);
+            intent.putExtra("USER_ID", userId);
+            // Optional: avoids stacking multiple MainActivities
+            intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_SINGLE_TOP);
+            startActivity(intent);
+            finish();
+            return true;
+        }
+        //if dropdown menu, then logout is selected. Return Login screen
+        if (id == R.id.action_logout) {
+            showLogoutDialog();
+            return true;
+        }
+
+        return super.onOptionsItemSelected(item);
+    }
+
+    //Creates a dialog box to make sure user wants to logout
+    private void showLogoutDialog() {
+        new AlertDialog.Builder(this)
+                .setTitle("Log out?")
+                .setMessage("Are you sure you want to log out?")
+                .setPositiveButton("Log out", (dialog, which) -> {
+                    //Ends the session so its token can no longer be used to skip login. Off the
+                    //main thread for the same reason as in onCreate, and the login screen only
+                    //opens once the session is gone
+                    dbExecutor.execute(() -> {
+                        new SessionManager(this).revokeCurrent();
+                        runOnUiThread(this::openLogin);
+                    });
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    //Gets user input for weight lookup from specific date
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    private void runLookupByDate() {
+        //gets user input
+        String dateInput = editTextLookupDate.getText().toString();
+
+        //A range such as "2025-01-01 to 2025-03-31" shows the low, high and average instead
+        String[] range = splitDateRange(dateInput);
+        if (range != null) {
+            runLookupByRange(range[0], range[1]);
+            return;
+        }
+
+        //Reuse InputValidator class to validate date
+        InputValidator.InputValidationResult dateResult = InputValidator.validateDate(dateInput);
+
+        //if date result not valid, display result in text view
+        if (!dateResult.ok) {
+            tvDisplayWeightFromDate.setText(dateResult.error);
+            return;
+        }
+        //normalize date after validation
+        String normalizedDate = dateResult.value.trim();
+
+        //Dates older than the loaded window are looked up on a background thread. The full history
+        //is only used if another screen already has it cached; otherwise one indexed point query
+        //is run, so memory stays flat however long the history is
+        if (EpochDays.parse(normalizedDate) < windowStartDay.getValue()) {
+            dbExecutor.execute(() -> {
+                Double weight;
+                WeightSeries history = weightRepository.getCachedSeries(userId);
+                if (history != null) {
+                    int found = HashMapWeightLookup.findByDate(history, normalizedDate);
+                    weight = found < 0 ? null : history.weightAt(found);
+                } else {
+                    WeightEntry entry = weightRepository.findEntryOnDate(userId, normalizedDate);
+                    weight = entry == null ? null : entry.getWeight();
+                }
+                runOnUiThread(() -> showLookupResult(weight));
+            });
+            return;
+        }
+        //finds matching date with binary search and returns its position in the series
+        int match = HashMapWeightLookup.findByDate(weightSeries, normalizedDate);
+        if (match < 0) {
+            //No entry that day, so shows the closest one instead
+            int nearest = rangeIndex().nearestIndex(EpochDays.parse(normalizedDate));
+            if (nearest >= 0) {
+                tvDisplayWeightFromDate.setText("No weight entry found. Nearest: "
+                        + EpochDays.format(weightSeries.dayAt(nearest)) + " - "
+                        + weightSeries.weightAt(nearest) + " lbs");
+                return;
+            }
+        }
+        showLookupResult(match < 0 ? null : weightSeries.weightAt(match));
+    }
+
+    //Splits "start to end" or "start..end" into its two dates. Returns null if the input is a
+    //single date
+    private static String[] splitDateRange(String input) {
+        String lower = input.toLowerCase(Locale.US);
+        int at = lower.indexOf(" to ");
+        int gap = 4;
+        if (at < 0) {
+            at = lower.indexOf("..");
+            gap = 2;
+        }
+        if (at < 0) {
+            return null;
+        }
+        return new String[] {input.substring(0, at), input.substring(at + gap)};
+    }
+
+    //Shows the count, low, high and average weight between two dates
+    private void runLookupByRange(String fromInput, String toInput) {
+        InputValidator.InputValidationResult fromResult = InputValidator.validateDate(fromInput);
+        if (!fromResult.ok) {
+            tvDisplayWeightFromDate.setText("Start date: " + fromResult.error);
+            return;
+        }
+        InputValidator.InputValidationResult toResult = InputValidator.validateDate(toInput);
+        if (!toResult.ok) {
+            tvDisplayWeightFromDate.setText("End date: " + toResult.error);
+            return;
+        }
+        int fromDay = EpochDays.parse(fromResult.value);
+        int toDay = EpochDays.parse(toResult.value);
+        if (fromDay > toDay) {
+            tvDisplayWeightFromDate.setText("Start date must be on or before end date.");
+            return;
+        }
+        //Ranges that reach before the loaded window are summed by the database instead
+        if (fromDay < windowStartDay.getValue()) {
+            dbExecutor.execute(() -> {
+                WeightRangeStats stats = weightRepository.getRangeStats(userId, fromDay, toDay);
+                runOnUiThread(() -> showRangeResult(stats));
+            });
+            return;
+        }
+        showRangeResult(rangeIndex().query(fromDay, toDay));
+    }
+
+    private void showRangeResult(WeightRangeStats stats) {
+        if (stats == null || stats.getEntryCount() == 0) {
+            tvDisplayWeightFromDate.setText("No weight entries in that range");
+            return;
+        }
+        tvDisplayWeightFromDate.setText(String.format(
+                "%d entries: low %.1f, high %.1f, avg %.1f lbs",
+                stats.getEntryCount(), stats.getMinWeight(), stats.getMaxWeight(),
+                stats.getAverageWeight()));
+    }
+
+    //Builds the range index the first time it is needed after the series changed
+    private WeightRangeIndex rangeIndex() {
+        if (weightRangeIndex == null) {
+            weightRangeIndex = WeightRangeIndex.build(weightSeries);
+        }
+        return weightRangeIndex;
+    }
+
+    //Displays the looked up weight, or a message if there was no entry for that date
+    private void showLookupResult(Double weight) {
+        if (weight == null) {
+            //if no date not found
+            tvDisplayWeightFromDate.setText("No weight entry found");
+        } else {
+            //display weight for that date
+            tvDisplayWeightFromDate.setText(weight + " lbs");
+        }
+    }
+
+    //Method set up for the planned enhancement category three: databases
+    //Used to display BMI and total weight lost stats
+    private void observeStats() {
+        //One query returns every stat, and it only emits when one of this user's stats changed
+        weightRepository.streamDashboardStats(userId).observe(this, stats -> {
+            statsFromRoom = true;
+            showStats(stats == null ? null : stats.getTotalWeightLost(),
+                    stats == null ? null : stats.getBmi());
+        });
+
+    }
+
+    //Trend numbers come from TrendService, which keeps them as running state across activities and
+    //updates them from the repository's change events instead of rescanning the history
+    private void observeTrend() {
+        TrendService.getInstance(this).observeTrend(userId).observe(this, this::showTrend);
+    }
+
+    //Displays the trend weight and weekly rate under the toolbar title. The layout has no stats
+    //row for them, and the subtitle is cleared while there is not enough data
+    private void showTrend(TrendService.Trend trend) {
+        if (getSupportActionBar() == null) {
+            return;
+        }
+        if (trend == null || trend.trendWeight == null) {
+            getSupportActionBar().setSubtitle(null);
+        } else if (trend.weeklyRate == null) {
+            getSupportActionBar().setSubtitle(String.format("Trend %.1f lbs", trend.trendWeight));
+        } else {
+            getSupportActionBar().setSubtitle(String.format("Trend %.1f lbs (%+.1f lbs/week)",
+                    trend.trendWeight, trend.weeklyRate));
+        }
+    }
+
+    //Displays total weight lost and BMI, from Room or from the saved snapshot
+    private void showStats(Double totalLost, Double bmi) {
+        //Display total weight lost. Checks if null
+        if (totalLost == null) {
+            tvDisplayDifferenceWeight.setText("N/A");
+            //displays if available
+        } else {
+            tvDisplayDifferenceWeight.setText(String.format("%.1f lbs", totalLost));
+        }
+        //Display BMI
+        if (bmi == null) {
+            tvDisplayBMI.setText("N/A");
+        } else {
+            tvDisplayBMI.setText(String.format("%.1f", bmi));
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,91 @@
+package com.CS360.weighttracker.model;
+
+import java.util.Objects;
+
+//Holds every stat shown on the dashboard, read together with one query so one write causes one
+//query and one render instead of a separate query per stat
+
+//Part of Category three planned enhancement
+//This is not a table. Room fills it from the columns selected in WeightEntryDAO.observeDashboardStats
+public class DashboardStats {
+    private Double latestWeight;
+    //first weight - latest weight
+    private Double totalWeightLost;
+    private Double bmi;
+    private int entryCount;
+    //Date range of the user's entries, as epoch days (see EpochDays.format)
+    private Integer firstDate;
+    private Integer latestDate;
+
+    // Getters and Setters
+    public Double getLatestWeight() {
+        return latestWeight;
+    }
+
+    public void setLatestWeight(Double latestWeight) {
+        this.latestWeight = latestWeight;
+    }
+
+    public Double getTotalWeightLost() {
+        return totalWeightLost;
+    }
+
+    public void setTotalWeightLost(Double totalWeightLost) {
+        this.totalWeightLost = totalWeightLost;
+    }
+
+    public Double getBmi() {
+        return bmi;
+    }
+
+    public void setBmi(Double bmi) {
+        this.bmi = bmi;
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    public void setEntryCount(int entryCount) {
+        this.entryCount = entryCount;
+    }
+
+    public Integer getFirstDate() {
+        return firstDate;
+    }
+
+    public void setFirstDate(Integer firstDate) {
+        this.firstDate = firstDate;
+    }
+
+    public Integer getLatestDate() {
+        return latestDate;
+    }
+
+    public void setLatestDate(Integer latestDate) {
+        this.latestDate = latestDate;
+    }
+
+    //Compares every stat, so a re-query that returns the same numbers does not re-render
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DashboardStats)) {
+            return false;
+        }
+        DashboardStats other = (DashboardStats) o;
+        return entryCount == other.entryCount
+                && Objects.equals(latestWeight, other.latestWeight)
+                && Objects.equals(totalWeightLost, other.totalWeightLost)
+                && Objects.equals(bmi, other.bmi)
+                && Objects.equals(firstDate, other.firstDate)
+                && Objects.equals(latestDate, other.latestDate);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(latestWeight, totalWeightLost, bmi, entryCount, firstDate, latestDate);
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Part of planned enhancement: Category 2 - Algorithms and Data Structures
+ * Created: 10/17/26
+ */
+package com.CS360.weighttracker.util;
+
+//Converts between "YYYY-MM-DD" date strings and epoch days (days since 1970-01-01).
+//This is done with plain integer math instead of LocalDate, so converting a date does not
+//allocate any objects and does not need API 26.
+
+/*
+ * The day-count formulas are based on the civil calendar algorithms described in:
+ *   Howard Hinnant. "chrono-Compatible Low-Level Date Algorithms."
+ *   https://howardhinnant.github.io/date_algorithms.html
+ */
+public final class EpochDays {
+    //Returned when a string is not a real YYYY-MM-DD calendar day
+    public static final int INVALID = Integer.MIN_VALUE;
+
+    //stop instantiation
+    private EpochDays() {}
+
+    //Parses a YYYY-MM-DD date into an epoch day. Returns INVALID if the format is wrong or the
+    //day does not exist (for example 2025-02-30)
+    public static int parse(CharSequence date) {
+        if (date == null) {
+            return INVALID;
+        }
+        return parse(date, 0, date.length());
+    }
+
+    //Same as above for the characters between start and end (exclusive), so callers can skip
+    //whitespace without making a trimmed copy of the string
+    public static int parse(CharSequence date, int start, int end) {
+        //Checks exact YYYY-MM-DD shape
+        if (end - start != 10 || date.charAt(start + 4) != '-' || date.charAt(start + 7) != '-') {
+            return INVALID;
+        }
+        int year = digits(date, start, start + 4);
+        int month = digits(date, start + 5, start + 7);
+        int day = digits(date, start + 8, start + 10);
+        //Checks for non-digit characters and impossible months/days
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return INVALID;
+        }
+        return fromCivil(year, month, day);
+    }
+
+    //Converts an epoch day back to a YYYY-MM-DD string (used for chart labels and display)
+    public static String format(int epochDay) {
+        StringBuilder sb = new StringBuilder(10);
+        appendTo(sb, epochDay);
+        return sb.toString();
+    }
+
+    //Appends an epoch day as YYYY-MM-DD to an existing builder
+    public static void appendTo(StringBuilder sb, int epochDay) {
+        long civil = toCivil(epochDay);
+        pad(sb, (int) (civil >> 16), 4);
+        sb.append('-');
+        pad(sb, (int) (civil >> 8) & 0xFF, 2);
+        sb.append('-');
+        pad(sb, (int) civil & 0xFF, 2);
+    }
+
+    //Same day and month the given number of years earlier. Feb 29 becomes Feb 28 in a non-leap
+    //year, the same as LocalDate.minusYears
+    public static int minusYears(int epochDay, int years) {
+        long civil = toCivil(epochDay);
+        int year = (int) (civil >> 16) - years;
+        int month = (int) (civil >> 8) & 0xFF;
+        int day = Math.min((int) civil & 0xFF, lengthOfMonth(year, month));
+        return fromCivil(year, month, day);
+    }
+
+    //Monday on or before the given day. 1970-01-01 was a Thursday, so day 0 is 3 days into its week
+    public static int weekStart(int epochDay) {
+        return epochDay - Math.floorMod(epochDay + 3, 7);
+    }
+
+    //First day of the given day's month
+    public static int monthStart(int epochDay) {
+        return epochDay - ((int) toCivil(epochDay) & 0xFF) + 1;
+    }
+
+    //First day of the month after the given day's month
+    public static int nextMonthStart(int epochDay) {
+        long civil = toCivil(epochDay);
+        int year = (int) (civil >> 16);
+        int month = (int) (civil >> 8) & 0xFF;
+        return epochDay - ((int) civil & 0xFF) + 1 + lengthOfMonth(year, month);
+    }
+
+    //Splits an epoch day into year, month and day packed as (year << 16) | (month << 8) | day,
+    //so callers get all three without allocating an array or object
+    private static long toCivil(int epochDay) {
+        //Shifts the era to start on March 1st so leap days fall at the end of the year
+        int z = epochDay + 719468;
+        int era = Math.floorDiv(z, 146097);
+        int doe = z - era * 146097;
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int day = doy - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        return ((long) year << 16) | (month << 8) | day;
+    }
+
+    //Converts a year, month (1-12) and day (1-31) to an epoch day
+    public static int fromCivil(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yoe = y - era * 400;
+        int mp = month > 2 ? month - 3 : month + 9;
+        int doy = (153 * mp + 2) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    //Number of days in a month, accounting for leap years
+    public static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    //Reads a run of ASCII digits as an int. Returns -1 if any character is not a digit
+    private static int digits(CharSequence s, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int d = s.charAt(i) - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    //Appends a number with leading zeros up to the given width
+    private static void pad(StringBuilder sb, int value, int width) {
+        for (int limit = 10, w = 1; w < width; w++, limit *= 10) {
+            if (value < limit) {
+                sb.append('0');
+            }
+        }
+        sb.append(value);
+    }
+}
@@ -1,29 +1,328 @@
-/*
- * Part of planned enhancement: Category 1 - Software Design: Refactoring service layer
- * Professor Conlan
- * CS499
- * Created: 1/21/26
- */
-package com.CS360.weighttracker.service;
-
-import com.CS360.weighttracker.Dao.GoalWeightDAO;
-import com.CS360.weighttracker.model.GoalWeight;
-
-//This is a service class that manages business logic related to a user's goal weight. It as a
-//middle man between the UI layer and the data access layer. This ensures activites do not interact
-//directly with database operations
-public class GoalService {
-    private final GoalWeightDAO dao;
-
-    public GoalService(GoalWeightDAO dao) {
-        this.dao = dao;
-    }
-    //gets goal weight per specific user Id
-    public GoalWeight getGoal(int userId) {
-        return dao.getGoalWeightForUser(userId);
-    }
-    //Adds users goal weight
-    public void saveGoal(int userId, double weight) {
-        dao.insert(new GoalWeight(weight, userId));
-    }
-}
+/*
+ * Part of planned enhancement: Category 1 - Software Design: Refactoring service layer
+ * Professor Conlan
+ * CS499
+ * Created: 1/21/26
+ */
+package com.CS360.weighttracker.service;
+
+import com.CS360.weighttracker.Dao.GoalWeightDAO;
+import com.CS360.weighttracker.model.GoalWeight;
+import com.CS360.weighttracker.model.UserStats;
+import com.CS360.weighttracker.model.WeightEntry;
+import com.CS360.weighttracker.repository.WeightRepository;
+import com.CS360.weighttracker.util.RollingWeightWindow;
+import com.CS360.weighttracker.util.RunningRegression;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//This is a service class that manages business logic related to a user's goal weight. It as a
+//middle man between the UI layer and the data access layer. This ensures activites do not interact
+//directly with database operations
+public class GoalService {
+    //Days of recent history the forecast line is fitted over
+    private static final int FORECAST_DAYS = 42;
+    //Fewer points than this cannot give a confidence band
+    private static final int MIN_POINTS = 3;
+    //About a 95% band around the fitted slope
+    private static final double BAND_Z = 1.96;
+    //Within this many lbs of the goal counts as reached
+    private static final double REACHED_MARGIN = 0.5;
+    //Projections further out than about ten years are not shown
+    private static final int MAX_FORECAST_DAYS = 3650;
+    private static final int PAGE_SIZE = 500;
+
+    //Forecast state per user. Static so every GoalService in the process shares the cached fits
+    private static final Map<Integer, ForecastState> forecasts = new HashMap<>();
+    private static boolean listening = false;
+
+    private final GoalWeightDAO dao;
+    private final WeightRepository repository;
+
+    public GoalService(GoalWeightDAO dao) {
+        this(dao, null);
+    }
+
+    //The repository is only needed for getForecast
+    public GoalService(GoalWeightDAO dao, WeightRepository repository) {
+        this.dao = dao;
+        this.repository = repository;
+        if (repository != null) {
+            listenForDeletes(repository);
+        }
+    }
+    //gets goal weight per specific user Id
+    public GoalWeight getGoal(int userId) {
+        return dao.getGoalWeightForUser(userId);
+    }
+    //Adds users goal weight
+    public void saveGoal(int userId, double weight) {
+        dao.insert(new GoalWeight(weight, userId));
+        //The fit is still valid, only the projection changes
+        synchronized (forecasts) {
+            ForecastState state = forecasts.get(userId);
+            if (state != null) {
+                state.goal = weight;
+                state.goalLoaded = true;
+                state.cached = null;
+                state.version++;
+            }
+        }
+    }
+
+    //When the user is projected to reach their goal weight. Fits a least-squares line through the
+    //last FORECAST_DAYS days of entries and extends it to the goal.
+    //The fit is kept between calls and new entries are added to it in O(1) each, so a call only
+    //reads the stats row and any entries added since the last call. The result itself is cached
+    //until the goal or the fitted entries change. Reads the database, so call it off the main thread.
+    //The lock is only held to look at and update the cached state; the database reads happen
+    //between the two, so one user's paging does not block every other caller
+    public GoalForecast getForecast(int userId) {
+        while (true) {
+            UserStats stats = repository.getUserStats(userId);
+            int count = stats == null ? 0 : stats.getEntryCount();
+            ForecastState state;
+            long version;
+            boolean goalLoaded;
+            boolean incremental;
+            int stateCount;
+            int lastDay;
+            int lastId;
+            synchronized (forecasts) {
+                state = forecasts.get(userId);
+                if (state == null) {
+                    state = new ForecastState();
+                    forecasts.put(userId, state);
+                }
+                if (state.goalLoaded && !state.stale && state.count == count) {
+                    if (state.cached == null) {
+                        state.cached = project(state);
+                    }
+                    return state.cached;
+                }
+                version = state.version;
+                goalLoaded = state.goalLoaded;
+                incremental = !state.stale && state.count > 0;
+                stateCount = state.count;
+                lastDay = state.lastDay;
+                lastId = state.lastId;
+            }
+
+            Double goal = null;
+            if (!goalLoaded) {
+                GoalWeight saved = dao.getGoalWeightForUser(userId);
+                goal = saved == null ? null : saved.getWeight();
+            }
+            //New entries at the end are read after the last (date, id) seen. If that does not
+            //account for the new count, an entry was added in the past or deleted, so the window
+            //is read again from the database
+            List<WeightEntry> added = null;
+            if (incremental && stateCount != count) {
+                added = readEntriesAfter(userId, lastDay, lastId);
+                if (stateCount + added.size() != count) {
+                    added = null;
+                }
+            } else if (incremental) {
+                added = Collections.emptyList();
+            }
+            List<WeightEntry> window = null;
+            if (added == null && count > 0 && stats.getLatestDate() != null) {
+                //Id MAX_VALUE with the day before the window starts the page at the window's first day
+                window = readEntriesAfter(userId, stats.getLatestDate() - FORECAST_DAYS, Integer.MAX_VALUE);
+            }
+
+            synchronized (forecasts) {
+                //A goal change, delete or another caller's update happened while reading, so the
+                //reads may not match the state any more. Starts over with fresh stats
+                if (state.version != version) {
+                    continue;
+                }
+                if (!goalLoaded) {
+                    state.goal = goal;
+                    state.goalLoaded = true;
+                }
+                if (added == null) {
+                    state.window.clear();
+                    state.lastDay = Integer.MIN_VALUE;
+                    state.lastId = 0;
+                    if (window != null) {
+                        addToWindow(state, window);
+                    }
+                    state.stale = false;
+                } else {
+                    addToWindow(state, added);
+                }
+                state.count = count;
+                state.version++;
+                state.cached = project(state);
+                return state.cached;
+            }
+        }
+    }
+
+    //Adds entries to the window and moves the (date, id) cursor to the last one
+    private static void addToWindow(ForecastState state, List<WeightEntry> entries) {
+        for (WeightEntry e : entries) {
+            state.window.add(e.getEpochDay(), e.getWeight());
+            state.lastDay = e.getEpochDay();
+            state.lastId = e.getId();
+        }
+    }
+
+    //Reads every entry after the (date, id) cursor, a page at a time
+    private List<WeightEntry> readEntriesAfter(int userId, int afterDay, int afterId) {
+        List<WeightEntry> entries = new ArrayList<>();
+        while (true) {
+            List<WeightEntry> page = repository.getEntriesPageAfter(userId, afterDay, afterId, PAGE_SIZE);
+            entries.addAll(page);
+            if (page.size() < PAGE_SIZE) {
+                return entries;
+            }
+            WeightEntry last = page.get(page.size() - 1);
+            afterDay = last.getEpochDay();
+            afterId = last.getId();
+        }
+    }
+
+    //Extends the fitted line from its value today to the goal. The band uses the slope plus and
+    //minus BAND_Z standard errors, so a noisy history gives a wide range of dates
+    private static GoalForecast project(ForecastState state) {
+        if (state.goal == null) {
+            return new GoalForecast(GoalForecast.Status.NO_GOAL, null, null, null, null, null);
+        }
+        double goal = state.goal;
+        RunningRegression fit = state.window.fit();
+        double slope = fit.slope();
+        if (fit.count() < MIN_POINTS || Double.isNaN(slope)) {
+            return new GoalForecast(GoalForecast.Status.NOT_ENOUGH_DATA, goal, null, null, null, null);
+        }
+        Double weeklyRate = slope * 7;
+        //How far the fitted weight on the latest entry's day is from the goal
+        double remaining = goal - fit.predict(state.lastDay);
+        if (Math.abs(remaining) <= REACHED_MARGIN) {
+            return new GoalForecast(GoalForecast.Status.REACHED, goal, state.lastDay, state.lastDay,
+                    state.lastDay, weeklyRate);
+        }
+        Integer eta = daysUntil(state.lastDay, remaining, slope);
+        if (eta == null) {
+            return new GoalForecast(GoalForecast.Status.NOT_ON_TRACK, goal, null, null, null, weeklyRate);
+        }
+        double spread = BAND_Z * fit.slopeStdError();
+        Integer earliest = eta;
+        Integer latest = eta;
+        if (!Double.isNaN(spread)) {
+            //The steeper slope reaches the goal first. The shallower one may never reach it,
+            //which leaves the band open-ended
+            double steeper = slope + Math.copySign(spread, remaining);
+            double shallower = slope - Math.copySign(spread, remaining);
+            earliest = daysUntil(state.lastDay, remaining, steeper);
+            latest = daysUntil(state.lastDay, remaining, shallower);
+        }
+        return new GoalForecast(GoalForecast.Status.ON_TRACK, goal, eta, earliest, latest, weeklyRate);
+    }
+
+    //Epoch day when a line moving by slope lbs/day covers the remaining lbs, or null if it is
+    //moving the wrong way or would take longer than MAX_FORECAST_DAYS
+    private static Integer daysUntil(int fromDay, double remaining, double slope) {
+        if (slope == 0 || Math.signum(slope) != Math.signum(remaining)) {
+            return null;
+        }
+        double days = remaining / slope;
+        if (days > MAX_FORECAST_DAYS) {
+            return null;
+        }
+        return fromDay + (int) Math.ceil(days);
+    }
+
+    //A delete can remove an entry from the window without changing where the cursor is, so deletes
+    //and bulk imports mark the user's fit as stale. Registered once for the whole process
+    private static void listenForDeletes(WeightRepository repository) {
+        synchronized (forecasts) {
+            if (listening) {
+                return;
+            }
+            listening = true;
+        }
+        repository.addChangeListener(new WeightRepository.ChangeListener() {
+            @Override
+            public void onEntryInserted(WeightEntry entry) {
+                //Picked up from the entry count on the next getForecast
+            }
+
+            @Override
+            public void onEntryDeleted(WeightEntry entry) {
+                markStale(entry.getUserId());
+            }
+
+            @Override
+            public void onEntriesReplaced(int userId) {
+                markStale(userId);
+            }
+        });
+    }
+
+    private static void markStale(int userId) {
+        synchronized (forecasts) {
+            ForecastState state = forecasts.get(userId);
+            if (state != null) {
+                state.stale = true;
+                state.version++;
+            }
+        }
+    }
+
+    //Projected goal date with a confidence band. Dates are epoch days (see EpochDays.format)
+    public static final class GoalForecast {
+        public enum Status {
+            //The user has not set a goal
+            NO_GOAL,
+            //Fewer than MIN_POINTS entries in the last FORECAST_DAYS days
+            NOT_ENOUGH_DATA,
+            //Current trend is already at the goal
+            REACHED,
+            //Trend is moving toward the goal
+            ON_TRACK,
+            //Trend is flat, moving away from the goal, or would take over ten years
+            NOT_ON_TRACK
+        }
+
+        public final Status status;
+        public final Double goalWeight;
+        //Most likely date, and the earliest and latest dates in the band. latestDate is null when
+        //the slow end of the band never reaches the goal
+        public final Integer etaDate;
+        public final Integer earliestDate;
+        public final Integer latestDate;
+        //Lbs per week from the fitted line. Negative means losing weight
+        public final Double weeklyRate;
+
+        GoalForecast(Status status, Double goalWeight, Integer etaDate, Integer earliestDate,
+                     Integer latestDate, Double weeklyRate) {
+            this.status = status;
+            this.goalWeight = goalWeight;
+            this.etaDate = etaDate;
+            this.earliestDate = earliestDate;
+            this.latestDate = latestDate;
+            this.weeklyRate = weeklyRate;
+        }
+    }
+
+    //Cached fit and result for one user
+    private static final class ForecastState {
+        final RollingWeightWindow window = new RollingWeightWindow(FORECAST_DAYS);
+        //Entry count and (date, id) cursor the window reflects
+        int count = 0;
+        int lastDay = Integer.MIN_VALUE;
+        int lastId = 0;
+        boolean stale = false;
+        //Bumped on every change, so getForecast can tell if the state moved while it was reading
+        long version = 0;
+        boolean goalLoaded = false;
+        Double goal;
+        GoalForecast cached;
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Part of planned enhancement: Category 3 - Databases
+ * Created: 10/17/26
+ */
+package com.CS360.weighttracker.service;
+
+import android.database.Cursor;
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.JsonWriter;
+
+import com.CS360.weighttracker.model.WeightEntry;
+import com.CS360.weighttracker.repository.WeightRepository;
+import com.CS360.weighttracker.util.EpochDays;
+import com.CS360.weighttracker.util.InputValidator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+//This is a service class for moving a user's weight history in and out of the app, for example from
+//a smart scale export or another tracking app. Both directions stream: the importer reads one row at
+//a time and writes in chunked transactions, and the exporter reads from a Cursor instead of loading
+//a List<WeightEntry>, so memory stays flat no matter how long the history is.
+
+//CSV format: one "YYYY-MM-DD,weight" row per line, with an optional "date,weight" header. Columns
+//after the weight (time, body fat, etc.) are ignored.
+//JSON format: an array of {"date": "YYYY-MM-DD", "weight": 180.5} objects.
+public class ImportExportService {
+    //Rows written per transaction. Large enough that the commit cost is spread over many rows,
+    //small enough that one transaction does not hold the database lock for long
+    private static final int BATCH_SIZE = 1000;
+
+    private final WeightRepository repository;
+
+    public ImportExportService(WeightRepository repository) {
+        this.repository = repository;
+    }
+
+    //Summary of an import, so the UI can show how many rows were skipped and why
+    public static final class ImportResult {
+        public final int imported;
+        public final int skipped;
+        //Message for the first rejected row, or null if every row was valid
+        public final String firstError;
+
+        private ImportResult(int imported, int skipped, String firstError) {
+            this.imported = imported;
+            this.skipped = skipped;
+            this.firstError = firstError;
+        }
+    }
+
+    //Reads "date,weight" rows from a CSV file. Invalid rows are skipped and counted
+    public ImportResult importCsv(int userId, Reader in) throws IOException {
+        BatchWriter writer = new BatchWriter(userId);
+        try {
+            BufferedReader reader = new BufferedReader(in, 64 * 1024);
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                //Skips blank lines
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                int comma = line.indexOf(',');
+                if (comma < 0) {
+                    writer.reject("Line " + lineNumber + ": expected date,weight");
+                    continue;
+                }
+                String date = line.substring(0, comma);
+                //Skips a header row such as "date,weight"
+                if (lineNumber == 1 && date.trim().equalsIgnoreCase("date")) {
+                    continue;
+                }
+                //The weight ends at the next comma if the row has extra columns
+                int end = line.indexOf(',', comma + 1);
+                String weight = line.substring(comma + 1, end < 0 ? line.length() : end);
+                writer.add(date, weight, "Line " + lineNumber);
+            }
+            return writer.finish();
+        } finally {
+            writer.notifyIfImported();
+        }
+    }
+
+    //Reads an array of {"date": ..., "weight": ...} objects. Invalid rows are skipped and counted
+    public ImportResult importJson(int userId, Reader in) throws IOException {
+        BatchWriter writer = new BatchWriter(userId);
+        try {
+            JsonReader json = new JsonReader(in);
+            int index = 0;
+            json.beginArray();
+            while (json.hasNext()) {
+                String date = null;
+                String weight = null;
+                json.beginObject();
+                while (json.hasNext()) {
+                    String name = json.nextName();
+                    if (json.peek() == JsonToken.NULL) {
+                        json.skipValue();
+                    } else if (name.equals("date")) {
+                        date = json.nextString();
+                    } else if (name.equals("weight")) {
+                        //Read as a string so it goes through the same validation as CSV and manual input
+                        weight = json.nextString();
+                    } else {
+                        //Ignores fields we do not store (time, body fat, etc.)
+                        json.skipValue();
+                    }
+                }
+                json.endObject();
+                writer.add(date, weight, "Row " + index);
+                index++;
+            }
+            json.endArray();
+            return writer.finish();
+        } finally {
+            writer.notifyIfImported();
+        }
+    }
+
+    //Writes the user's history as CSV with a "date,weight" header, in date order
+    public int exportCsv(int userId, Writer out) throws IOException {
+        int count = 0;
+        //Reuses one builder for every row so the loop does not create a String per row
+        StringBuilder row = new StringBuilder(32);
+        try (Cursor cursor = repository.openEntriesCursor(userId)) {
+            out.write("date,weight\n");
+            while (cursor.moveToNext()) {
+                row.setLength(0);
+                EpochDays.appendTo(row, cursor.getInt(0));
+                row.append(',').append(cursor.getDouble(1)).append('\n');
+                out.append(row);
+                count++;
+            }
+        }
+        out.flush();
+        return count;
+    }
+
+    //Writes the user's history as a JSON array of {"date", "weight"} objects, in date order
+    public int exportJson(int userId, Writer out) throws IOException {
+        int count = 0;
+        JsonWriter json = new JsonWriter(out);
+        try (Cursor cursor = repository.openEntriesCursor(userId)) {
+            json.beginArray();
+            while (cursor.moveToNext()) {
+                json.beginObject();
+                json.name("date").value(EpochDays.format(cursor.getInt(0)));
+                json.name("weight").value(cursor.getDouble(1));
+                json.endObject();
+                count++;
+            }
+            json.endArray();
+        }
+        json.flush();
+        return count;
+    }
+
+    //Validates rows and collects them into batches. Each full batch is written in its own
+    //transaction, and listeners are told once at the end, even if the import stopped part way
+    private final class BatchWriter {
+        private final int userId;
+        private final List<WeightEntry> batch = new ArrayList<>(BATCH_SIZE);
+        private int imported = 0;
+        private int skipped = 0;
+        private String firstError = null;
+
+        BatchWriter(int userId) {
+            this.userId = userId;
+        }
+
+        //Validates one row with the same rules as manual entry and queues it. Uses the typed fast
+        //path, and only builds an error message for rows that are rejected
+        void add(String date, String weight, String where) {
+            int day = InputValidator.parseDate(date);
+            if (day == EpochDays.INVALID) {
+                reject(where + ": " + InputValidator.validateDate(date).error);
+                return;
+            }
+            double lbs = InputValidator.parseWeight(weight);
+            if (Double.isNaN(lbs)) {
+                reject(where + ": " + InputValidator.validateWeight(weight).error);
+                return;
+            }
+            batch.add(new WeightEntry(day, lbs, userId));
+            if (batch.size() == BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        //Counts a skipped row and keeps the first error message
+        void reject(String error) {
+            skipped++;
+            if (firstError == null) {
+                firstError = error;
+            }
+        }
+
+        //Writes the queued rows in one transaction
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            repository.addEntries(userId, batch);
+            imported += batch.size();
+            batch.clear();
+        }
+
+        //Writes the last partial batch and returns the summary
+        ImportResult finish() {
+            flush();
+            return new ImportResult(imported, skipped, firstError);
+        }
+
+        //Tells listeners once if any batch was committed. Called from a finally block, so batches
+        //already written are reported even if a later batch or the file itself fails
+        void notifyIfImported() {
+            if (imported > 0) {
+                repository.notifyEntriesReplaced(userId);
+            }
+        }
+    }
+}
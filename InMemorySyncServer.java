@@ -0,0 +1,98 @@
+/*
+ * Part of planned enhancement: Category 3 - Databases
+ * Created: 10/17/26
+ */
+package com.CS360.weighttracker.service;
+
+import com.CS360.weighttracker.model.ChangeLogEntry;
+import com.CS360.weighttracker.util.SyncCodec;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+//In-process stand-in for the sync backend. It follows the SyncServer rules exactly, so two
+//SyncEngines (two "devices") pointed at one instance can be synced against each other without a
+//network. Everything is lost when the process ends.
+public class InMemorySyncServer implements SyncServer {
+    //Every user's entries and the order they last changed in
+    private final Map<Integer, UserLog> users = new HashMap<>();
+    private long nextVersion = 1;
+
+    //The stored value of one entry
+    private static final class Row {
+        final ChangeLogEntry change;
+        final String deviceId;
+        final long version;
+
+        Row(ChangeLogEntry change, String deviceId, long version) {
+            this.change = change;
+            this.deviceId = deviceId;
+            this.version = version;
+        }
+    }
+
+    private static final class UserLog {
+        final Map<Long, Row> bySyncId = new HashMap<>();
+        //Only the newest row per entry is kept here, so a pull never sends an entry twice
+        final TreeMap<Long, Row> byVersion = new TreeMap<>();
+    }
+
+    @Override
+    public synchronized void push(int userId, String deviceId, byte[] batch) {
+        UserLog log = users.computeIfAbsent(userId, k -> new UserLog());
+        for (ChangeLogEntry c : SyncCodec.decode(batch, userId).changes) {
+            Row current = log.bySyncId.get(c.getSyncId());
+            if (current != null && !wins(c, deviceId, current)) {
+                continue;
+            }
+            if (current != null) {
+                log.byVersion.remove(current.version);
+            }
+            Row row = new Row(c, deviceId, nextVersion++);
+            log.bySyncId.put(c.getSyncId(), row);
+            log.byVersion.put(row.version, row);
+        }
+    }
+
+    @Override
+    public synchronized byte[] pull(int userId, String deviceId, long sinceVersion, int limit) {
+        UserLog log = users.get(userId);
+        List<ChangeLogEntry> changes = new ArrayList<>();
+        long version = sinceVersion;
+        boolean hasMore = false;
+        if (log != null) {
+            Iterator<Row> it = log.byVersion.tailMap(sinceVersion, false).values().iterator();
+            while (it.hasNext()) {
+                if (changes.size() == limit) {
+                    hasMore = true;
+                    break;
+                }
+                Row row = it.next();
+                //Skipped but still moves the cursor, so the device's own changes are passed once
+                version = row.version;
+                if (!row.deviceId.equals(deviceId)) {
+                    changes.add(row.change);
+                }
+            }
+        }
+        return SyncCodec.encode(version, hasMore, changes);
+    }
+
+    //Rows stored for a user, deleted entries included, for checking two devices ended up with the
+    //same data
+    public synchronized int getRowCount(int userId) {
+        UserLog log = users.get(userId);
+        return log == null ? 0 : log.bySyncId.size();
+    }
+
+    //Last write wins. An exact replay of the stored change is not newer, so retries change nothing
+    private static boolean wins(ChangeLogEntry incoming, String deviceId, Row current) {
+        long a = incoming.getUpdatedAt();
+        long b = current.change.getUpdatedAt();
+        return a > b || (a == b && deviceId.compareTo(current.deviceId) > 0);
+    }
+}
@@ -1,217 +1,358 @@
-/*
-* Christopher DeMello
-* Professor Conlan
-* CS499
-* Created: 1/20/25
-*
-* Part of Planned Enhancement - Category 1: Software Design
-* Enhance security by adding input validation on user input features
-*/
-package com.CS360.weighttracker.util;
-
-import android.os.Build;
-import android.renderscript.ScriptGroup;
-
-import androidx.annotation.RequiresApi;
-
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
-import java.util.regex.Pattern;
-
-/*
- *This class is set up to add validation on all input used within the app by the user, such username,
- * password, weight entries, and dates. It is moved out Main activity to bolster reusability as well as
- * maintainability.
- */
-
-public class InputValidator {
-    private InputValidator() {
-    }
-
-    //Set min and max characters for username
-    private static final int USERNAME_MIN = 5;
-    private static final int USERNAME_MAX = 25;
-
-    //Allow only letters and numbers. No weird characters.
-    private static final Pattern USERNAME_ALLOWED = Pattern.compile("^[A-Za-z0-9._-]+$");
-
-    //Set up date validation
-    private static final Pattern Date_YYYY_MM_DD =
-            Pattern.compile("^\\d{4}-\\d{2}-\\d{2}$");
-
-    public static final class InputValidationResult {
-        public final boolean ok;
-        public final String value;
-        public final String error;
-
-        private InputValidationResult(boolean ok, String value, String error) {
-            this.ok = ok;
-            this.value = value;
-            this.error = error;
-        }
-
-        //If input is correct, pass this function values
-        public static InputValidationResult ok(String value) {
-            return new InputValidationResult(true, value, null);
-        }
-
-        //If input is not correct, pass this function values
-        public static InputValidationResult fail(String error) {
-            return new InputValidationResult(false, null, error);
-        }
-    }
-
-    //Call this function to ensure input for username is valid
-    public static InputValidationResult validateUsername(String username) {
-        if (username == null) {
-            return InputValidationResult.fail("Username is required.");
-        }
-        //Get rid leading and trailing whitespace
-        String u = username.trim();
-        //Check for empty username input after trim
-        if (u.isEmpty()) {
-            return InputValidationResult.fail("Username cannot be empty.");
-        }
-        //Checks if not enough characters
-        if (u.length() < USERNAME_MIN) {
-            return InputValidationResult.fail("Username is too short. Must be greater than 5 characters.");
-        }
-        //Checks if too many characters
-        if (u.length() > USERNAME_MAX) {
-            return InputValidationResult.fail("Username is too long. Must be less than 25 characters.");
-        }
-        //Checks to make sure username contains valid characters
-        if (!USERNAME_ALLOWED.matcher(u).matches()) {
-            return InputValidationResult.fail("Username contains invalid characters.");
-        }
-        //returns valid username
-        return InputValidationResult.ok(u);
-    }
-
-    //Checks to ensure input for password is valid
-    public static InputValidationResult validatePassword(String password) {
-        if (password == null) {
-            return InputValidationResult.fail("Password is required.");
-        }
-        //Gets rid of leading and trailing whitespace
-        String p = password.trim();
-        //Checks to make sure input isn't empty
-        if (p.isEmpty()) {
-            return InputValidationResult.fail("Password cannot be empty.");
-        }
-        //Checks length is longer than characters
-        if (p.length() < 6) {
-            return InputValidationResult.fail("Password must be at least 6 characters.");
-        }
-        //Returns valid password
-        return InputValidationResult.ok(p);
-    }
-
-    //Checks date input to ensure it is valid
-    @RequiresApi(api = Build.VERSION_CODES.O)
-    public static InputValidationResult validateDate(String date) {
-        //Checks if null
-        if (date == null) {
-            return InputValidationResult.fail("Date is required.");
-        }
-        //Clears leading and trailing whitespace
-        String d = date.trim();
-        //Checks if empty
-        if (d.isEmpty()) {
-            return InputValidationResult.fail("Date cannot be empty.");
-        }
-        //Checks format
-        if (!d.matches("\\d{4}-\\d{2}-\\d{2}")) {
-            return InputValidationResult.fail("Date must be in YYYY-MM-DD format");
-        }
-        //Checks to see if accurate date. (For example: 2025-13-10 because there is no month higher than 12
-        LocalDate dateFormat;
-        //YYYY-MM-DD
-        try {
-            DateTimeFormatter fmt = DateTimeFormatter.ISO_LOCAL_DATE;
-            dateFormat = LocalDate.parse(d, fmt);
-        } catch (DateTimeParseException e) {
-            return InputValidationResult.fail("Date is not a valid calender day.");
-        }
-        //Set range rules date cannot be greater than 150 years ago and must prevent future entries
-        LocalDate today = LocalDate.now();
-        LocalDate oldestYear = today.minusYears(150);
-        //Checks against years greater than 150
-        if (dateFormat.isBefore(oldestYear)) {
-            return InputValidationResult.fail("Year must be within the last 150 years.");
-        }
-        //Checks against future dates
-        if (dateFormat.isAfter(today)) {
-            return InputValidationResult.fail("Date cannot be in the future.");
-        }
-        return InputValidationResult.ok(date);
-    }
-
-    //Ensures weight input values exist and are within reasonable range
-    public static InputValidationResult validateWeight(String weight) {
-        //Checks weight is not null
-        if (weight == null) {
-            return InputValidationResult.fail("Weight is required.");
-        }
-        //Clears leading and trailing whitespace
-        String w = weight.trim();
-        //Checks to make sure weight isn't empty
-        if (w.isEmpty()) {
-            return InputValidationResult.fail("Weight cannot be empty.");
-        }
-        //Checks the weight range
-        try {
-            double lbs = Double.parseDouble(w);
-            if (lbs < 30 || lbs > 1000) {
-                return InputValidationResult.fail("Weight is out of range.");
-            }
-            //sets back to string
-            return InputValidationResult.ok(Double.toString(lbs));
-            //catches if characters are not a number
-        } catch (NumberFormatException e) {
-            return InputValidationResult.fail("Weight must be a number.");
-        }
-    }
-
-    //Ensures height values exist and within a reasonable range
-    public static InputValidationResult validateHeightFeetInches(String feet, String inches) {
-        //checks if null
-        if (feet == null | inches == null) {
-            return InputValidationResult.fail("Height is required.");
-        }
-        //Clears whitespace before and after
-        String f = feet.trim();
-        String i = inches.trim();
-
-        //checks if empty
-        if (f.isEmpty() || i.isEmpty()) {
-            return InputValidationResult.fail("Enter both feet and inches.");
-        }
-
-        //checks to make sure only numbers are accepted
-        int ft;
-        int in;
-
-        try {
-            ft = Integer.parseInt(f);
-            in = Integer.parseInt(i);
-        } catch (NumberFormatException e) {
-            return InputValidationResult.fail("Height must be numeric.");
-        }
-
-        //Checks for reasonable range
-        if (ft < 2 || ft > 9) {
-            return InputValidationResult.fail("Feet must be between 2 and 9.");
-        }
-
-        if (in < 0 || in > 11) {
-            return InputValidationResult.fail("Inches must be between 0 and 11");
-        }
-        //Calculate total inches
-        int totalInches = ft * 12 + in;
-
-        return InputValidationResult.ok(Integer.toString(totalInches));
-    }
-
-}
+/*
+* Christopher DeMello
+* Professor Conlan
+* CS499
+* Created: 1/20/25
+*
+* Part of Planned Enhancement - Category 1: Software Design
+* Enhance security by adding input validation on user input features
+*/
+package com.CS360.weighttracker.util;
+
+import android.renderscript.ScriptGroup;
+
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/*
+ *This class is set up to add validation on all input used within the app by the user, such username,
+ * password, weight entries, and dates. It is moved out Main activity to bolster reusability as well as
+ * maintainability.
+ */
+
+public class InputValidator {
+    private InputValidator() {
+    }
+
+    //Set min and max characters for username
+    private static final int USERNAME_MIN = 5;
+    private static final int USERNAME_MAX = 25;
+
+    //Allow only letters and numbers. No weird characters.
+    private static final Pattern USERNAME_ALLOWED = Pattern.compile("^[A-Za-z0-9._-]+$");
+
+    //Set up date validation
+    private static final Pattern Date_YYYY_MM_DD =
+            Pattern.compile("^\\d{4}-\\d{2}-\\d{2}$");
+
+    //Dates must be within the last 150 years and not in the future
+    private static final int MAX_YEARS_BACK = 150;
+    private static final double WEIGHT_MIN = 30;
+    private static final double WEIGHT_MAX = 1000;
+    //Exact powers of ten for the decimal parsing fast path
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+
+    //Today's date and the oldest allowed date as epoch days. Worked out once and reused until the
+    //next refresh instead of calling LocalDate.now() on every validation
+    private static final class DateBounds {
+        final int today;
+        final int oldest;
+        //Time in ms after which the bounds have to be worked out again
+        final long validUntil;
+
+        DateBounds(int today, int oldest, long validUntil) {
+            this.today = today;
+            this.oldest = oldest;
+            this.validUntil = validUntil;
+        }
+    }
+
+    private static volatile DateBounds dateBounds = new DateBounds(0, 0, Long.MIN_VALUE);
+
+    public static final class InputValidationResult {
+        public final boolean ok;
+        public final String value;
+        public final String error;
+
+        private InputValidationResult(boolean ok, String value, String error) {
+            this.ok = ok;
+            this.value = value;
+            this.error = error;
+        }
+
+        //If input is correct, pass this function values
+        public static InputValidationResult ok(String value) {
+            return new InputValidationResult(true, value, null);
+        }
+
+        //If input is not correct, pass this function values
+        public static InputValidationResult fail(String error) {
+            return new InputValidationResult(false, null, error);
+        }
+    }
+
+    //Call this function to ensure input for username is valid
+    public static InputValidationResult validateUsername(String username) {
+        if (username == null) {
+            return InputValidationResult.fail("Username is required.");
+        }
+        //Get rid leading and trailing whitespace
+        String u = username.trim();
+        //Check for empty username input after trim
+        if (u.isEmpty()) {
+            return InputValidationResult.fail("Username cannot be empty.");
+        }
+        //Checks if not enough characters
+        if (u.length() < USERNAME_MIN) {
+            return InputValidationResult.fail("Username is too short. Must be greater than 5 characters.");
+        }
+        //Checks if too many characters
+        if (u.length() > USERNAME_MAX) {
+            return InputValidationResult.fail("Username is too long. Must be less than 25 characters.");
+        }
+        //Checks to make sure username contains valid characters
+        if (!USERNAME_ALLOWED.matcher(u).matches()) {
+            return InputValidationResult.fail("Username contains invalid characters.");
+        }
+        //returns valid username
+        return InputValidationResult.ok(u);
+    }
+
+    //Checks to ensure input for password is valid
+    public static InputValidationResult validatePassword(String password) {
+        if (password == null) {
+            return InputValidationResult.fail("Password is required.");
+        }
+        //Gets rid of leading and trailing whitespace
+        String p = password.trim();
+        //Checks to make sure input isn't empty
+        if (p.isEmpty()) {
+            return InputValidationResult.fail("Password cannot be empty.");
+        }
+        //Checks length is longer than characters
+        if (p.length() < 6) {
+            return InputValidationResult.fail("Password must be at least 6 characters.");
+        }
+        //Returns valid password
+        return InputValidationResult.ok(p);
+    }
+
+    //Checks date input to ensure it is valid
+    public static InputValidationResult validateDate(String date) {
+        //Checks if null
+        if (date == null) {
+            return InputValidationResult.fail("Date is required.");
+        }
+        //Clears leading and trailing whitespace
+        String d = date.trim();
+        //Checks if empty
+        if (d.isEmpty()) {
+            return InputValidationResult.fail("Date cannot be empty.");
+        }
+        //Parses the date. Only a failed parse needs the regex, to tell a bad format apart from a
+        //day that does not exist (For example: 2025-13-10 because there is no month higher than 12)
+        int day = EpochDays.parse(d);
+        if (day == EpochDays.INVALID) {
+            if (!Date_YYYY_MM_DD.matcher(d).matches()) {
+                return InputValidationResult.fail("Date must be in YYYY-MM-DD format");
+            }
+            return InputValidationResult.fail("Date is not a valid calender day.");
+        }
+        //Set range rules date cannot be greater than 150 years ago and must prevent future entries
+        DateBounds bounds = currentDateBounds();
+        //Checks against years greater than 150
+        if (day < bounds.oldest) {
+            return InputValidationResult.fail("Year must be within the last 150 years.");
+        }
+        //Checks against future dates
+        if (day > bounds.today) {
+            return InputValidationResult.fail("Date cannot be in the future.");
+        }
+        return InputValidationResult.ok(d);
+    }
+
+    //Ensures weight input values exist and are within reasonable range
+    public static InputValidationResult validateWeight(String weight) {
+        //Checks weight is not null
+        if (weight == null) {
+            return InputValidationResult.fail("Weight is required.");
+        }
+        //Clears leading and trailing whitespace
+        String w = weight.trim();
+        //Checks to make sure weight isn't empty
+        if (w.isEmpty()) {
+            return InputValidationResult.fail("Weight cannot be empty.");
+        }
+        //Checks the weight range
+        try {
+            double lbs = Double.parseDouble(w);
+            //"NaN" parses as a number but fails both comparisons, so it is checked separately
+            if (Double.isNaN(lbs) || lbs < WEIGHT_MIN || lbs > WEIGHT_MAX) {
+                return InputValidationResult.fail("Weight is out of range.");
+            }
+            //sets back to string
+            return InputValidationResult.ok(Double.toString(lbs));
+            //catches if characters are not a number
+        } catch (NumberFormatException e) {
+            return InputValidationResult.fail("Weight must be a number.");
+        }
+    }
+
+    //Fast path for hot loops such as imports. Applies the same rules as validateDate but returns
+    //the epoch day directly, or EpochDays.INVALID, without regex, exceptions or new Strings.
+    //Call validateDate on a rejected value to get the error message
+    public static int parseDate(CharSequence date) {
+        if (date == null) {
+            return EpochDays.INVALID;
+        }
+        int start = 0;
+        int end = date.length();
+        //Skips leading and trailing whitespace without making a trimmed copy
+        while (start < end && date.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && date.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        int day = EpochDays.parse(date, start, end);
+        if (day == EpochDays.INVALID) {
+            return EpochDays.INVALID;
+        }
+        DateBounds bounds = currentDateBounds();
+        return day < bounds.oldest || day > bounds.today ? EpochDays.INVALID : day;
+    }
+
+    //Fast path version of validateWeight. Returns the weight, or NaN if it is missing, not a
+    //number or out of range. Call validateWeight on a rejected value to get the error message
+    public static double parseWeight(CharSequence weight) {
+        if (weight == null) {
+            return Double.NaN;
+        }
+        int start = 0;
+        int end = weight.length();
+        while (start < end && weight.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && weight.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        double lbs = parsePlainDecimal(weight, start, end);
+        //Anything unusual (signs, exponents, long decimals) goes through Double.parseDouble so the
+        //fast path accepts exactly what validateWeight accepts
+        if (Double.isNaN(lbs) && start < end) {
+            try {
+                lbs = Double.parseDouble(weight.subSequence(start, end).toString());
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+        return lbs < WEIGHT_MIN || lbs > WEIGHT_MAX ? Double.NaN : lbs;
+    }
+
+    //Batch version of parseDate for a whole imported column. Writes each row's epoch day (or
+    //EpochDays.INVALID) into out and returns how many rows were rejected
+    public static int parseDates(List<? extends CharSequence> column, int[] out) {
+        int rejected = 0;
+        for (int i = 0; i < column.size(); i++) {
+            out[i] = parseDate(column.get(i));
+            if (out[i] == EpochDays.INVALID) {
+                rejected++;
+            }
+        }
+        return rejected;
+    }
+
+    //Batch version of parseWeight. Writes each row's weight (or NaN) into out and returns how
+    //many rows were rejected
+    public static int parseWeights(List<? extends CharSequence> column, double[] out) {
+        int rejected = 0;
+        for (int i = 0; i < column.size(); i++) {
+            out[i] = parseWeight(column.get(i));
+            if (Double.isNaN(out[i])) {
+                rejected++;
+            }
+        }
+        return rejected;
+    }
+
+    //Parses plain digits with an optional decimal point ("182", "182.4", ".5"). Returns NaN for
+    //anything else. Dividing the digits by a power of ten is correctly rounded, so the result is
+    //the same double Double.parseDouble gives, as long as there are at most 15 digits
+    private static double parsePlainDecimal(CharSequence s, int start, int end) {
+        long digits = 0;
+        int count = 0;
+        int decimals = -1;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c == '.' && decimals < 0) {
+                decimals = 0;
+                continue;
+            }
+            if (c < '0' || c > '9' || ++count > 15) {
+                return Double.NaN;
+            }
+            digits = digits * 10 + (c - '0');
+            if (decimals >= 0) {
+                decimals++;
+            }
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        return decimals > 0 ? digits / POWERS_OF_TEN[decimals] : digits;
+    }
+
+    //Returns today's bounds, working them out again after midnight. Checked at least hourly so a
+    //time zone or daylight saving change is picked up
+    private static DateBounds currentDateBounds() {
+        DateBounds bounds = dateBounds;
+        long now = System.currentTimeMillis();
+        if (now < bounds.validUntil) {
+            return bounds;
+        }
+        long dayMillis = TimeUnit.DAYS.toMillis(1);
+        //Local date in the device's time zone, the same day LocalDate.now() would give
+        int offset = TimeZone.getDefault().getOffset(now);
+        int today = (int) Math.floorDiv(now + offset, dayMillis);
+        long nextMidnight = (today + 1) * dayMillis - offset;
+        long validUntil = Math.min(nextMidnight, now + TimeUnit.HOURS.toMillis(1));
+        bounds = new DateBounds(today, EpochDays.minusYears(today, MAX_YEARS_BACK), validUntil);
+        dateBounds = bounds;
+        return bounds;
+    }
+
+    //Ensures height values exist and within a reasonable range
+    public static InputValidationResult validateHeightFeetInches(String feet, String inches) {
+        //checks if null
+        if (feet == null | inches == null) {
+            return InputValidationResult.fail("Height is required.");
+        }
+        //Clears whitespace before and after
+        String f = feet.trim();
+        String i = inches.trim();
+
+        //checks if empty
+        if (f.isEmpty() || i.isEmpty()) {
+            return InputValidationResult.fail("Enter both feet and inches.");
+        }
+
+        //checks to make sure only numbers are accepted
+        int ft;
+        int in;
+
+        try {
+            ft = Integer.parseInt(f);
+            in = Integer.parseInt(i);
+        } catch (NumberFormatException e) {
+            return InputValidationResult.fail("Height must be numeric.");
+        }
+
+        //Checks for reasonable range
+        if (ft < 2 || ft > 9) {
+            return InputValidationResult.fail("Feet must be between 2 and 9.");
+        }
+
+        if (in < 0 || in > 11) {
+            return InputValidationResult.fail("Inches must be between 0 and 11");
+        }
+        //Calculate total inches
+        int totalInches = ft * 12 + in;
+
+        return InputValidationResult.ok(Integer.toString(totalInches));
+    }
+
+}
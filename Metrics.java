@@ -0,0 +1,253 @@
+/*
+ * Part of planned enhancement: Category 1 - Software Design
+ * Created: 10/17/26
+ */
+package com.CS360.weighttracker.util;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+//In-process metrics so a slow dashboard or login can be traced to the step that is slow: the Room
+//query, building the lookup series, building the chart, drawing it or hashing the password.
+
+//Metrics are looked up by name once (usually into a static final field) and recording is then a
+//few atomic operations with no allocation, so it is safe to leave on in hot paths.
+//dump() writes every metric as text for logs or a debug screen.
+
+//Usage:
+//  private static final Metrics.Histogram BUILD_TIME = Metrics.histogram("chart.build");
+//  long start = Metrics.now();
+//  ...
+//  BUILD_TIME.recordSince(start);
+public final class Metrics {
+    private static final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private static final Map<String, Gauge> gauges = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    //stop instantiation
+    private Metrics() {}
+
+    //Gets or creates the counter with this name
+    public static Counter counter(String name) {
+        Counter c = counters.get(name);
+        return c != null ? c : counters.computeIfAbsent(name, k -> new Counter());
+    }
+
+    //Gets or creates a gauge that is set by calling set()
+    public static Gauge gauge(String name) {
+        Gauge g = gauges.get(name);
+        return g != null ? g : gauges.computeIfAbsent(name, k -> new Gauge(null));
+    }
+
+    //Registers a gauge whose value is read from the supplier when metrics are dumped, such as a
+    //queue size. Replaces any gauge with the same name
+    public static void gauge(String name, LongSupplier supplier) {
+        gauges.put(name, new Gauge(supplier));
+    }
+
+    //Gets or creates the latency histogram with this name. Values are in nanoseconds
+    public static Histogram histogram(String name) {
+        Histogram h = histograms.get(name);
+        return h != null ? h : histograms.computeIfAbsent(name, k -> new Histogram());
+    }
+
+    //Monotonic clock for timings, in nanoseconds
+    public static long now() {
+        return System.nanoTime();
+    }
+
+    //Writes every metric sorted by name, one per line:
+    //  counter   auth.rejected 3
+    //  gauge     auth.queued 0
+    //  histogram chart.build count=12 mean=1.84ms p50=1.66ms p90=3.01ms p99=3.01ms max=3.11ms
+    public static void dump(Appendable out) throws IOException {
+        for (Map.Entry<String, Counter> e : new TreeMap<>(counters).entrySet()) {
+            out.append("counter   ").append(e.getKey()).append(' ')
+                    .append(Long.toString(e.getValue().get())).append('\n');
+        }
+        for (Map.Entry<String, Gauge> e : new TreeMap<>(gauges).entrySet()) {
+            out.append("gauge     ").append(e.getKey()).append(' ')
+                    .append(Long.toString(e.getValue().get())).append('\n');
+        }
+        for (Map.Entry<String, Histogram> e : new TreeMap<>(histograms).entrySet()) {
+            Histogram h = e.getValue();
+            out.append("histogram ").append(e.getKey())
+                    .append(" count=").append(Long.toString(h.count()))
+                    .append(" mean=").append(millis(h.mean()))
+                    .append(" p50=").append(millis(h.percentile(50)))
+                    .append(" p90=").append(millis(h.percentile(90)))
+                    .append(" p99=").append(millis(h.percentile(99)))
+                    .append(" max=").append(millis(h.max()))
+                    .append('\n');
+        }
+    }
+
+    //Same as above as a String
+    public static String dump() {
+        StringBuilder sb = new StringBuilder();
+        try {
+            dump(sb);
+        } catch (IOException e) {
+            //StringBuilder does not throw
+            throw new IllegalStateException(e);
+        }
+        return sb.toString();
+    }
+
+    //Clears every value but keeps the metrics registered, for example between test runs
+    public static void reset() {
+        for (Counter c : counters.values()) {
+            c.value.reset();
+        }
+        for (Gauge g : gauges.values()) {
+            g.value.set(0);
+        }
+        for (Histogram h : histograms.values()) {
+            h.reset();
+        }
+    }
+
+    private static String millis(double nanos) {
+        return String.format("%.2fms", nanos / 1_000_000.0);
+    }
+
+    //A count that only goes up, such as cache misses or rejected logins
+    public static final class Counter {
+        //LongAdder keeps threads from fighting over one memory location when many increment at once
+        private final LongAdder value = new LongAdder();
+
+        public void inc() {
+            value.increment();
+        }
+
+        public void add(long n) {
+            value.add(n);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+    }
+
+    //A value that goes up and down, such as a cache size
+    public static final class Gauge {
+        private final AtomicLong value = new AtomicLong();
+        private final LongSupplier supplier;
+
+        private Gauge(LongSupplier supplier) {
+            this.supplier = supplier;
+        }
+
+        public void set(long v) {
+            value.set(v);
+        }
+
+        public long get() {
+            return supplier != null ? supplier.getAsLong() : value.get();
+        }
+    }
+
+    //Latency histogram with log-linear buckets, the same idea as HdrHistogram: values below 8 get
+    //a bucket each, and every power of two above that is split into 8 buckets. Any value is
+    //reported to within 12.5% using 488 counters, from nanoseconds up to centuries
+    public static final class Histogram {
+        private static final int SUB_BITS = 3;
+        private static final int SUB_COUNT = 1 << SUB_BITS;
+        //Highest bucket is for the largest positive long (exponent 62)
+        private static final int BUCKETS = (62 - SUB_BITS + 2) * SUB_COUNT;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        //Records one value in nanoseconds. Negative values count as 0
+        public void record(long value) {
+            if (value < 0) {
+                value = 0;
+            }
+            buckets.incrementAndGet(bucketOf(value));
+            count.incrementAndGet();
+            sum.addAndGet(value);
+            long seen = max.get();
+            while (value > seen && !max.compareAndSet(seen, value)) {
+                seen = max.get();
+            }
+        }
+
+        //Records the time since start, where start came from Metrics.now()
+        public void recordSince(long start) {
+            record(now() - start);
+        }
+
+        public long count() {
+            return count.get();
+        }
+
+        public double mean() {
+            long n = count.get();
+            return n == 0 ? 0 : (double) sum.get() / n;
+        }
+
+        public long max() {
+            return max.get();
+        }
+
+        //Value that p percent of recordings were at or below, as the middle of its bucket. A bucket
+        //holds the whole numbers from its lower bound up to the next bucket's, so values below 16
+        //are reported exactly
+        public double percentile(double p) {
+            long n = count.get();
+            if (n == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(n * p / 100.0);
+            long seen = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                seen += buckets.get(b);
+                if (seen >= Math.max(1, rank)) {
+                    long low = lowerBound(b);
+                    long high = b + 1 < BUCKETS ? lowerBound(b + 1) : Long.MAX_VALUE;
+                    //Never reports more than the largest value actually seen
+                    return Math.min(low + (high - low - 1) / 2.0, max.get());
+                }
+            }
+            return max.get();
+        }
+
+        private void reset() {
+            for (int b = 0; b < BUCKETS; b++) {
+                buckets.set(b, 0);
+            }
+            count.set(0);
+            sum.set(0);
+            max.set(0);
+        }
+
+        //Bucket for a value: its power of two, then which eighth of that power it falls in
+        static int bucketOf(long value) {
+            if (value < SUB_COUNT) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+            return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+        }
+
+        //Smallest value that falls in a bucket
+        static long lowerBound(int bucket) {
+            if (bucket < SUB_COUNT) {
+                return bucket;
+            }
+            int exponent = bucket / SUB_COUNT + SUB_BITS - 1;
+            int sub = bucket % SUB_COUNT;
+            return (1L << exponent) | ((long) sub << (exponent - SUB_BITS));
+        }
+    }
+}
@@ -1,105 +1,196 @@
-/*
- * Christopher DeMello
- * Professor Conlan
- * CS499
- * Created: 1/20/25
- *
- * Part of Planned Enhancement - Category 1: Software Design
- * Enhance security by using password hashing
- *
- * Password hashing logic based on Java PBKDF2 implementations
- * described in the Baeldung tutorial “Hashing a Password in Java”.
- * See: https://www.baeldung.com/java-password-hashing
- * (last updated August 20, 2025)
- * This article explains PBKDF2, salting, key derivation, and Java security best
- * practices for password storage.
- */
-
-package com.CS360.weighttracker.util;
-
-import android.os.Build;
-
-import androidx.annotation.RequiresApi;
-
-import java.security.NoSuchAlgorithmException;
-import java.security.SecureRandom;
-import java.security.spec.InvalidKeySpecException;
-import java.util.Base64;
-
-import javax.crypto.SecretKeyFactory;
-import javax.crypto.spec.PBEKeySpec;
-
-/*
-* This is a helper class to bolster password security. It generates a random salt. Then hashes
-* a password using PBKDF2. It verifies a login password by hashing the input password the same way and
-* compares it to the stored hash.
-*/
-public class PasswordUtils {
-    //A random generator used for cryptography
-    private static final SecureRandom RNG = new SecureRandom();
-    private static final int SALT_BYTES = 16;
-    private static final int KEY_BITS = 256;
-    //How many iterations PBKDF2 will run
-    public static final int ITERS = 120_000;
-
-    //stop instantiation
-    private PasswordUtils() {}
-
-    //Create a salt and returns it as Base64 string so it can be stored in the database
-    @RequiresApi(api = Build.VERSION_CODES.O)
-    public static String generateSalt() {
-        byte[] salt = new byte[SALT_BYTES];
-        RNG.nextBytes(salt);
-        return Base64.getEncoder().encodeToString(salt);
-    }
-
-    //Takes input password, Base64 salt string, and iteration count and returns PBKDF2 hash string
-    //to store in database
-    @RequiresApi(api = Build.VERSION_CODES.O)
-    public static String hashPassword(
-            String password,
-            String saltBase64,
-            int iterations
-    ) {
-        PBEKeySpec spec = null;
-        try {
-            byte[] salt = Base64.getDecoder().decode(saltBase64);
-
-            spec = new PBEKeySpec(
-                    password.toCharArray(),
-                    salt,
-                    iterations,
-                    KEY_BITS
-            );
-            //Sets up hashing algorithm "PBKDF2 +HMAC-SHA256"
-            SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
-
-            byte[] hash = factory.generateSecret(spec).getEncoded();
-            return Base64.getEncoder().encodeToString(hash);
-
-        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
-            throw new IllegalStateException("Password Hashing failed", e);
-        } finally {
-            //clears password memory
-            if (spec != null) spec.clearPassword();
-        }
-    }
-    //Checks whether a login attempt is correct by re-hashing the input password using the stored
-    //salt and iterations. Then it compares the result to the stored hash
-    @RequiresApi(api = Build.VERSION_CODES.O)
-    public static boolean verifyPassword(
-            String inputPassword,
-            String storedHash,
-            String storedSalt,
-            int storedIterations
-    ) {
-        //Prevents null pointer exception
-        if (inputPassword == null || storedHash == null || storedSalt == null){
-            return false;
-        }
-        //Recreates hash from input password
-        String inputHash = hashPassword(inputPassword, storedSalt, storedIterations);
-        //Compares input and stored hash
-        return inputHash.equals(storedHash);
-    }
-}
+/*
+ * Christopher DeMello
+ * Professor Conlan
+ * CS499
+ * Created: 1/20/25
+ *
+ * Part of Planned Enhancement - Category 1: Software Design
+ * Enhance security by using password hashing
+ *
+ * Password hashing logic based on Java PBKDF2 implementations
+ * described in the Baeldung tutorial “Hashing a Password in Java”.
+ * See: https://www.baeldung.com/java-password-hashing
+ * (last updated August 20, 2025)
+ * This article explains PBKDF2, salting, key derivation, and Java security best
+ * practices for password storage.
+ */
+
+package com.CS360.weighttracker.util;
+
+import android.os.Build;
+
+import androidx.annotation.RequiresApi;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Base64;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/*
+* This is a helper class to bolster password security. It generates a random salt. Then hashes
+* a password using PBKDF2. It verifies a login password by hashing the input password the same way and
+* compares it to the stored hash.
+*/
+public class PasswordUtils {
+    //A random generator used for cryptography
+    private static final SecureRandom RNG = new SecureRandom();
+    private static final int SALT_BYTES = 16;
+    private static final int KEY_BITS = 256;
+    //How many iterations PBKDF2 will run. Used until calibrate() has measured this device
+    public static final int ITERS = 120_000;
+
+    //How long one password check should take on this device
+    public static final long TARGET_VERIFY_MILLIS = 250;
+    //Never goes below the old fixed count, even on a slow device or after a calibration slowed by
+    //a cold start, so calibrating can only make hashes stronger than before
+    public static final int MIN_ITERS = ITERS;
+    //Caps the cost so a mis-measured calibration cannot lock users out with multi-second logins
+    public static final int MAX_ITERS = 2_000_000;
+    //A stored count more than this factor below the device's count is rehashed on login
+    private static final double REHASH_FACTOR = 1.5;
+    //Iterations per timing probe. Enough to run for a few milliseconds even on a fast device
+    private static final int PROBE_ITERS = 10_000;
+    //Probes keep running for this long, and at least MIN_PROBE_RUNS times
+    private static final long PROBE_BUDGET_NANOS = 150_000_000L;
+    private static final int MIN_PROBE_RUNS = 3;
+
+    //Calibrated count, 0 until calibrate() has run in this process
+    private static volatile int calibratedIters;
+    //Set once warmUp has queued a calibration, so several services do not queue one each
+    private static final AtomicBoolean warming = new AtomicBoolean();
+
+    //stop instantiation
+    private PasswordUtils() {}
+
+    //Create a salt and returns it as Base64 string so it can be stored in the database
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    public static String generateSalt() {
+        byte[] salt = new byte[SALT_BYTES];
+        RNG.nextBytes(salt);
+        return Base64.getEncoder().encodeToString(salt);
+    }
+
+    //Takes input password, Base64 salt string, and iteration count and returns PBKDF2 hash string
+    //to store in database
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    public static String hashPassword(
+            String password,
+            String saltBase64,
+            int iterations
+    ) {
+        PBEKeySpec spec = null;
+        try {
+            byte[] salt = Base64.getDecoder().decode(saltBase64);
+
+            spec = new PBEKeySpec(
+                    password.toCharArray(),
+                    salt,
+                    iterations,
+                    KEY_BITS
+            );
+            //Sets up hashing algorithm "PBKDF2 +HMAC-SHA256"
+            SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
+
+            byte[] hash = factory.generateSecret(spec).getEncoded();
+            return Base64.getEncoder().encodeToString(hash);
+
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+            throw new IllegalStateException("Password Hashing failed", e);
+        } finally {
+            //clears password memory
+            if (spec != null) spec.clearPassword();
+        }
+    }
+    //Starts calibrating on the given executor (the hashing threads) if this process has not yet,
+    //so no login waits for it. Returns right away. Until it finishes, currentIterations returns ITERS
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    public static void warmUp(Executor executor) {
+        if (calibratedIters != 0 || !warming.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(PasswordUtils::recommendedIterations);
+        } catch (RejectedExecutionException busy) {
+            //Logins are queued; the next service made tries again
+            warming.set(false);
+        }
+    }
+
+    //The calibrated count if calibration has finished, otherwise ITERS. Never waits, so logins and
+    //registrations take the same time whether or not calibration is done
+    public static int currentIterations() {
+        int iters = calibratedIters;
+        return iters == 0 ? ITERS : iters;
+    }
+
+    //Iteration count new hashes should use on this device. Calibrates on the first call, which takes
+    //about 150ms, so it should not be called on the main thread or on a login's path; use warmUp
+    //and currentIterations there
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    public static int recommendedIterations() {
+        int iters = calibratedIters;
+        if (iters == 0) {
+            synchronized (PasswordUtils.class) {
+                iters = calibratedIters;
+                if (iters == 0) {
+                    iters = calibrate(TARGET_VERIFY_MILLIS);
+                    calibratedIters = iters;
+                }
+            }
+        }
+        return iters;
+    }
+
+    //Measures how fast this device runs PBKDF2 and returns the iteration count that takes about
+    //targetMillis to verify, rounded to a thousand and kept between MIN_ITERS and MAX_ITERS.
+    //The fastest run is used, since early runs include class loading and JIT warm-up and any run
+    //can be slowed by another thread
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    public static int calibrate(long targetMillis) {
+        String salt = generateSalt();
+        long best = Long.MAX_VALUE;
+        long began = System.nanoTime();
+        for (int runs = 0; runs < MIN_PROBE_RUNS || System.nanoTime() - began < PROBE_BUDGET_NANOS; runs++) {
+            long start = System.nanoTime();
+            hashPassword("calibration", salt, PROBE_ITERS);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        //PBKDF2 time grows linearly with the iteration count
+        double iters = PROBE_ITERS * (targetMillis * 1_000_000.0 / Math.max(1, best));
+        long rounded = Math.round(iters / 1000) * 1000;
+        return (int) Math.max(MIN_ITERS, Math.min(MAX_ITERS, rounded));
+    }
+
+    //True if a hash stored with this many iterations is too cheap for this device and should be
+    //redone with currentIterations() the next time the password is known. Only ever raises
+    //the count: one calibration run can be slowed by anything else on the device, and lowering a
+    //stored count because of it would weaken the hash for good. Never waits for calibration
+    public static boolean needsRehash(int storedIterations) {
+        return storedIterations * REHASH_FACTOR < currentIterations();
+    }
+
+    //Checks whether a login attempt is correct by re-hashing the input password using the stored
+    //salt and iterations. Then it compares the result to the stored hash
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    public static boolean verifyPassword(
+            String inputPassword,
+            String storedHash,
+            String storedSalt,
+            int storedIterations
+    ) {
+        //Prevents null pointer exception
+        if (inputPassword == null || storedHash == null || storedSalt == null){
+            return false;
+        }
+        //Recreates hash from input password
+        String inputHash = hashPassword(inputPassword, storedSalt, storedIterations);
+        //Compares input and stored hash
+        return inputHash.equals(storedHash);
+    }
+}
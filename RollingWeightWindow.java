@@ -0,0 +1,81 @@
+/*
+ * Part of planned enhancement: Category 2 - Algorithms and Data Structures
+ * Created: 10/17/26
+ */
+package com.CS360.weighttracker.util;
+
+//The entries from the last spanDays days, counted back from the newest entry, with a running
+//least-squares fit so the average and slope are O(1) to read. Entries must be added in date
+//order; older ones fall out as newer ones arrive. Stored in a growable ring buffer of primitives.
+
+//Not thread-safe. Callers keep each window on one thread or lock around it.
+public final class RollingWeightWindow {
+    private final int spanDays;
+    private final RunningRegression fit = new RunningRegression();
+    private int[] days = new int[16];
+    private double[] weights = new double[16];
+    private int head = 0;
+    private int size = 0;
+
+    public RollingWeightWindow(int spanDays) {
+        this.spanDays = spanDays;
+    }
+
+    //Adds the newest entry and drops entries that are now older than the window
+    public void add(int day, double weight) {
+        if (size == days.length) {
+            grow();
+        }
+        int tail = (head + size) % days.length;
+        days[tail] = day;
+        weights[tail] = weight;
+        size++;
+        fit.add(day, weight);
+        while (days[head] <= day - spanDays) {
+            fit.remove(days[head], weights[head]);
+            head = (head + 1) % days.length;
+            size--;
+        }
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+        fit.clear();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    //Day and weight of the i-th entry in the window, oldest first
+    public int dayAt(int i) {
+        return days[(head + i) % days.length];
+    }
+
+    public double weightAt(int i) {
+        return weights[(head + i) % days.length];
+    }
+
+    //Average weight in the window, or null if it is empty
+    public Double average() {
+        return size == 0 ? null : fit.meanY();
+    }
+
+    //The line fitted through the window, for slopes and projections. Read only
+    public RunningRegression fit() {
+        return fit;
+    }
+
+    private void grow() {
+        int[] newDays = new int[days.length * 2];
+        double[] newWeights = new double[days.length * 2];
+        for (int i = 0; i < size; i++) {
+            newDays[i] = dayAt(i);
+            newWeights[i] = weightAt(i);
+        }
+        days = newDays;
+        weights = newWeights;
+        head = 0;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Part of planned enhancement: Category 3 - Databases
+ * Created: 10/17/26
+ */
+package com.CS360.weighttracker.Dao;
+
+import com.CS360.weighttracker.model.WeightRollup;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+//Collects the rollup changes of one write transaction so each touched day, week and month row is
+//written once, however many of the transaction's entries fall in it.
+
+//A new entry is folded into its rows with one UPDATE per row, like the stats row. A delete can
+//remove a row's min, max or latest weight, so its rows are recomputed from the entries of that
+//period instead, which is at most a month of rows read through the (userId, date) index. New
+//entries in a recomputed row are already counted by the recompute and are not folded in again.
+final class RollupBatch {
+    private static final int[] PERIODS = {WeightRollup.DAY, WeightRollup.WEEK, WeightRollup.MONTH};
+
+    //Sum of the new entries that fall in one rollup row
+    private static final class Fold {
+        final int userId;
+        final int period;
+        final int bucket;
+        int count;
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        double sum;
+        double lastWeight;
+        int lastDate = Integer.MIN_VALUE;
+        int lastId = Integer.MIN_VALUE;
+
+        Fold(int userId, int period, int bucket) {
+            this.userId = userId;
+            this.period = period;
+            this.bucket = bucket;
+        }
+    }
+
+    //Identifies one rollup row
+    private static final class Key {
+        final int userId;
+        final int period;
+        final int bucket;
+
+        Key(int userId, int period, int bucket) {
+            this.userId = userId;
+            this.period = period;
+            this.bucket = bucket;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return userId == other.userId && period == other.period && bucket == other.bucket;
+        }
+
+        @Override
+        public int hashCode() {
+            return (userId * 31 + period) * 31 + bucket;
+        }
+    }
+
+    private final Map<Key, Fold> inserted = new LinkedHashMap<>();
+    private final Set<Key> recomputed = new LinkedHashSet<>();
+
+    //Adds a new entry, with the row id it was given, to its day, week and month
+    void insert(int userId, int epochDay, double weight, int id) {
+        for (int period : PERIODS) {
+            Key key = new Key(userId, period, WeightRollup.bucketOf(period, epochDay));
+            Fold fold = inserted.get(key);
+            if (fold == null) {
+                fold = new Fold(userId, period, key.bucket);
+                inserted.put(key, fold);
+            }
+            fold.count++;
+            fold.min = Math.min(fold.min, weight);
+            fold.max = Math.max(fold.max, weight);
+            fold.sum += weight;
+            if (epochDay > fold.lastDate || (epochDay == fold.lastDate && id > fold.lastId)) {
+                fold.lastDate = epochDay;
+                fold.lastId = id;
+                fold.lastWeight = weight;
+            }
+        }
+    }
+
+    //Marks the day, week and month of a deleted or replaced entry to be recomputed
+    void recompute(int userId, int epochDay) {
+        for (int period : PERIODS) {
+            recomputed.add(new Key(userId, period, WeightRollup.bucketOf(period, epochDay)));
+        }
+    }
+
+    //Writes every collected change. Must run in the same transaction as the entry writes, after them
+    void apply(WeightEntryDAO dao) {
+        for (Key key : recomputed) {
+            dao.deleteRollup(key.userId, key.period, key.bucket);
+            dao.insertRollupFromEntries(key.userId, key.period, key.bucket,
+                    WeightRollup.bucketEnd(key.period, key.bucket));
+        }
+        for (Map.Entry<Key, Fold> e : inserted.entrySet()) {
+            if (recomputed.contains(e.getKey())) {
+                continue;
+            }
+            Fold f = e.getValue();
+            dao.ensureRollupRow(f.userId, f.period, f.bucket);
+            dao.applyInsertsToRollup(f.userId, f.period, f.bucket, f.count, f.min, f.max, f.sum,
+                    f.lastWeight, f.lastDate, f.lastId);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Part of planned enhancement: Category 2 - Algorithms and Data Structures
+ * Created: 10/17/26
+ */
+package com.CS360.weighttracker.util;
+
+//Least-squares line fit (weight = intercept + slope * day) that is kept up to date with running
+//sums. Adding or removing one point is O(1), so a sliding window of recent entries can be fitted
+//without going over the window again each time it moves.
+
+//x values are stored relative to the first x added, so the sums stay small and subtracting them
+//does not lose precision when x is an epoch day in the tens of thousands.
+public final class RunningRegression {
+    private double origin;
+    private int n;
+    private double sumX;
+    private double sumY;
+    private double sumXX;
+    private double sumXY;
+    private double sumYY;
+
+    //Adds one point
+    public void add(double x, double y) {
+        if (n == 0) {
+            origin = x;
+        }
+        double dx = x - origin;
+        n++;
+        sumX += dx;
+        sumY += y;
+        sumXX += dx * dx;
+        sumXY += dx * y;
+        sumYY += y * y;
+    }
+
+    //Removes a point that was added before
+    public void remove(double x, double y) {
+        if (n <= 1) {
+            clear();
+            return;
+        }
+        double dx = x - origin;
+        n--;
+        sumX -= dx;
+        sumY -= y;
+        sumXX -= dx * dx;
+        sumXY -= dx * y;
+        sumYY -= y * y;
+    }
+
+    public void clear() {
+        n = 0;
+        sumX = sumY = sumXX = sumXY = sumYY = 0;
+    }
+
+    public int count() {
+        return n;
+    }
+
+    //Average y of the points, NaN if there are none
+    public double meanY() {
+        return n == 0 ? Double.NaN : sumY / n;
+    }
+
+    //Average x of the points, NaN if there are none
+    public double meanX() {
+        return n == 0 ? Double.NaN : origin + sumX / n;
+    }
+
+    //Change in y per unit of x. NaN if there are fewer than two distinct x values
+    public double slope() {
+        double sxx = sxx();
+        if (n < 2 || sxx <= 0) {
+            return Double.NaN;
+        }
+        return (sumXY - sumX * sumY / n) / sxx;
+    }
+
+    //The fitted y at a given x
+    public double predict(double x) {
+        double slope = slope();
+        if (Double.isNaN(slope)) {
+            return Double.NaN;
+        }
+        double meanX = sumX / n;
+        return sumY / n + slope * ((x - origin) - meanX);
+    }
+
+    //Inverse of predict: the x where the fitted line reaches y. NaN if the line is flat
+    public double solveX(double y) {
+        double slope = slope();
+        if (Double.isNaN(slope) || slope == 0) {
+            return Double.NaN;
+        }
+        return origin + sumX / n + (y - sumY / n) / slope;
+    }
+
+    //Standard error of the slope, used to put a confidence band on a projection. NaN if there
+    //are fewer than three points, since two points always fit the line exactly
+    public double slopeStdError() {
+        double sxx = sxx();
+        if (n < 3 || sxx <= 0) {
+            return Double.NaN;
+        }
+        double syy = sumYY - sumY * sumY / n;
+        double sxy = sumXY - sumX * sumY / n;
+        //Sum of squared residuals. Clamped since rounding can make a perfect fit slightly negative
+        double sse = Math.max(0, syy - sxy * sxy / sxx);
+        return Math.sqrt(sse / (n - 2) / sxx);
+    }
+
+    private double sxx() {
+        return n == 0 ? 0 : sumXX - sumX * sumX / n;
+    }
+}
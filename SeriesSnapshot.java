@@ -0,0 +1,206 @@
+/*
+ * Part of planned enhancement: Category 3 - Databases
+ * Created: 10/17/26
+ */
+package com.CS360.weighttracker.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+//On-disk copy of the rows a user's dashboard last showed, plus their total weight lost and BMI, so
+//the next cold start can draw the chart and stats before Room has opened the database.
+
+//The file is memory-mapped and decoded straight from the mapping, so reading it costs a page fault
+//per 4 KB and no copy into a byte array. Rows are stored as differences from the previous row in
+//variable-length integers, like SyncCodec batches: a daily entry takes about 3 bytes instead of
+//16 in a WeightSeries.
+
+//Layout:
+//  int     MAGIC
+//  int     userId
+//  long    version             user_stats.version the rows were read at
+//  double  totalWeightLost     NaN when null
+//  double  bmi                 NaN when null
+//  int     count
+//  then for each row, as varints:
+//  day - previous day          rows are in date order, so never negative
+//  zigzag(id - previous id)
+//  zigzag(weight - previous weight)   in hundredths of a pound
+//Weights are rounded to 0.01 lb. The snapshot is only shown until Room's rows replace it, so a
+//weight imported with more decimals is off by less than it is displayed with.
+public final class SeriesSnapshot {
+    //"WTS1". Raise the digit if the layout changes, so old files are ignored instead of misread
+    private static final int MAGIC = 0x57545331;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 8 + 4;
+    //Longest possible row: two 5-byte varints and one 10-byte varint
+    private static final int MAX_ROW_BYTES = 20;
+
+    private static final Metrics.Histogram READ_TIME = Metrics.histogram("snapshot.read");
+    private static final Metrics.Histogram WRITE_TIME = Metrics.histogram("snapshot.write");
+
+    public final int userId;
+    public final long version;
+    public final WeightSeries series;
+    public final Double totalWeightLost;
+    public final Double bmi;
+
+    private SeriesSnapshot(int userId, long version, WeightSeries series, Double totalWeightLost, Double bmi) {
+        this.userId = userId;
+        this.version = version;
+        this.series = series;
+        this.totalWeightLost = totalWeightLost;
+        this.bmi = bmi;
+    }
+
+    //Where a user's snapshot is kept inside dir
+    public static File fileFor(File dir, int userId) {
+        return new File(dir, "series-" + userId + ".snap");
+    }
+
+    //Reads a snapshot, keeping only rows on or after fromDay. Returns null if there is no snapshot,
+    //it belongs to another user, or it is cut short or damaged
+    public static SeriesSnapshot read(File file, int userId, int fromDay) {
+        long start = Metrics.now();
+        ByteBuffer in = map(file);
+        if (in == null) {
+            return null;
+        }
+        try {
+            if (in.getInt() != MAGIC || in.getInt() != userId) {
+                return null;
+            }
+            long version = in.getLong();
+            Double totalWeightLost = unboxNaN(in.getDouble());
+            Double bmi = unboxNaN(in.getDouble());
+            int count = in.getInt();
+            //Every row takes at least three bytes, so a larger count cannot be real
+            if (count < 0 || count > in.remaining() / 3) {
+                return null;
+            }
+            WeightSeries series = WeightSeries.withCapacity(count);
+            int day = 0;
+            int id = 0;
+            long hundredths = 0;
+            for (int i = 0; i < count; i++) {
+                day += (int) readVarLong(in);
+                id += (int) unzigzag(readVarLong(in));
+                hundredths += unzigzag(readVarLong(in));
+                if (day >= fromDay) {
+                    //Rows are in date order, so each insert is an append
+                    series.insert(day, hundredths / 100.0, id);
+                }
+            }
+            READ_TIME.recordSince(start);
+            return new SeriesSnapshot(userId, version, series, totalWeightLost, bmi);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    //Reads only the version of a saved snapshot. Returns -1 if there is none for this user
+    public static long readVersion(File file, int userId) {
+        ByteBuffer in = map(file);
+        if (in == null || in.remaining() < HEADER_BYTES || in.getInt() != MAGIC || in.getInt() != userId) {
+            return -1;
+        }
+        return in.getLong();
+    }
+
+    //Saves the rows of series on or after fromDay. The file is written next to the old one and
+    //renamed over it, so a reader sees the old snapshot or the new one, never half of one
+    public static void write(File file, int userId, long version, WeightSeries series, int fromDay,
+                             Double totalWeightLost, Double bmi) throws IOException {
+        long start = Metrics.now();
+        int first = series.ceilingIndex(fromDay);
+        int count = first < 0 ? 0 : series.size() - first;
+        ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + count * MAX_ROW_BYTES);
+        out.putInt(MAGIC);
+        out.putInt(userId);
+        out.putLong(version);
+        out.putDouble(totalWeightLost == null ? Double.NaN : totalWeightLost);
+        out.putDouble(bmi == null ? Double.NaN : bmi);
+        out.putInt(count);
+        int prevDay = 0;
+        int prevId = 0;
+        long prevHundredths = 0;
+        for (int i = 0; i < count; i++) {
+            int day = series.dayAt(first + i);
+            int id = series.idAt(first + i);
+            long hundredths = Math.round(series.weightAt(first + i) * 100);
+            writeVarLong(out, (long) day - prevDay);
+            writeVarLong(out, zigzag((long) id - prevId));
+            writeVarLong(out, zigzag(hundredths - prevHundredths));
+            prevDay = day;
+            prevId = id;
+            prevHundredths = hundredths;
+        }
+
+        File parent = file.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        //Not synced to disk: if the device loses power the snapshot may be lost or fail its checks,
+        //and the dashboard then waits for Room like it did before snapshots
+        try (FileOutputStream stream = new FileOutputStream(tmp)) {
+            stream.write(out.array(), 0, out.position());
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Cannot replace " + file);
+        }
+        WRITE_TIME.recordSince(start);
+    }
+
+    //Maps the whole file read-only. The mapping stays valid after the channel is closed.
+    //Returns null if the file is missing or cannot be read
+    private static ByteBuffer map(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static Double unboxNaN(double d) {
+        return Double.isNaN(d) ? null : d;
+    }
+
+    private static void writeVarLong(ByteBuffer out, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.put((byte) v);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            v |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return v;
+            }
+        }
+        throw new IllegalArgumentException("Varint too long at " + in.position());
+    }
+
+    //Same zigzag mapping as SyncCodec: 0, -1, 1, -2 -> 0, 1, 2, 3
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Part of planned enhancement: Category 1 - Software Design
+ * Created: 10/17/26
+ */
+package com.CS360.weighttracker.service;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Base64;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+//This is a service class for login sessions. After the password has been checked once with PBKDF2,
+//issue() hands out a signed session token. Later checks (app relaunch, switching activities) call
+//validate() instead of hashing the password again, which takes microseconds instead of the few
+//hundred milliseconds that 120,000 PBKDF2 iterations take.
+
+//A token is Base64 of: userId (4 bytes) | expiry time in ms (8 bytes) | random nonce (16 bytes),
+//followed by an HMAC-SHA256 of those 28 bytes. The HMAC stops anyone from changing the user id or
+//expiry, and each issued session is also saved in SharedPreferences so logging out can revoke it.
+public class SessionManager {
+    //How long a session lasts before the user has to log in again
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.DAYS.toMillis(30);
+
+    //Returned by validate when the token is missing, forged, expired or revoked
+    public static final int NO_USER = -1;
+
+    private static final String PREFS_NAME = "sessions";
+    private static final String KEY_SECRET = "hmac_key";
+    private static final String KEY_CURRENT = "current_token";
+    //Each live session is saved as "session.<nonce>" -> expiry time
+    private static final String SESSION_PREFIX = "session.";
+
+    private static final int NONCE_BYTES = 16;
+    private static final int PAYLOAD_BYTES = 4 + 8 + NONCE_BYTES;
+    private static final int MAC_BYTES = 32;
+    private static final int KEY_BYTES = 32;
+    //Recently checked tokens kept in memory. A device only has a handful of sessions
+    private static final int MAX_CACHED = 32;
+    //Tokens go into Intents and prefs, so no padding, line breaks, '+' or '/'
+    private static final int BASE64_FLAGS = Base64.URL_SAFE | Base64.NO_WRAP | Base64.NO_PADDING;
+
+    private static final SecureRandom RNG = new SecureRandom();
+
+    //The key and the token cache are shared by every SessionManager in the process. Activities make
+    //a new SessionManager whenever they need one, so a per-instance cache would never hit, and a
+    //token revoked through one instance would still validate from another one's cache.
+    //Guards key creation and the cache
+    private static final Object LOCK = new Object();
+    //Loaded once, by the first SessionManager made
+    private static volatile SecretKeySpec key;
+
+    //Mac objects are not thread-safe and slow to look up, so each thread keeps its own
+    private static final ThreadLocal<Mac> MAC = new ThreadLocal<Mac>() {
+        @Override
+        protected Mac initialValue() {
+            try {
+                Mac m = Mac.getInstance("HmacSHA256");
+                m.init(key);
+                return m;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HMAC setup failed", e);
+            }
+        }
+    };
+
+    //token -> session, least recently used first. A hit skips both the HMAC and the prefs read.
+    //revoke() removes the token here before it removes it from prefs
+    private static final LinkedHashMap<String, Session> CACHE =
+            new LinkedHashMap<String, Session>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Session> eldest) {
+                    return size() > MAX_CACHED;
+                }
+            };
+
+    private final SharedPreferences prefs;
+    private final long ttlMillis;
+
+    //One issued session
+    private static final class Session {
+        final int userId;
+        final long expiresAt;
+        //Base64 nonce, used as the prefs key
+        final String id;
+
+        Session(int userId, long expiresAt, String id) {
+            this.userId = userId;
+            this.expiresAt = expiresAt;
+            this.id = id;
+        }
+    }
+
+    public SessionManager(Context context) {
+        this(context, DEFAULT_TTL_MILLIS);
+    }
+
+    public SessionManager(Context context, long ttlMillis) {
+        this.prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.ttlMillis = ttlMillis;
+        //Under the lock so two instances made at once cannot each create and save a different key
+        synchronized (LOCK) {
+            if (key == null) {
+                key = new SecretKeySpec(loadOrCreateSecret(), "HmacSHA256");
+            }
+        }
+    }
+
+    //Starts a session for a user whose password was just verified and remembers it as the
+    //current session. Returns the token
+    public String issue(int userId) {
+        long now = System.currentTimeMillis();
+        long expiresAt = now + ttlMillis;
+        byte[] nonce = new byte[NONCE_BYTES];
+        RNG.nextBytes(nonce);
+
+        byte[] raw = new byte[PAYLOAD_BYTES + MAC_BYTES];
+        ByteBuffer.wrap(raw).putInt(userId).putLong(expiresAt).put(nonce);
+        System.arraycopy(sign(raw), 0, raw, PAYLOAD_BYTES, MAC_BYTES);
+
+        String token = Base64.encodeToString(raw, BASE64_FLAGS);
+        String id = Base64.encodeToString(nonce, BASE64_FLAGS);
+        synchronized (LOCK) {
+            CACHE.put(token, new Session(userId, expiresAt, id));
+        }
+        SharedPreferences.Editor editor = prefs.edit()
+                .putLong(SESSION_PREFIX + id, expiresAt)
+                .putString(KEY_CURRENT, token);
+        removeExpired(editor, now);
+        editor.apply();
+        return token;
+    }
+
+    //Returns the user id the token was issued to, or NO_USER if the token is not valid
+    public int validate(String token) {
+        if (token == null) {
+            return NO_USER;
+        }
+        synchronized (LOCK) {
+            Session session = CACHE.get(token);
+            if (session == null) {
+                session = verify(token);
+                //Forged tokens fail the HMAC, revoked ones are no longer in prefs
+                if (session == null || !prefs.contains(SESSION_PREFIX + session.id)) {
+                    return NO_USER;
+                }
+                CACHE.put(token, session);
+            }
+            if (session.expiresAt <= System.currentTimeMillis()) {
+                revoke(token);
+                return NO_USER;
+            }
+            return session.userId;
+        }
+    }
+
+    //The token saved by the last issue(), or null if the user logged out
+    public String getCurrentToken() {
+        return prefs.getString(KEY_CURRENT, null);
+    }
+
+    //Shortcut for validate(getCurrentToken()), used when the app is reopened
+    public int getCurrentUserId() {
+        return validate(getCurrentToken());
+    }
+
+    //Ends a session so its token no longer validates, even though its HMAC is still correct
+    public void revoke(String token) {
+        if (token == null) {
+            return;
+        }
+        synchronized (LOCK) {
+            Session session = CACHE.remove(token);
+            if (session == null) {
+                session = verify(token);
+            }
+            SharedPreferences.Editor editor = prefs.edit();
+            if (session != null) {
+                editor.remove(SESSION_PREFIX + session.id);
+            }
+            if (token.equals(prefs.getString(KEY_CURRENT, null))) {
+                editor.remove(KEY_CURRENT);
+            }
+            editor.apply();
+        }
+    }
+
+    //Ends the current session. Called when the user logs out
+    public void revokeCurrent() {
+        revoke(getCurrentToken());
+    }
+
+    //Checks the token's HMAC and reads its fields. Returns null if the token was not made by us
+    private Session verify(String token) {
+        byte[] raw;
+        try {
+            raw = Base64.decode(token, BASE64_FLAGS);
+        } catch (IllegalArgumentException badBase64) {
+            return null;
+        }
+        if (raw == null || raw.length != PAYLOAD_BYTES + MAC_BYTES) {
+            return null;
+        }
+        byte[] expected = sign(raw);
+        byte[] actual = new byte[MAC_BYTES];
+        System.arraycopy(raw, PAYLOAD_BYTES, actual, 0, MAC_BYTES);
+        //Constant-time compare so the check does not leak how many bytes matched
+        if (!MessageDigest.isEqual(expected, actual)) {
+            return null;
+        }
+        ByteBuffer buf = ByteBuffer.wrap(raw);
+        int userId = buf.getInt();
+        long expiresAt = buf.getLong();
+        byte[] nonce = new byte[NONCE_BYTES];
+        buf.get(nonce);
+        return new Session(userId, expiresAt, Base64.encodeToString(nonce, BASE64_FLAGS));
+    }
+
+    //HMAC-SHA256 of the first PAYLOAD_BYTES of raw
+    private static byte[] sign(byte[] raw) {
+        Mac m = MAC.get();
+        m.update(raw, 0, PAYLOAD_BYTES);
+        return m.doFinal();
+    }
+
+    //Drops saved sessions that have already expired so prefs do not grow forever
+    private void removeExpired(SharedPreferences.Editor editor, long now) {
+        for (Map.Entry<String, ?> e : prefs.getAll().entrySet()) {
+            if (e.getKey().startsWith(SESSION_PREFIX) && e.getValue() instanceof Long
+                    && (Long) e.getValue() <= now) {
+                editor.remove(e.getKey());
+            }
+        }
+    }
+
+    //Loads the signing key, creating and saving a random one the first time the app runs.
+    //Stored in the app's private prefs, so only this app can read it. Called under LOCK
+    private byte[] loadOrCreateSecret() {
+        String saved = prefs.getString(KEY_SECRET, null);
+        if (saved != null) {
+            byte[] secret = Base64.decode(saved, BASE64_FLAGS);
+            if (secret != null && secret.length == KEY_BYTES) {
+                return secret;
+            }
+        }
+        byte[] secret = new byte[KEY_BYTES];
+        RNG.nextBytes(secret);
+        //commit() instead of apply() so the key is on disk before any token signed with it is handed out
+        prefs.edit().putString(KEY_SECRET, Base64.encodeToString(secret, BASE64_FLAGS)).commit();
+        return secret;
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Part of planned enhancement: Category 3 - Databases
+ * Created: 10/17/26
+ */
+package com.CS360.weighttracker.util;
+
+import com.CS360.weighttracker.model.ChangeLogEntry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//Binary format for sync batches. Changes are mostly consecutive days with weights a few tenths
+//apart, so each of those fields is stored as the difference from the previous change in a
+//variable-length integer. The entry's random syncId cannot be shortened that way and takes 8 bytes,
+//so a daily entry takes about 14.4 bytes instead of the 60 or so it would take as JSON.
+
+//Batch layout, every number a varint unless noted:
+//  version, hasMore (0/1), count, then for each change:
+//  (zigzag(day - previous day) << 2) | flags   flags: 1 = deleted, 2 = weight is a raw double
+//  syncId                                      8 raw bytes
+//  weight                                      hundredths of a pound as zigzag(difference from the
+//                                              previous weight), or 8 raw bytes when flag 2 is set.
+//                                              Not written for deletes
+//  zigzag(updatedAt - previous updatedAt)
+//version is the sender's position in its own log: the next pull starts after it.
+
+/*
+ * Variable-length integers and zigzag encoding follow the Protocol Buffers wire format:
+ *   Google. "Encoding." Protocol Buffers Documentation.
+ *   https://protobuf.dev/programming-guides/encoding/
+ */
+public final class SyncCodec {
+    private static final int FLAG_DELETED = 1;
+    private static final int FLAG_RAW_WEIGHT = 2;
+
+    //stop instantiation
+    private SyncCodec() {}
+
+    //A decoded batch
+    public static final class Batch {
+        public final long version;
+        public final boolean hasMore;
+        public final List<ChangeLogEntry> changes;
+
+        public Batch(long version, boolean hasMore, List<ChangeLogEntry> changes) {
+            this.version = version;
+            this.hasMore = hasMore;
+            this.changes = changes;
+        }
+    }
+
+    //Encodes one user's changes. The user id is not written; it is part of the request
+    public static byte[] encode(long version, boolean hasMore, List<ChangeLogEntry> changes) {
+        Output out = new Output(16 + changes.size() * 16);
+        out.writeVarLong(version);
+        out.writeVarLong(hasMore ? 1 : 0);
+        out.writeVarLong(changes.size());
+        int prevDay = 0;
+        long prevHundredths = 0;
+        long prevTime = 0;
+        for (ChangeLogEntry c : changes) {
+            int flags = 0;
+            long hundredths = Math.round(c.getWeight() * 100);
+            //Weights with more than two decimals (from an import) are sent exactly
+            boolean raw = !c.isDeleted() && hundredths / 100.0 != c.getWeight();
+            if (c.isDeleted()) {
+                flags |= FLAG_DELETED;
+            }
+            if (raw) {
+                flags |= FLAG_RAW_WEIGHT;
+            }
+            out.writeVarLong(zigzag((long) c.getEpochDay() - prevDay) << 2 | flags);
+            out.writeLong(c.getSyncId());
+            if (raw) {
+                out.writeDouble(c.getWeight());
+            } else if (!c.isDeleted()) {
+                out.writeVarLong(zigzag(hundredths - prevHundredths));
+                prevHundredths = hundredths;
+            }
+            out.writeVarLong(zigzag(c.getUpdatedAt() - prevTime));
+            prevDay = c.getEpochDay();
+            prevTime = c.getUpdatedAt();
+        }
+        return out.toByteArray();
+    }
+
+    //Decodes a batch made by encode for the given user. Throws IllegalArgumentException if the
+    //data is cut short or malformed
+    public static Batch decode(byte[] data, int userId) {
+        Input in = new Input(data);
+        long version = in.readVarLong();
+        boolean hasMore = in.readVarLong() != 0;
+        long count = in.readVarLong();
+        //Every change takes at least ten bytes, so a larger count cannot be real
+        if (count < 0 || count > data.length) {
+            throw new IllegalArgumentException("Bad change count " + count);
+        }
+        List<ChangeLogEntry> changes = new ArrayList<>((int) count);
+        int day = 0;
+        long hundredths = 0;
+        long time = 0;
+        for (int i = 0; i < count; i++) {
+            long head = in.readVarLong();
+            int flags = (int) (head & 3);
+            day += (int) unzigzag(head >>> 2);
+            boolean deleted = (flags & FLAG_DELETED) != 0;
+            long syncId = in.readLong();
+            double weight = 0;
+            if ((flags & FLAG_RAW_WEIGHT) != 0) {
+                weight = in.readDouble();
+            } else if (!deleted) {
+                hundredths += unzigzag(in.readVarLong());
+                weight = hundredths / 100.0;
+            }
+            time += unzigzag(in.readVarLong());
+            changes.add(new ChangeLogEntry(userId, syncId, day, weight, deleted, time));
+        }
+        return new Batch(version, hasMore, changes);
+    }
+
+    //Maps small negative and positive numbers to small unsigned ones: 0, -1, 1, -2 -> 0, 1, 2, 3
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    //Growable byte buffer. ByteArrayOutputStream would work too but synchronizes every write
+    private static final class Output {
+        private byte[] buf;
+        private int size;
+
+        Output(int capacity) {
+            buf = new byte[Math.max(16, capacity)];
+        }
+
+        void writeVarLong(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buf[size++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[size++] = (byte) v;
+        }
+
+        void writeDouble(double d) {
+            writeLong(Double.doubleToLongBits(d));
+        }
+
+        void writeLong(long bits) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buf[size++] = (byte) (bits >>> shift);
+            }
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + extra));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, size);
+        }
+    }
+
+    private static final class Input {
+        private final byte[] buf;
+        private int pos;
+
+        Input(byte[] buf) {
+            this.buf = buf;
+        }
+
+        long readVarLong() {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = next();
+                v |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return v;
+                }
+            }
+            throw new IllegalArgumentException("Varint too long at " + pos);
+        }
+
+        double readDouble() {
+            return Double.longBitsToDouble(readLong());
+        }
+
+        long readLong() {
+            long bits = 0;
+            for (int i = 0; i < 8; i++) {
+                bits = (bits << 8) | (next() & 0xFF);
+            }
+            return bits;
+        }
+
+        private byte next() {
+            if (pos >= buf.length) {
+                throw new IllegalArgumentException("Batch ends early");
+            }
+            return buf[pos++];
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Part of planned enhancement: Category 3 - Databases
+ * Created: 10/17/26
+ */
+package com.CS360.weighttracker.service;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.CS360.weighttracker.model.ChangeLogEntry;
+import com.CS360.weighttracker.repository.WeightRepository;
+import com.CS360.weighttracker.util.Metrics;
+import com.CS360.weighttracker.util.SyncCodec;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
+//This is a service class that keeps a user's weight history in sync with a SyncServer, so a new
+//device can download it and edits made on one device reach the others.
+
+//Every entry change is recorded in change_log in the same transaction as the change. A sync first
+//uploads the changes after the last version the server acknowledged, in batches, and removes them
+//from the log once each batch is stored. It then downloads what other devices changed since the
+//last download. Only changed entries cross the network, never the whole history.
+
+//Conflicts are settled per entry, by (userId, syncId), on the server: the latest updatedAt wins.
+//Downloads add, replace or remove the local copy of each entry they carry, unless the entry was
+//changed locally after the upload with a later time; that change goes up on the next sync instead.
+public class SyncEngine {
+    //Changes per upload or download. About 7KB per batch in the SyncCodec format
+    private static final int BATCH_SIZE = 500;
+    private static final String PREFS_NAME = "sync";
+    private static final String KEY_DEVICE_ID = "device_id";
+
+    private static final Metrics.Histogram SYNC_TIME = Metrics.histogram("sync.duration");
+    private static final Metrics.Counter BYTES_SENT = Metrics.counter("sync.bytesSent");
+    private static final Metrics.Counter BYTES_RECEIVED = Metrics.counter("sync.bytesReceived");
+
+    private final WeightRepository repository;
+    private final SyncServer server;
+    private final SharedPreferences prefs;
+    private final String deviceId;
+
+    //What one sync did, for logging or a "last synced" line in the UI
+    public static final class SyncResult {
+        public final int uploaded;
+        public final int downloaded;
+        public final long bytesSent;
+        public final long bytesReceived;
+        public final long elapsedMillis;
+
+        SyncResult(int uploaded, int downloaded, long bytesSent, long bytesReceived, long elapsedMillis) {
+            this.uploaded = uploaded;
+            this.downloaded = downloaded;
+            this.bytesSent = bytesSent;
+            this.bytesReceived = bytesReceived;
+            this.elapsedMillis = elapsedMillis;
+        }
+    }
+
+    public SyncEngine(Context context, WeightRepository repository, SyncServer server) {
+        this.repository = repository;
+        this.server = server;
+        this.prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.deviceId = loadDeviceId(prefs);
+    }
+
+    //Uploads local changes, then downloads other devices' changes. Must not be called on the main
+    //thread. If the network fails partway, the batches already sent or applied are kept and the
+    //next sync carries on from there
+    public SyncResult sync(int userId) throws IOException {
+        long start = Metrics.now();
+        long sent = 0;
+        long received = 0;
+        int uploaded = 0;
+        int downloaded = 0;
+
+        //Upload: batches of changes after the last acknowledged version
+        long pushed = prefs.getLong(pushedKey(userId), 0);
+        while (true) {
+            List<ChangeLogEntry> changes = repository.getChangesAfter(userId, pushed, BATCH_SIZE);
+            if (changes.isEmpty()) {
+                break;
+            }
+            long last = changes.get(changes.size() - 1).getVersion();
+            byte[] batch = SyncCodec.encode(last, changes.size() == BATCH_SIZE, changes);
+            server.push(userId, deviceId, batch);
+            //Stored on the server, so the cursor moves and the log rows can go
+            pushed = last;
+            prefs.edit().putLong(pushedKey(userId), pushed).apply();
+            repository.acknowledgeChanges(userId, pushed);
+            sent += batch.length;
+            uploaded += changes.size();
+        }
+
+        //Download: batches of changes made elsewhere since the last download
+        long pulled = prefs.getLong(pulledKey(userId), 0);
+        boolean hasMore = true;
+        while (hasMore) {
+            byte[] data = server.pull(userId, deviceId, pulled, BATCH_SIZE);
+            SyncCodec.Batch batch = SyncCodec.decode(data, userId);
+            repository.applySyncedChanges(userId, batch.changes, pushed);
+            pulled = batch.version;
+            prefs.edit().putLong(pulledKey(userId), pulled).apply();
+            hasMore = batch.hasMore;
+            received += data.length;
+            downloaded += batch.changes.size();
+        }
+        if (downloaded > 0) {
+            //One reload for screens and caches, the same as after an import
+            repository.notifyEntriesReplaced(userId);
+        }
+
+        SYNC_TIME.recordSince(start);
+        BYTES_SENT.add(sent);
+        BYTES_RECEIVED.add(received);
+        return new SyncResult(uploaded, downloaded, sent, received, (Metrics.now() - start) / 1_000_000);
+    }
+
+    //Id for this install, used by the server to break ties and to skip a device's own changes
+    private static String loadDeviceId(SharedPreferences prefs) {
+        String id = prefs.getString(KEY_DEVICE_ID, null);
+        if (id == null) {
+            id = UUID.randomUUID().toString();
+            prefs.edit().putString(KEY_DEVICE_ID, id).apply();
+        }
+        return id;
+    }
+
+    private static String pushedKey(int userId) {
+        return "pushed." + userId;
+    }
+
+    private static String pulledKey(int userId) {
+        return "pulled." + userId;
+    }
+}
@@ -0,0 +1,24 @@
+/*
+ * Part of planned enhancement: Category 3 - Databases
+ * Created: 10/17/26
+ */
+package com.CS360.weighttracker.service;
+
+import java.io.IOException;
+
+//The server side of sync. Batches are in the SyncCodec format and hold one user's changes.
+//A network client implements this for the real backend; InMemorySyncServer stands in for it until
+//then and when exercising SyncEngine on a device.
+
+//The server keeps one value per (userId, syncId), so every entry of a date is kept. When two
+//devices change the same entry, the change with the later updatedAt wins, and a tie goes to the
+//larger device id so every device agrees.
+public interface SyncServer {
+    //Uploads a batch of changes made on deviceId. Pushing the same batch twice has no further
+    //effect, so a push that failed partway can simply be retried. Throws if the batch was not stored
+    void push(int userId, String deviceId, byte[] batch) throws IOException;
+
+    //Downloads at most limit changes stored after sinceVersion, leaving out changes that came from
+    //deviceId itself. The batch's version is where the next pull should start
+    byte[] pull(int userId, String deviceId, long sinceVersion, int limit) throws IOException;
+}
@@ -0,0 +1,310 @@
+/*
+ * Part of planned enhancement: Category 2 - Algorithms and Data Structures
+ * Created: 10/17/26
+ */
+package com.CS360.weighttracker.service;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.CS360.weighttracker.Dao.AppDatabase;
+import com.CS360.weighttracker.model.UserStats;
+import com.CS360.weighttracker.model.WeightEntry;
+import com.CS360.weighttracker.repository.WeightRepository;
+import com.CS360.weighttracker.util.RollingWeightWindow;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+//This is a service class for weight trend analytics: 7 and 30 day moving averages, a smoothed
+//trend weight and the weekly rate of change. Each user's numbers are kept as running state that
+//is updated in O(1) when an entry is added, instead of rescanning the history.
+
+//The state is fed by WeightRepository's change events and saved to SharedPreferences after each
+//update, so a cold start loads the saved state and only reads entries added since.
+//An entry added out of date order or a delete cannot be undone from running sums, so those replay
+//the last REPLAY_DAYS of history. Older entries no longer affect any of the numbers.
+
+/*
+ * The smoothed trend weight uses the exponentially smoothed moving average described in:
+ *   John Walker. "The Hacker's Diet." Chapter "Signal and Noise", 1991.
+ *   https://www.fourmilab.ch/hackdiet/
+ */
+public class TrendService {
+    private static final int SHORT_WINDOW_DAYS = 7;
+    //Also the span saved in checkpoints, so it must be the longest window
+    private static final int LONG_WINDOW_DAYS = 30;
+    //Weeks of history the weekly rate is fitted over
+    private static final int RATE_WEEKS = 4;
+    //How much of the gap between the trend and a new weight is closed per day
+    private static final double SMOOTHING_PER_DAY = 0.1;
+    //After this many days the starting point's weight in the trend is 0.9^240 (about 1e-11), so
+    //a replay can start here instead of at the user's first entry
+    private static final int REPLAY_DAYS = 240;
+    //Rows read per query while replaying or catching up
+    private static final int PAGE_SIZE = 500;
+
+    private static final String PREFS_NAME = "trends";
+    //Bumped if the saved format changes, so old checkpoints are replayed instead of misread
+    private static final String CHECKPOINT_VERSION = "1";
+
+    private static TrendService instance;
+
+    private final WeightRepository repository;
+    private final SharedPreferences prefs;
+    //Every read and update runs on this thread, so the per-user state needs no locking
+    private final ExecutorService worker = Executors.newSingleThreadExecutor();
+    private final Map<Integer, UserTrend> trends = new HashMap<>();
+    private final Map<Integer, MutableLiveData<Trend>> observed = new HashMap<>();
+
+    //The numbers shown to the user. Fields are null while there is not enough data
+    public static final class Trend {
+        public final int entryCount;
+        //Epoch day of the newest entry
+        public final Integer latestDate;
+        public final Double average7Day;
+        public final Double average30Day;
+        //Weight with day-to-day noise smoothed out
+        public final Double trendWeight;
+        //Lbs per week over the last RATE_WEEKS weeks. Negative means losing weight
+        public final Double weeklyRate;
+
+        Trend(int entryCount, Integer latestDate, Double average7Day, Double average30Day,
+              Double trendWeight, Double weeklyRate) {
+            this.entryCount = entryCount;
+            this.latestDate = latestDate;
+            this.average7Day = average7Day;
+            this.average30Day = average30Day;
+            this.trendWeight = trendWeight;
+            this.weeklyRate = weeklyRate;
+        }
+    }
+
+    private final WeightRepository.ChangeListener listener = new WeightRepository.ChangeListener() {
+        @Override
+        public void onEntryInserted(WeightEntry entry) {
+            worker.execute(() -> applyInsert(entry));
+        }
+
+        @Override
+        public void onEntryDeleted(WeightEntry entry) {
+            worker.execute(() -> replay(entry.getUserId()));
+        }
+
+        @Override
+        public void onEntriesReplaced(int userId) {
+            worker.execute(() -> replay(userId));
+        }
+    };
+
+    //One per process, so the running state survives switching activities
+    public static synchronized TrendService getInstance(Context context) {
+        if (instance == null) {
+            Context app = context.getApplicationContext();
+            instance = new TrendService(app,
+                    new WeightRepository(AppDatabase.getInstance(app).weightEntryDao()));
+        }
+        return instance;
+    }
+
+    private TrendService(Context context, WeightRepository repository) {
+        this.repository = repository;
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        repository.addChangeListener(listener);
+    }
+
+    //Watches a user's trend numbers. The first call loads them in the background
+    public synchronized LiveData<Trend> observeTrend(int userId) {
+        MutableLiveData<Trend> live = observed.get(userId);
+        if (live == null) {
+            live = new MutableLiveData<>();
+            observed.put(userId, live);
+            worker.execute(() -> load(userId));
+        }
+        return live;
+    }
+
+    //Folds a new entry into the running state. Entries that belong before the newest one
+    //already counted change the past, so they fall back to a replay
+    private void applyInsert(WeightEntry entry) {
+        UserTrend trend = trends.get(entry.getUserId());
+        //Not loaded yet. load() will pick the entry up when it catches up from the checkpoint
+        if (trend == null) {
+            return;
+        }
+        if (!trend.isAfterLast(entry.getEpochDay(), entry.getId())) {
+            replay(entry.getUserId());
+            return;
+        }
+        trend.add(entry.getEpochDay(), entry.getWeight(), entry.getId());
+        saveAndPublish(entry.getUserId(), trend);
+    }
+
+    //Restores the saved checkpoint and reads only the entries added after it. If the entry count
+    //does not match the database, something changed while the app was not running, so replays
+    private void load(int userId) {
+        UserTrend trend = readCheckpoint(userId);
+        UserStats stats = repository.getUserStats(userId);
+        int expected = stats == null ? 0 : stats.getEntryCount();
+        if (trend != null) {
+            readEntriesAfter(userId, trend, trend.lastDay, trend.lastId);
+            if (trend.count == expected) {
+                trends.put(userId, trend);
+                saveAndPublish(userId, trend);
+                return;
+            }
+        }
+        replay(userId);
+    }
+
+    //Rebuilds a user's state from the last REPLAY_DAYS of history
+    private void replay(int userId) {
+        UserTrend trend = new UserTrend();
+        UserStats stats = repository.getUserStats(userId);
+        if (stats != null && stats.getEntryCount() > 0 && stats.getLatestDate() != null) {
+            int from = stats.getLatestDate() - REPLAY_DAYS;
+            //Id MAX_VALUE with from - 1 starts the page at the first row on or after from
+            readEntriesAfter(userId, trend, from - 1, Integer.MAX_VALUE);
+            //Entries before the replay start still count toward the total
+            trend.count = stats.getEntryCount();
+        }
+        trends.put(userId, trend);
+        saveAndPublish(userId, trend);
+    }
+
+    //Reads entries after the (date, id) cursor a page at a time and adds them to the state
+    private void readEntriesAfter(int userId, UserTrend trend, int afterDay, int afterId) {
+        while (true) {
+            List<WeightEntry> page = repository.getEntriesPageAfter(userId, afterDay, afterId, PAGE_SIZE);
+            for (WeightEntry e : page) {
+                trend.add(e.getEpochDay(), e.getWeight(), e.getId());
+            }
+            if (page.size() < PAGE_SIZE) {
+                return;
+            }
+            WeightEntry last = page.get(page.size() - 1);
+            afterDay = last.getEpochDay();
+            afterId = last.getId();
+        }
+    }
+
+    private void saveAndPublish(int userId, UserTrend trend) {
+        prefs.edit().putString(checkpointKey(userId), trend.toCheckpoint()).apply();
+        MutableLiveData<Trend> live;
+        synchronized (this) {
+            live = observed.get(userId);
+        }
+        if (live != null) {
+            live.postValue(trend.snapshot());
+        }
+    }
+
+    private UserTrend readCheckpoint(int userId) {
+        String saved = prefs.getString(checkpointKey(userId), null);
+        if (saved == null) {
+            return null;
+        }
+        try {
+            return UserTrend.fromCheckpoint(saved);
+        } catch (RuntimeException corrupt) {
+            //Unreadable checkpoints are replayed instead
+            return null;
+        }
+    }
+
+    private static String checkpointKey(int userId) {
+        return "user." + userId;
+    }
+
+    //Running state for one user
+    private static final class UserTrend {
+        final RollingWeightWindow shortWindow = new RollingWeightWindow(SHORT_WINDOW_DAYS);
+        final RollingWeightWindow longWindow = new RollingWeightWindow(LONG_WINDOW_DAYS);
+        final RollingWeightWindow rateWindow = new RollingWeightWindow(RATE_WEEKS * 7);
+        int count = 0;
+        //(date, id) of the newest entry counted, the cursor for catching up. FROM_START reads from
+        //the user's first entry
+        int lastDay = WeightRepository.FROM_START;
+        int lastId = 0;
+        double trendWeight = Double.NaN;
+
+        boolean isAfterLast(int day, int id) {
+            return day > lastDay || (day == lastDay && id > lastId);
+        }
+
+        void add(int day, double weight, int id) {
+            if (Double.isNaN(trendWeight)) {
+                trendWeight = weight;
+            } else {
+                //Time-decayed smoothing: a gap of several days moves the trend further toward the
+                //new weight. Same-day entries count as one day so they are not ignored
+                int gap = Math.max(1, day - lastDay);
+                double keep = Math.pow(1 - SMOOTHING_PER_DAY, gap);
+                trendWeight = weight + (trendWeight - weight) * keep;
+            }
+            shortWindow.add(day, weight);
+            longWindow.add(day, weight);
+            rateWindow.add(day, weight);
+            lastDay = day;
+            lastId = id;
+            count++;
+        }
+
+        Trend snapshot() {
+            if (count == 0 || lastDay == WeightRepository.FROM_START) {
+                return new Trend(count, null, null, null, null, null);
+            }
+            double slope = rateWindow.fit().slope();
+            return new Trend(count, lastDay,
+                    shortWindow.average(),
+                    longWindow.average(),
+                    trendWeight,
+                    Double.isNaN(slope) ? null : slope * 7);
+        }
+
+        //Saves everything needed to continue without a replay:
+        //version|count|lastDay|lastId|trendWeight|day:weight;day:weight...
+        //The long window holds every entry the other windows need
+        String toCheckpoint() {
+            StringBuilder sb = new StringBuilder(64 + longWindow.size() * 16);
+            sb.append(CHECKPOINT_VERSION).append('|').append(count).append('|')
+                    .append(lastDay).append('|').append(lastId).append('|').append(trendWeight).append('|');
+            for (int i = 0; i < longWindow.size(); i++) {
+                if (i > 0) {
+                    sb.append(';');
+                }
+                sb.append(longWindow.dayAt(i)).append(':').append(longWindow.weightAt(i));
+            }
+            return sb.toString();
+        }
+
+        static UserTrend fromCheckpoint(String saved) {
+            String[] parts = saved.split("\\|", -1);
+            if (parts.length != 6 || !parts[0].equals(CHECKPOINT_VERSION)) {
+                throw new IllegalArgumentException("Unknown checkpoint format");
+            }
+            UserTrend trend = new UserTrend();
+            if (!parts[5].isEmpty()) {
+                for (String row : parts[5].split(";")) {
+                    int colon = row.indexOf(':');
+                    int day = Integer.parseInt(row.substring(0, colon));
+                    double weight = Double.parseDouble(row.substring(colon + 1));
+                    trend.shortWindow.add(day, weight);
+                    trend.longWindow.add(day, weight);
+                    trend.rateWindow.add(day, weight);
+                }
+            }
+            trend.count = Integer.parseInt(parts[1]);
+            trend.lastDay = Integer.parseInt(parts[2]);
+            trend.lastId = Integer.parseInt(parts[3]);
+            trend.trendWeight = Double.parseDouble(parts[4]);
+            return trend;
+        }
+    }
+}
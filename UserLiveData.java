@@ -0,0 +1,111 @@
+/*
+ * Part of planned enhancement: Category 3 - Databases
+ * Created: 10/17/26
+ */
+package com.CS360.weighttracker.repository;
+
+import androidx.lifecycle.LiveData;
+
+import com.CS360.weighttracker.model.WeightEntry;
+import com.CS360.weighttracker.util.Metrics;
+
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+//LiveData for one user's query result that only re-queries when that user's data is written and
+//only emits when the result is actually different.
+
+//Room's LiveData re-runs its query whenever any row in the tables it reads changes, including rows
+//of other users, and emits the result even if it is the same as before. This listens to the
+//repository's change events instead, ignores events for other users, folds events that arrive
+//within DEBOUNCE_MILLIS into one re-query, and compares the new result with the last one using
+//equals() before posting it.
+
+//Only writes made through WeightRepository are seen, which is every write the app makes.
+final class UserLiveData<T> extends LiveData<T> {
+    //Long enough to fold a burst of writes (an import, a sync) into one query
+    static final long DEBOUNCE_MILLIS = 50;
+
+    private static final Metrics.Counter QUERIES = Metrics.counter("live.queries");
+    private static final Metrics.Counter EMITS = Metrics.counter("live.emits");
+
+    //One thread runs every query, so results for one LiveData are never posted out of order
+    private static final ScheduledExecutorService queryThread = newQueryThread();
+
+    private final int userId;
+    private final Supplier<T> query;
+    private final WeightRepository repository;
+    //Set while a query is scheduled but has not started, so more events do not schedule another
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    //Last result posted. Only touched on the query thread
+    private T last;
+    private boolean hasLast;
+
+    private final WeightRepository.ChangeListener listener = new WeightRepository.ChangeListener() {
+        @Override
+        public void onEntryInserted(WeightEntry entry) {}
+
+        @Override
+        public void onEntryDeleted(WeightEntry entry) {}
+
+        @Override
+        public void onUserChanged(int changedUserId) {
+            if (changedUserId == userId) {
+                schedule(DEBOUNCE_MILLIS);
+            }
+        }
+    };
+
+    UserLiveData(int userId, WeightRepository repository, Supplier<T> query) {
+        this.userId = userId;
+        this.repository = repository;
+        this.query = query;
+    }
+
+    //Starts listening when the first observer becomes active and loads once, since writes made
+    //while nobody was observing were not seen
+    @Override
+    protected void onActive() {
+        repository.addChangeListener(listener);
+        schedule(0);
+    }
+
+    @Override
+    protected void onInactive() {
+        repository.removeChangeListener(listener);
+    }
+
+    private void schedule(long delayMillis) {
+        if (scheduled.compareAndSet(false, true)) {
+            queryThread.schedule(this::load, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void load() {
+        //Cleared before querying, so a write that lands during the query schedules another one
+        scheduled.set(false);
+        T result = query.get();
+        QUERIES.inc();
+        //Lists compare row by row with WeightEntry.equals, which is far cheaper than a re-render
+        if (hasLast && Objects.equals(last, result)) {
+            return;
+        }
+        last = result;
+        hasLast = true;
+        EMITS.inc();
+        postValue(result);
+    }
+
+    private static ScheduledExecutorService newQueryThread() {
+        return new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "user-queries");
+            //Do not keep the app process alive just for queries
+            t.setDaemon(true);
+            return t;
+        });
+    }
+}
@@ -0,0 +1,134 @@
+package com.CS360.weighttracker.model;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.PrimaryKey;
+
+//Creates a user_stats entity that keeps one row of summary stats per user
+
+//Part of Category three planned enhancement
+//The dashboard stats used to be computed with ORDER BY subqueries over weight_entries every time the
+//table changed. This row is kept up to date by the repository's writes instead, so reading the stats
+//is a single primary key lookup.
+@Entity(
+        tableName = "user_stats",
+        foreignKeys = {
+                @ForeignKey(
+                        //Connects to User database
+                        entity = User.class,
+                        parentColumns = "id",
+                        childColumns = "userId",
+                        //If user account is deleted, remove their stats row
+                        onDelete = ForeignKey.CASCADE
+                )
+        })
+
+public class UserStats {
+    @PrimaryKey
+    private int userId;
+
+    private int entryCount;
+    //Null while the user has no entries. Dates are epoch days, same as weight_entries.date
+    private Double firstWeight;
+    private Integer firstDate;
+    private Double latestWeight;
+    private Integer latestDate;
+    private Double minWeight;
+    private Double maxWeight;
+    //Null if the user has no height saved or no entries
+    private Double bmi;
+    //Goes up by one in every transaction that writes this user's entries or BMI, so a copy of the
+    //user's data saved with this number is known to be current while it has not changed
+    @ColumnInfo(defaultValue = "0")
+    private long version;
+
+    // Getters and Setters
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    public void setEntryCount(int entryCount) {
+        this.entryCount = entryCount;
+    }
+
+    public Double getFirstWeight() {
+        return firstWeight;
+    }
+
+    public void setFirstWeight(Double firstWeight) {
+        this.firstWeight = firstWeight;
+    }
+
+    public Integer getFirstDate() {
+        return firstDate;
+    }
+
+    public void setFirstDate(Integer firstDate) {
+        this.firstDate = firstDate;
+    }
+
+    public Double getLatestWeight() {
+        return latestWeight;
+    }
+
+    public void setLatestWeight(Double latestWeight) {
+        this.latestWeight = latestWeight;
+    }
+
+    public Integer getLatestDate() {
+        return latestDate;
+    }
+
+    public void setLatestDate(Integer latestDate) {
+        this.latestDate = latestDate;
+    }
+
+    public Double getMinWeight() {
+        return minWeight;
+    }
+
+    public void setMinWeight(Double minWeight) {
+        this.minWeight = minWeight;
+    }
+
+    public Double getMaxWeight() {
+        return maxWeight;
+    }
+
+    public void setMaxWeight(Double maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    public Double getBmi() {
+        return bmi;
+    }
+
+    public void setBmi(Double bmi) {
+        this.bmi = bmi;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    //Total weight lost (first weight - latest weight). Null if there are no entries
+    public Double getTotalWeightLost() {
+        if (firstWeight == null || latestWeight == null) {
+            return null;
+        }
+        return firstWeight - latestWeight;
+    }
+}
@@ -1,76 +1,162 @@
-package com.CS360.weighttracker.model;
-
-import androidx.room.Entity;
-import androidx.room.ForeignKey;
-import androidx.room.Index;
-import androidx.room.PrimaryKey;
-
-//creates weight entries entity that saves the date, weight and userId
-
-//Part of Category three planned enhancement
-//This help with indexing HashMap by date and aggregating subqueries for first/last weights and BMI
-@Entity(
-        //Declares mapping between model and schema
-        tableName = "weight_entries",
-        //Indexes userId and date for faster lookup
-        indices = {
-                @Index(value = {"userId", "date"})
-        },
-        foreignKeys = {
-                @ForeignKey(
-                        //Connects to User database
-                        entity = User.class,
-                        parentColumns = "id",
-                        childColumns = "userId",
-                        //If user account is deleted, remove all associated weight entries
-                        onDelete = ForeignKey.CASCADE
-                )
-        })
-
-public class WeightEntry {
-    @PrimaryKey(autoGenerate = true)
-    private int id;
-
-    private String date;
-    private double weight;
-    private int userId; // Foreign key association to the user
-
-    public WeightEntry(String date, double weight, int userId) {
-        this.date = date;
-        this.weight = weight;
-        this.userId = userId;
-    }
-
-    // Getters and Setters
-    public int getId() {
-        return id;
-    }
-
-    public void setId(int id) {
-        this.id = id;
-    }
-
-    public String getDate() {
-        return date;
-    }
-
-    public void setDate(String date) {
-        this.date = date;
-    }
-
-    public double getWeight() {
-        return weight;
-    }
-
-    public void setWeight(double weight) {
-        this.weight = weight;
-    }
-
-    public int getUserId() {
-        return userId;
-    }
-
-    public void setUserId(int userId) {
-        this.userId = userId;
-    }
-}
+package com.CS360.weighttracker.model;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+import com.CS360.weighttracker.util.EpochDays;
+
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+//creates weight entries entity that saves the date, weight and userId
+
+//Part of Category three planned enhancement
+//This help with indexing HashMap by date and aggregating subqueries for first/last weights and BMI
+@Entity(
+        //Declares mapping between model and schema
+        tableName = "weight_entries",
+        //Indexes userId and date for faster lookup. Weight is included so queries that only need
+        //date and weight (latest/first weight, stats, charts) are answered from the index alone.
+        //id comes before weight so rows on the same date are already in (date, id) order, which
+        //every paged and sorted query uses, and SQLite never has to sort
+        indices = {
+                @Index(value = {"userId", "date", "id", "weight"}),
+                //Sync finds the local copy of a downloaded entry by its syncId
+                @Index(value = {"syncId"}, unique = true)
+        },
+        foreignKeys = {
+                @ForeignKey(
+                        //Connects to User database
+                        entity = User.class,
+                        parentColumns = "id",
+                        childColumns = "userId",
+                        //If user account is deleted, remove all associated weight entries
+                        onDelete = ForeignKey.CASCADE
+                )
+        })
+
+public class WeightEntry {
+    @PrimaryKey(autoGenerate = true)
+    private int id;
+
+    //Stored as an INTEGER count of days since 1970-01-01 so sorting and range queries compare
+    //numbers instead of strings. The column keeps the name "date"
+    @ColumnInfo(name = "date")
+    private int epochDay;
+    private double weight;
+    private int userId; // Foreign key association to the user
+    //Random id that names this entry on every device, since the row id is only local. Sync keys
+    //its changes by it, so several weigh-ins on one date stay separate entries everywhere
+    @ColumnInfo(defaultValue = "0")
+    private long syncId;
+
+    //Used by Room. A new entry gets a new syncId; Room sets the stored one afterwards
+    public WeightEntry(int epochDay, double weight, int userId) {
+        this.epochDay = epochDay;
+        this.weight = weight;
+        this.userId = userId;
+        this.syncId = newSyncId();
+    }
+
+    //Creates an entry from a YYYY-MM-DD date string. Throws IllegalArgumentException if the date
+    //is not a real calendar day, so a bad date never gets stored
+    @Ignore
+    public WeightEntry(String date, double weight, int userId) {
+        this(parseDate(date), weight, userId);
+    }
+
+    // Getters and Setters
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public int getEpochDay() {
+        return epochDay;
+    }
+
+    public void setEpochDay(int epochDay) {
+        this.epochDay = epochDay;
+    }
+
+    //Date as a YYYY-MM-DD string, converted from the stored epoch day
+    public String getDate() {
+        return EpochDays.format(epochDay);
+    }
+
+    //Same rules as the String constructor
+    public void setDate(String date) {
+        this.epochDay = parseDate(date);
+    }
+
+    private static int parseDate(String date) {
+        int day = EpochDays.parse(date);
+        if (day == EpochDays.INVALID) {
+            throw new IllegalArgumentException("Not a YYYY-MM-DD date: " + date);
+        }
+        return day;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    public void setWeight(double weight) {
+        this.weight = weight;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public long getSyncId() {
+        return syncId;
+    }
+
+    public void setSyncId(long syncId) {
+        this.syncId = syncId;
+    }
+
+    //Random non-zero 64-bit id. 0 is left for rows a migration has not given an id yet
+    private static long newSyncId() {
+        long id;
+        do {
+            id = ThreadLocalRandom.current().nextLong();
+        } while (id == 0);
+        return id;
+    }
+
+    //Compares every column, so observers can tell a re-emitted list with the same rows from a
+    //real change
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof WeightEntry)) {
+            return false;
+        }
+        WeightEntry other = (WeightEntry) o;
+        return id == other.id
+                && epochDay == other.epochDay
+                && Double.compare(weight, other.weight) == 0
+                && userId == other.userId
+                && syncId == other.syncId;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, epochDay, weight, userId, syncId);
+    }
+}
@@ -1,66 +1,486 @@
-package com.CS360.weighttracker.Dao;
-
-import androidx.lifecycle.LiveData;
-import androidx.room.Dao;
-import androidx.room.Delete;
-import androidx.room.Insert;
-import androidx.room.Query;
-
-import com.CS360.weighttracker.model.WeightEntry;
-
-import java.util.List;
-//This adds a weight entry, gets specfic weight entries based on user id,
-//uses live data to help keep data in the dashboard activity current.
-//Parameterized SQL queries to prevent SQL injection attacks
-@Dao
-public interface WeightEntryDAO {
-    @Insert
-    void insert(WeightEntry weightEntry);
-
-    //gets all weight entries in a list for a specific user id
-    @Query("SELECT * FROM weight_entries WHERE userId = :userId ORDER BY id DESC")
-    List<WeightEntry> getAllWeightEntries(int userId);
-
-    //Returns live data, so dashboard can be updated automatically
-    @Query("SELECT * FROM weight_entries WHERE userId = :userId ORDER BY date ASC")
-    LiveData<List<WeightEntry>> observeAllWeightEntries(int userId);
-
-    //Delete a weight entry
-    @Delete
-    void delete(WeightEntry weightEntry);
-
-    //Queries below are part of the Category three planned enhancement
-    //LiveData is used to ensure stats are dynamic and update whenever
-    //the user enters new input.
-
-    //Gets most recent weight
-    @Query("SELECT weight FROM weight_entries WHERE userId = :userId ORDER BY date DESC LIMIT 1")
-    LiveData<Double> observeLatestWeight(int userId);
-
-    // Get most recent weight for BMI and total weight difference stats
-    @Query("SELECT weight FROM weight_entries WHERE userId = :userId ORDER BY date DESC LIMIT 1")
-    LiveData<Double> observeRecentWeight(int userId);
-
-    //Aggregate to calculate total weight loss (first weight - last weight)
-    @Query(
-            "SELECT " +
-                    " (SELECT weight FROM weight_entries WHERE userId = :userId ORDER BY date ASC LIMIT 1) " +
-                    " - " +
-                    " (SELECT weight FROM weight_entries WHERE userId = :userId ORDER BY date DESC LIMIT 1) "
-    )
-    LiveData<Double> observeTotalWeightLost(int userId);
-
-    //Compute BMI using the most recent weight and height
-    //BMI = (weight_lbs * 703) / (height_in^2)
-    @Query(
-            "SELECT CASE " +
-                    " WHEN (SELECT heightInches FROM users WHERE id = :userId) <= 0 THEN NULL " +
-                    " WHEN (SELECT weight FROM weight_entries WHERE userId = :userId ORDER BY date DESC LIMIT 1) IS NULL THEN NULL " +
-                    " ELSE (" +
-                    "   (SELECT weight FROM weight_entries WHERE userId = :userId ORDER BY date DESC LIMIT 1) * 703.0" +
-                    " ) / (" +
-                    "   (SELECT heightInches FROM users WHERE id = :userId) * (SELECT heightInches FROM users WHERE id = :userId)" +
-                    " ) END"
-    )
-    LiveData<Double> observeBMI(int userId);
+package com.CS360.weighttracker.Dao;
+
+import android.database.Cursor;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Delete;
+import androidx.room.Insert;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.CS360.weighttracker.model.ChangeLogEntry;
+import com.CS360.weighttracker.model.DashboardStats;
+import com.CS360.weighttracker.model.UserStats;
+import com.CS360.weighttracker.model.WeightEntry;
+import com.CS360.weighttracker.model.WeightRangeStats;
+import com.CS360.weighttracker.model.WeightRollup;
+import com.CS360.weighttracker.util.EpochDays;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+//This adds a weight entry, gets specfic weight entries based on user id,
+//uses live data to help keep data in the dashboard activity current.
+//Parameterized SQL queries to prevent SQL injection attacks
+@Dao
+public interface WeightEntryDAO {
+    //Returns the new row id so the repository can report the inserted entry
+    @Insert
+    long insert(WeightEntry weightEntry);
+
+    //Inserts many entries with one prepared statement, used for imports and queued writes.
+    //Returns the new row ids in list order
+    @Insert
+    long[] insertAll(List<WeightEntry> weightEntries);
+
+    //gets all weight entries in a list for a specific user id, newest date first. Ordered by
+    //(date, id) instead of id alone so the (userId, date, id, weight) index is walked backwards
+    //and SQLite does not sort the whole history; entries added in date order come out the same
+    @Query("SELECT * FROM weight_entries WHERE userId = :userId ORDER BY date DESC, id DESC")
+    List<WeightEntry> getAllWeightEntries(int userId);
+
+    //Returns live data, so dashboard can be updated automatically
+    @Query("SELECT * FROM weight_entries WHERE userId = :userId ORDER BY date ASC")
+    LiveData<List<WeightEntry>> observeAllWeightEntries(int userId);
+
+    //Delete a weight entry
+    @Delete
+    void delete(WeightEntry weightEntry);
+
+    //Deletes many entries with one prepared statement
+    @Delete
+    void deleteAll(List<WeightEntry> weightEntries);
+
+    //Streams a user's entries (date, weight, id) in date order without building a List<WeightEntry>.
+    //The caller must close the cursor
+    @Query("SELECT date, weight, id FROM weight_entries WHERE userId = :userId ORDER BY date ASC, id ASC")
+    Cursor getEntriesCursor(int userId);
+
+    //Keyset pagination so long histories can be read a page at a time. Gets the next page after
+    //the (date, id) of the last row already loaded. The (userId, date, id, weight) index is in the
+    //same order, so SQLite seeks straight to the cursor position instead of skipping rows like
+    //OFFSET would, and returns rows without sorting them
+    @Query("SELECT * FROM weight_entries WHERE userId = :userId " +
+            "AND date >= :afterDate AND (date > :afterDate OR id > :afterId) " +
+            "ORDER BY date ASC, id ASC LIMIT :limit")
+    List<WeightEntry> getEntriesPageAfter(int userId, int afterDate, int afterId, int limit);
+
+    //Same as above but walks backwards in time from the (date, id) of the oldest row loaded
+    @Query("SELECT * FROM weight_entries WHERE userId = :userId " +
+            "AND date <= :beforeDate AND (date < :beforeDate OR id < :beforeId) " +
+            "ORDER BY date DESC, id DESC LIMIT :limit")
+    List<WeightEntry> getEntriesPageBefore(int userId, int beforeDate, int beforeId, int limit);
+
+    //Returns live data for only the entries between two dates (inclusive), so the dashboard can
+    //watch the range it shows instead of the whole history
+    @Query("SELECT * FROM weight_entries WHERE userId = :userId " +
+            "AND date BETWEEN :fromDate AND :toDate ORDER BY date ASC, id ASC")
+    LiveData<List<WeightEntry>> observeEntriesInRange(int userId, int fromDate, int toDate);
+
+    //Same as above without LiveData, for UserLiveData which decides itself when to re-query
+    @Query("SELECT * FROM weight_entries WHERE userId = :userId " +
+            "AND date BETWEEN :fromDate AND :toDate ORDER BY date ASC, id ASC")
+    List<WeightEntry> getEntriesInRange(int userId, int fromDate, int toDate);
+
+    //Gets the most recently added entry for one date, used for lookups outside the loaded range
+    @Query("SELECT * FROM weight_entries WHERE userId = :userId AND date = :date " +
+            "ORDER BY id DESC LIMIT 1")
+    WeightEntry getLatestEntryOnDate(int userId, int date);
+
+    //Lowest, highest, total and count of weights between two dates (inclusive), used for ranges
+    //outside the loaded range. Read from the rollups: whole months from their monthly rows and the
+    //days before the first and after the last whole month from daily rows, so a year takes at most
+    //12 monthly and about 60 daily rows instead of every entry
+    default WeightRangeStats getRangeStats(int userId, int fromDate, int toDate) {
+        //First day of the first whole month, and first day after the last whole month
+        int monthsFrom = EpochDays.monthStart(fromDate) == fromDate
+                ? fromDate : EpochDays.nextMonthStart(fromDate);
+        int monthsTo = EpochDays.monthStart(toDate + 1);
+        //No whole month in the range, so every day is read from daily rows
+        if (monthsFrom >= monthsTo) {
+            monthsFrom = toDate + 1;
+            monthsTo = toDate + 1;
+        }
+        return getRangeStatsFromRollups(userId, fromDate, toDate, monthsFrom, monthsTo);
+    }
+
+    @Query("SELECT IFNULL(SUM(entryCount), 0) AS entryCount, MIN(minWeight) AS minWeight, " +
+            "MAX(maxWeight) AS maxWeight, SUM(sumWeight) AS totalWeight FROM weight_rollups " +
+            "WHERE userId = :userId AND (" +
+            " (period = 2 AND bucket >= :monthsFrom AND bucket < :monthsTo) OR " +
+            " (period = 0 AND bucket >= :fromDate AND bucket < :monthsFrom) OR " +
+            " (period = 0 AND bucket >= :monthsTo AND bucket <= :toDate))")
+    WeightRangeStats getRangeStatsFromRollups(int userId, int fromDate, int toDate,
+                                              int monthsFrom, int monthsTo);
+
+    //Rollup rows of one period (WeightRollup.DAY, WEEK or MONTH) starting between fromBucket and
+    //toBucket, oldest first. Used for month and year charts
+    @Query("SELECT * FROM weight_rollups WHERE userId = :userId AND period = :period " +
+            "AND bucket BETWEEN :fromBucket AND :toBucket ORDER BY bucket ASC")
+    List<WeightRollup> getRollups(int userId, int period, int fromBucket, int toBucket);
+
+    //Queries below are part of the Category three planned enhancement
+    //LiveData is used to ensure stats are dynamic and update whenever
+    //the user enters new input.
+
+    //Dates are stored as INTEGER epoch days, so every date parameter below is an epoch day and
+    //WeightRepository converts YYYY-MM-DD strings at its boundary
+
+    //Gets most recent weight. Answered from the (userId, date, id, weight) index without a table lookup
+    @Query("SELECT weight FROM weight_entries WHERE userId = :userId ORDER BY date DESC LIMIT 1")
+    LiveData<Double> observeLatestWeight(int userId);
+
+    // Get most recent weight for BMI and total weight difference stats
+    @Query("SELECT weight FROM weight_entries WHERE userId = :userId ORDER BY date DESC LIMIT 1")
+    LiveData<Double> observeRecentWeight(int userId);
+
+    //Aggregate to calculate total weight loss (first weight - last weight)
+    @Query(
+            "SELECT " +
+                    " (SELECT weight FROM weight_entries WHERE userId = :userId ORDER BY date ASC LIMIT 1) " +
+                    " - " +
+                    " (SELECT weight FROM weight_entries WHERE userId = :userId ORDER BY date DESC LIMIT 1) "
+    )
+    LiveData<Double> observeTotalWeightLost(int userId);
+
+    //Compute BMI using the most recent weight and height
+    //BMI = (weight_lbs * 703) / (height_in^2)
+    @Query(
+            "SELECT CASE " +
+                    " WHEN (SELECT heightInches FROM users WHERE id = :userId) <= 0 THEN NULL " +
+                    " WHEN (SELECT weight FROM weight_entries WHERE userId = :userId ORDER BY date DESC LIMIT 1) IS NULL THEN NULL " +
+                    " ELSE (" +
+                    "   (SELECT weight FROM weight_entries WHERE userId = :userId ORDER BY date DESC LIMIT 1) * 703.0" +
+                    " ) / (" +
+                    "   (SELECT heightInches FROM users WHERE id = :userId) * (SELECT heightInches FROM users WHERE id = :userId)" +
+                    " ) END"
+    )
+    LiveData<Double> observeBMI(int userId);
+
+    //Queries below keep the user_stats table in sync with weight_entries. Every write made through
+    //the repository goes through insertAndUpdateStats/deleteAndUpdateStats, so the stats row changes
+    //in the same transaction as the entry and the dashboard only needs a primary key read.
+
+    //Gets the stats row for a user. Only invalidated by writes to user_stats
+    @Query("SELECT * FROM user_stats WHERE userId = :userId")
+    LiveData<UserStats> observeUserStats(int userId);
+
+    //Same as above without LiveData, for background work that needs the current count and dates.
+    //Returns null until the user has added an entry
+    @Query("SELECT * FROM user_stats WHERE userId = :userId")
+    UserStats getUserStats(int userId);
+
+    //Gets every dashboard stat in one primary key read, so the dashboard needs one observer and
+    //re-renders once per write. Returns null until the user has added an entry
+    @Query("SELECT latestWeight, firstWeight - latestWeight AS totalWeightLost, bmi, entryCount, " +
+            "firstDate, latestDate FROM user_stats WHERE userId = :userId")
+    LiveData<DashboardStats> observeDashboardStats(int userId);
+
+    //Same as above without LiveData, for UserLiveData
+    @Query("SELECT latestWeight, firstWeight - latestWeight AS totalWeightLost, bmi, entryCount, " +
+            "firstDate, latestDate FROM user_stats WHERE userId = :userId")
+    DashboardStats getDashboardStats(int userId);
+
+    //Gets the stats version, which goes up with every write transaction. Kept out of
+    //DashboardStats so a write that leaves the shown stats the same does not re-render the
+    //dashboard. Returns null until the user has added an entry
+    @Query("SELECT version FROM user_stats WHERE userId = :userId")
+    Long getStatsVersion(int userId);
+
+    //Creates an empty stats row the first time a user adds an entry
+    @Query("INSERT OR IGNORE INTO user_stats (userId, entryCount) VALUES (:userId, 0)")
+    void ensureStatsRow(int userId);
+
+    //Folds new entries into the stats row without reading weight_entries. The arguments summarize
+    //the new entries (a single insert passes the same date/weight for first, latest, min and max).
+    //SQLite evaluates every SET expression against the old row, so each CASE compares with the
+    //values before this update
+    @Query("UPDATE user_stats SET " +
+            " firstWeight = CASE WHEN entryCount = 0 OR :firstDate < firstDate THEN :firstWeight ELSE firstWeight END, " +
+            " firstDate = CASE WHEN entryCount = 0 OR :firstDate < firstDate THEN :firstDate ELSE firstDate END, " +
+            " latestWeight = CASE WHEN entryCount = 0 OR :latestDate >= latestDate THEN :latestWeight ELSE latestWeight END, " +
+            " latestDate = CASE WHEN entryCount = 0 OR :latestDate >= latestDate THEN :latestDate ELSE latestDate END, " +
+            " minWeight = CASE WHEN entryCount = 0 OR :minWeight < minWeight THEN :minWeight ELSE minWeight END, " +
+            " maxWeight = CASE WHEN entryCount = 0 OR :maxWeight > maxWeight THEN :maxWeight ELSE maxWeight END, " +
+            " entryCount = entryCount + :count " +
+            "WHERE userId = :userId")
+    void applyInsertsToStats(int userId, int count, int firstDate, double firstWeight,
+                             int latestDate, double latestWeight, double minWeight, double maxWeight);
+
+    //Recomputes the whole stats row from the (userId, date) index. A delete can remove the current
+    //min, max, first or latest weight, so it cannot be undone incrementally like an insert.
+    //The version is carried over from the old row, since REPLACE deletes it first
+    @Query("REPLACE INTO user_stats " +
+            "(userId, entryCount, firstWeight, firstDate, latestWeight, latestDate, minWeight, maxWeight, bmi, version) " +
+            "SELECT :userId, COUNT(*), " +
+            " (SELECT weight FROM weight_entries WHERE userId = :userId ORDER BY date ASC, id ASC LIMIT 1), " +
+            " MIN(date), " +
+            " (SELECT weight FROM weight_entries WHERE userId = :userId ORDER BY date DESC, id DESC LIMIT 1), " +
+            " MAX(date), MIN(weight), MAX(weight), NULL, " +
+            " IFNULL((SELECT version FROM user_stats WHERE userId = :userId), 0) " +
+            "FROM weight_entries WHERE userId = :userId")
+    void rebuildStats(int userId);
+
+    //Recalculates BMI from the latest weight and the user's height
+    //BMI = (weight_lbs * 703) / (height_in^2)
+    //Every write transaction below ends by calling this, so it is also where the stats version
+    //goes up. A height change goes through here too, which changes the BMI
+    @Query("UPDATE user_stats SET bmi = (" +
+            " SELECT CASE WHEN u.heightInches > 0 AND user_stats.latestWeight IS NOT NULL " +
+            "  THEN (user_stats.latestWeight * 703.0) / (u.heightInches * u.heightInches) END " +
+            " FROM users u WHERE u.id = user_stats.userId), " +
+            " version = version + 1 " +
+            "WHERE userId = :userId")
+    void refreshBmi(int userId);
+
+    //Queries below keep the change_log table used by sync. The write methods at the bottom add a
+    //row in the same transaction as each entry change, so a change can never be missed by sync
+
+    //Records a new entry
+    @Query("INSERT INTO change_log (userId, syncId, date, weight, deleted, updatedAt) " +
+            "VALUES (:userId, :syncId, :date, :weight, 0, :updatedAt)")
+    void logInsert(int userId, long syncId, int date, double weight, long updatedAt);
+
+    //Records that an entry is being deleted. Must run before the delete, since it reads the row
+    @Query("INSERT INTO change_log (userId, syncId, date, weight, deleted, updatedAt) " +
+            "SELECT userId, syncId, date, 0, 1, :updatedAt FROM weight_entries WHERE id = :id")
+    void logDelete(int id, long updatedAt);
+
+    //Gets changes after a version, keeping only the newest change per entry so an entry added and
+    //deleted between syncs is sent once. SQLite fills the other columns from the row that has
+    //MAX(version). Ordered by version, so the next page starts after the last version returned
+    @Query("SELECT MAX(version) AS version, userId, syncId, date, weight, deleted, updatedAt FROM change_log " +
+            "WHERE userId = :userId AND version > :afterVersion " +
+            "GROUP BY syncId ORDER BY version ASC LIMIT :limit")
+    List<ChangeLogEntry> getChangesAfter(int userId, long afterVersion, int limit);
+
+    //Newest local change to an entry after a version, or null if there is none
+    @Query("SELECT MAX(updatedAt) FROM change_log " +
+            "WHERE userId = :userId AND syncId = :syncId AND version > :afterVersion")
+    Long getLatestChangeTime(int userId, long syncId, long afterVersion);
+
+    //Removes changes the server has received
+    @Query("DELETE FROM change_log WHERE userId = :userId AND version <= :upToVersion")
+    void deleteChangesUpTo(int userId, long upToVersion);
+
+    //Queries below keep the weight_rollups table. RollupBatch decides which ones a write runs
+
+    //Creates an empty rollup row the first time an entry falls in its period
+    @Query("INSERT OR IGNORE INTO weight_rollups " +
+            "(userId, period, bucket, entryCount, minWeight, maxWeight, sumWeight, lastWeight, lastDate, lastId) " +
+            "VALUES (:userId, :period, :bucket, 0, 0, 0, 0, 0, 0, 0)")
+    void ensureRollupRow(int userId, int period, int bucket);
+
+    //Folds new entries into a rollup row without reading weight_entries, like applyInsertsToStats.
+    //Every CASE compares with the values before this update. The latest entry is the one with the
+    //highest (date, id)
+    @Query("UPDATE weight_rollups SET " +
+            " minWeight = CASE WHEN entryCount = 0 OR :minWeight < minWeight THEN :minWeight ELSE minWeight END, " +
+            " maxWeight = CASE WHEN entryCount = 0 OR :maxWeight > maxWeight THEN :maxWeight ELSE maxWeight END, " +
+            " lastWeight = CASE WHEN entryCount = 0 OR :lastDate > lastDate " +
+            "  OR (:lastDate = lastDate AND :lastId > lastId) THEN :lastWeight ELSE lastWeight END, " +
+            " lastId = CASE WHEN entryCount = 0 OR :lastDate > lastDate " +
+            "  OR (:lastDate = lastDate AND :lastId > lastId) THEN :lastId ELSE lastId END, " +
+            " lastDate = CASE WHEN entryCount = 0 OR :lastDate > lastDate THEN :lastDate ELSE lastDate END, " +
+            " sumWeight = sumWeight + :sumWeight, " +
+            " entryCount = entryCount + :count " +
+            "WHERE userId = :userId AND period = :period AND bucket = :bucket")
+    void applyInsertsToRollup(int userId, int period, int bucket, int count, double minWeight,
+                              double maxWeight, double sumWeight, double lastWeight, int lastDate, int lastId);
+
+    @Query("DELETE FROM weight_rollups WHERE userId = :userId AND period = :period AND bucket = :bucket")
+    void deleteRollup(int userId, int period, int bucket);
+
+    //Recomputes a rollup row from the entries between bucket and toDate, after deleteRollup.
+    //GROUP BY makes a period with no entries left give no row instead of a row of NULLs
+    @Query("INSERT INTO weight_rollups " +
+            "(userId, period, bucket, entryCount, minWeight, maxWeight, sumWeight, lastWeight, lastDate, lastId) " +
+            "SELECT :userId, :period, :bucket, COUNT(*), MIN(weight), MAX(weight), SUM(weight), " +
+            " (SELECT weight FROM weight_entries WHERE userId = :userId AND date BETWEEN :bucket AND :toDate " +
+            "  ORDER BY date DESC, id DESC LIMIT 1), " +
+            " MAX(date), " +
+            " (SELECT id FROM weight_entries WHERE userId = :userId AND date BETWEEN :bucket AND :toDate " +
+            "  ORDER BY date DESC, id DESC LIMIT 1) " +
+            "FROM weight_entries WHERE userId = :userId AND date BETWEEN :bucket AND :toDate GROUP BY userId")
+    void insertRollupFromEntries(int userId, int period, int bucket, int toDate);
+
+    //Finds the local copy of an entry by its syncId, or null if this device does not have it
+    @Query("SELECT * FROM weight_entries WHERE userId = :userId AND syncId = :syncId")
+    WeightEntry getEntryBySyncId(int userId, long syncId);
+
+    //Inserts an entry and updates the user's stats row in one transaction. Returns the new row id
+    @Transaction
+    default long insertAndUpdateStats(WeightEntry entry) {
+        long id = insert(entry);
+        int day = entry.getEpochDay();
+        double weight = entry.getWeight();
+        ensureStatsRow(entry.getUserId());
+        applyInsertsToStats(entry.getUserId(), 1, day, weight, day, weight, weight, weight);
+        refreshBmi(entry.getUserId());
+        logInsert(entry.getUserId(), entry.getSyncId(), day, weight, System.currentTimeMillis());
+        RollupBatch rollups = new RollupBatch();
+        rollups.insert(entry.getUserId(), day, weight, (int) id);
+        rollups.apply(this);
+        return id;
+    }
+
+    //Inserts a batch of one user's entries and folds the whole batch into the stats row with a
+    //single UPDATE, all in one transaction. Used by the importer to write in chunks
+    @Transaction
+    default void insertAllAndUpdateStats(int userId, List<WeightEntry> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long[] ids = insertAll(batch);
+        ensureStatsRow(userId);
+        foldInsertsIntoStats(userId, batch);
+        refreshBmi(userId);
+        long now = System.currentTimeMillis();
+        RollupBatch rollups = new RollupBatch();
+        for (int i = 0; i < batch.size(); i++) {
+            WeightEntry e = batch.get(i);
+            logInsert(userId, e.getSyncId(), e.getEpochDay(), e.getWeight(), now);
+            rollups.insert(userId, e.getEpochDay(), e.getWeight(), (int) ids[i]);
+        }
+        rollups.apply(this);
+    }
+
+    //Applies a batch of queued writes, possibly for several users, in one transaction, so the
+    //database commits once and Room notifies observers once. Deleted entries must already be in the
+    //database. Returns the new row ids of the inserts in list order
+    @Transaction
+    default long[] applyWrites(List<WeightEntry> inserts, List<WeightEntry> deletes) {
+        long now = System.currentTimeMillis();
+        if (!deletes.isEmpty()) {
+            //Logged first, while the rows can still be read
+            for (WeightEntry e : deletes) {
+                logDelete(e.getId(), now);
+            }
+            deleteAll(deletes);
+        }
+        long[] ids = inserts.isEmpty() ? new long[0] : insertAll(inserts);
+        //A delete can remove the current min/max/first/latest, so those users get one full
+        //rebuild. Users with only inserts get the cheaper incremental update
+        Map<Integer, List<WeightEntry>> insertsByUser = new LinkedHashMap<>();
+        for (WeightEntry e : inserts) {
+            List<WeightEntry> forUser = insertsByUser.get(e.getUserId());
+            if (forUser == null) {
+                forUser = new ArrayList<>();
+                insertsByUser.put(e.getUserId(), forUser);
+            }
+            forUser.add(e);
+        }
+        Set<Integer> rebuilt = new HashSet<>();
+        for (WeightEntry e : deletes) {
+            if (rebuilt.add(e.getUserId())) {
+                rebuildStats(e.getUserId());
+                refreshBmi(e.getUserId());
+            }
+        }
+        for (Map.Entry<Integer, List<WeightEntry>> user : insertsByUser.entrySet()) {
+            if (rebuilt.contains(user.getKey())) {
+                continue;
+            }
+            ensureStatsRow(user.getKey());
+            foldInsertsIntoStats(user.getKey(), user.getValue());
+            refreshBmi(user.getKey());
+        }
+        for (WeightEntry e : inserts) {
+            logInsert(e.getUserId(), e.getSyncId(), e.getEpochDay(), e.getWeight(), now);
+        }
+        RollupBatch rollups = new RollupBatch();
+        for (WeightEntry e : deletes) {
+            rollups.recompute(e.getUserId(), e.getEpochDay());
+        }
+        for (int i = 0; i < inserts.size(); i++) {
+            WeightEntry e = inserts.get(i);
+            rollups.insert(e.getUserId(), e.getEpochDay(), e.getWeight(), (int) ids[i]);
+        }
+        rollups.apply(this);
+        return ids;
+    }
+
+    //Updates a user's stats row for newly inserted entries with a single UPDATE. The stats row must
+    //exist. Summarizes the entries the same way the stats row orders them: the first of the
+    //earliest date and the last of the latest date win
+    default void foldInsertsIntoStats(int userId, List<WeightEntry> batch) {
+        int firstDate = Integer.MAX_VALUE;
+        int latestDate = Integer.MIN_VALUE;
+        double firstWeight = 0;
+        double latestWeight = 0;
+        double minWeight = Double.MAX_VALUE;
+        double maxWeight = -Double.MAX_VALUE;
+        for (WeightEntry e : batch) {
+            int day = e.getEpochDay();
+            double weight = e.getWeight();
+            if (day < firstDate) {
+                firstDate = day;
+                firstWeight = weight;
+            }
+            if (day >= latestDate) {
+                latestDate = day;
+                latestWeight = weight;
+            }
+            minWeight = Math.min(minWeight, weight);
+            maxWeight = Math.max(maxWeight, weight);
+        }
+        applyInsertsToStats(userId, batch.size(), firstDate, firstWeight,
+                latestDate, latestWeight, minWeight, maxWeight);
+    }
+
+    //Deletes an entry and recomputes the user's stats row in one transaction
+    @Transaction
+    default void deleteAndUpdateStats(WeightEntry entry) {
+        logDelete(entry.getId(), System.currentTimeMillis());
+        delete(entry);
+        rebuildStats(entry.getUserId());
+        refreshBmi(entry.getUserId());
+        RollupBatch rollups = new RollupBatch();
+        rollups.recompute(entry.getUserId(), entry.getEpochDay());
+        rollups.apply(this);
+    }
+
+    //Applies changes downloaded by sync in one transaction. Each change adds, replaces or removes
+    //the one entry with its syncId; other entries on the same date are left alone. An entry changed
+    //locally after pendingAfterVersion at a later time than the download is left alone; that local
+    //change is uploaded next and wins on the server. Nothing is written to change_log, so
+    //downloads are not uploaded again
+    @Transaction
+    default void applySyncedChanges(int userId, List<ChangeLogEntry> changes, long pendingAfterVersion) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        RollupBatch rollups = new RollupBatch();
+        for (ChangeLogEntry c : changes) {
+            Long localTime = getLatestChangeTime(userId, c.getSyncId(), pendingAfterVersion);
+            if (localTime != null && localTime > c.getUpdatedAt()) {
+                continue;
+            }
+            WeightEntry local = getEntryBySyncId(userId, c.getSyncId());
+            if (local != null) {
+                //Already has this value, so the row and its id stay as they are
+                if (!c.isDeleted() && local.getEpochDay() == c.getEpochDay()
+                        && Double.compare(local.getWeight(), c.getWeight()) == 0) {
+                    continue;
+                }
+                delete(local);
+                rollups.recompute(userId, local.getEpochDay());
+            }
+            if (!c.isDeleted()) {
+                WeightEntry entry = new WeightEntry(c.getEpochDay(), c.getWeight(), userId);
+                entry.setSyncId(c.getSyncId());
+                insert(entry);
+                rollups.recompute(userId, c.getEpochDay());
+            }
+        }
+        //One rebuild for the whole batch instead of one per change
+        rebuildStats(userId);
+        refreshBmi(userId);
+        //Each touched day, week and month is recomputed once, after every change is written
+        rollups.apply(this);
+    }
 }
\ No newline at end of file
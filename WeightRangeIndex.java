@@ -0,0 +1,115 @@
+/*
+ * Part of planned enhancement: Category 2 - Algorithms and Data Structures
+ * Created: 10/17/26
+ */
+package com.CS360.weighttracker.util;
+
+import com.CS360.weighttracker.model.WeightRangeStats;
+
+//Answers "lowest, highest, average and count between two dates" over a WeightSeries in O(log n)
+//instead of scanning every row in the range. Works alongside HashMapWeightLookup, which only
+//answers exact dates.
+
+//A segment tree stored in flat arrays: leaves n..2n-1 hold the weights in date order and each
+//node i above them holds the min, max and sum of nodes 2i and 2i+1. Building it is O(n). The
+//date range is turned into row positions with the series' binary search, then the tree is
+//walked bottom-up from both ends of the range.
+
+//The index is a snapshot. If the series is patched with insert/remove, build a new index.
+
+/*
+ * The bottom-up segment tree layout is based on:
+ *   Al.Cash. "Efficient and easy segment trees." Codeforces, 2015.
+ *   https://codeforces.com/blog/entry/18051
+ */
+public final class WeightRangeIndex {
+    private static final Metrics.Histogram BUILD_TIME = Metrics.histogram("lookup.buildRangeIndex");
+
+    private final WeightSeries series;
+    private final int n;
+    private final double[] min;
+    private final double[] max;
+    private final double[] sum;
+
+    private WeightRangeIndex(WeightSeries series) {
+        this.series = series;
+        this.n = series.size();
+        this.min = new double[2 * n];
+        this.max = new double[2 * n];
+        this.sum = new double[2 * n];
+        for (int i = 0; i < n; i++) {
+            double w = series.weightAt(i);
+            min[n + i] = w;
+            max[n + i] = w;
+            sum[n + i] = w;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            min[i] = Math.min(min[2 * i], min[2 * i + 1]);
+            max[i] = Math.max(max[2 * i], max[2 * i + 1]);
+            sum[i] = sum[2 * i] + sum[2 * i + 1];
+        }
+    }
+
+    //Builds the index for the series as it is now
+    public static WeightRangeIndex build(WeightSeries series) {
+        long start = Metrics.now();
+        WeightRangeIndex index = new WeightRangeIndex(series);
+        BUILD_TIME.recordSince(start);
+        return index;
+    }
+
+    //Stats for every entry from fromDay to toDay (epoch days, both inclusive). The count is 0 and
+    //the weights null if no entry falls in the range
+    public WeightRangeStats query(int fromDay, int toDay) {
+        WeightRangeStats stats = new WeightRangeStats();
+        int from = series.ceilingIndex(fromDay);
+        int to = series.floorIndex(toDay);
+        if (from < 0 || to < 0 || from > to) {
+            return stats;
+        }
+        double lo = Double.MAX_VALUE;
+        double hi = -Double.MAX_VALUE;
+        double total = 0;
+        //Half-open range [l, r) of leaves. Each step folds in the nodes that stick out on either
+        //side and moves both ends up one level
+        for (int l = from + n, r = to + 1 + n; l < r; l >>= 1, r >>= 1) {
+            if ((l & 1) == 1) {
+                lo = Math.min(lo, min[l]);
+                hi = Math.max(hi, max[l]);
+                total += sum[l];
+                l++;
+            }
+            if ((r & 1) == 1) {
+                r--;
+                lo = Math.min(lo, min[r]);
+                hi = Math.max(hi, max[r]);
+                total += sum[r];
+            }
+        }
+        stats.setEntryCount(to - from + 1);
+        stats.setMinWeight(lo);
+        stats.setMaxWeight(hi);
+        stats.setTotalWeight(total);
+        return stats;
+    }
+
+    //Position of the entry closest to the given day, or -1 if the series is empty. If two days are
+    //equally close the earlier one wins; on a day with several entries the last one is returned,
+    //the same as an exact lookup
+    public int nearestIndex(int epochDay) {
+        int before = series.floorIndex(epochDay);
+        int after = series.ceilingIndex(epochDay);
+        if (after < 0) {
+            return before;
+        }
+        if (before >= 0) {
+            long gapBefore = (long) epochDay - series.dayAt(before);
+            long gapAfter = (long) series.dayAt(after) - epochDay;
+            if (gapBefore <= gapAfter) {
+                return before;
+            }
+        }
+        //Moves to the last entry on that day
+        return series.indexOf(series.dayAt(after));
+    }
+}
@@ -0,0 +1,56 @@
+package com.CS360.weighttracker.model;
+
+//Summary of the weights between two dates: how many entries, lowest, highest and average
+
+//Part of Category two planned enhancement
+//This is not a table. Room fills it from the weight_rollups rows for dates outside the
+//dashboard's loaded window, and WeightRangeIndex fills it for dates inside it
+public class WeightRangeStats {
+    private int entryCount;
+    //Null when there are no entries in the range
+    private Double minWeight;
+    private Double maxWeight;
+    //Sum of every weight in the range, used to work out the average
+    private Double totalWeight;
+
+    // Getters and Setters
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    public void setEntryCount(int entryCount) {
+        this.entryCount = entryCount;
+    }
+
+    public Double getMinWeight() {
+        return minWeight;
+    }
+
+    public void setMinWeight(Double minWeight) {
+        this.minWeight = minWeight;
+    }
+
+    public Double getMaxWeight() {
+        return maxWeight;
+    }
+
+    public void setMaxWeight(Double maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    public Double getTotalWeight() {
+        return totalWeight;
+    }
+
+    public void setTotalWeight(Double totalWeight) {
+        this.totalWeight = totalWeight;
+    }
+
+    //Average weight in the range. Null if there are no entries
+    public Double getAverageWeight() {
+        if (entryCount == 0 || totalWeight == null) {
+            return null;
+        }
+        return totalWeight / entryCount;
+    }
+}
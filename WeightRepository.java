@@ -1,60 +1,509 @@
-/*
- * Part of planned enhancement: Category 1 - Software Design: Refactoring repository layer
- * Christopher DeMello
- * Professor Conlan
- * CS499
- * Created: 1/21/26
- */
-package com.CS360.weighttracker.repository;
-
-import androidx.lifecycle.LiveData;
-
-import com.CS360.weighttracker.Dao.WeightEntryDAO;
-import com.CS360.weighttracker.model.WeightEntry;
-
-import java.util.List;
-
-//This class acts as an abstraction layer between business logic and the Room database. It centralizes
-//operations related to WeightEntry objects and hides direct DAO access from the UI layer
-public class WeightRepository {
-    private final WeightEntryDAO weightDao;
-
-    public WeightRepository(WeightEntryDAO weightDao) {
-        this.weightDao = weightDao;
-    }
-    //Gets all weight entries (weight and date) associated to user id
-    public List<WeightEntry> getEntries(int userId) {
-        return weightDao.getAllWeightEntries(userId);
-    }
-    //Used to stop manually requerying data. This will be implemented in the line chart
-    public LiveData<List<WeightEntry>> observeEntries(int userId) {
-        return weightDao.observeAllWeightEntries(userId);
-    }
-    //Adds new  weight entry to database
-    public void addEntry(WeightEntry entry) {
-        weightDao.insert(entry);
-    }
-    //Deletes a specific weight entry from database
-    public void deleteEntry(WeightEntry entry) {
-        weightDao.delete(entry);
-    }
-
-    //Added new methods to grab stats for BMI and total weight lost
-    //Part of planned enhancement. Category 3: Databases
-
-    //Gets Total weight lost stat
-    public LiveData<Double> observeTotalWeightLost(int userId) {
-        return weightDao.observeTotalWeightLost(userId);
-    }
-
-    //Gets BMI stat
-    public LiveData<Double> observeBMI(int userId) {
-        return weightDao.observeBMI(userId);
-    }
-
-    //Gets most recent weight
-    public LiveData<Double> observeLastestWeight(int userId) {
-        return weightDao.observeLatestWeight(userId);
-    }
-
-}
+/*
+ * Part of planned enhancement: Category 1 - Software Design: Refactoring repository layer
+ * Christopher DeMello
+ * Professor Conlan
+ * CS499
+ * Created: 1/21/26
+ */
+package com.CS360.weighttracker.repository;
+
+import android.database.Cursor;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Transformations;
+
+import com.CS360.weighttracker.Dao.WeightEntryDAO;
+import com.CS360.weighttracker.model.ChangeLogEntry;
+import com.CS360.weighttracker.model.DashboardStats;
+import com.CS360.weighttracker.model.UserStats;
+import com.CS360.weighttracker.model.WeightEntry;
+import com.CS360.weighttracker.model.WeightRangeStats;
+import com.CS360.weighttracker.model.WeightRollup;
+import com.CS360.weighttracker.util.EpochDays;
+import com.CS360.weighttracker.util.Metrics;
+import com.CS360.weighttracker.util.SeriesSnapshot;
+import com.CS360.weighttracker.util.WeightSeries;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+//Dates are passed in and out of the repository as YYYY-MM-DD strings and converted to the stored
+//epoch days here, so callers do not need to know how the database stores them
+
+//This class acts as an abstraction layer between business logic and the Room database. It centralizes
+//operations related to WeightEntry objects and hides direct DAO access from the UI layer
+public class WeightRepository {
+    //Receives each insert and delete made through a repository, so screens can patch their data
+    //in place instead of rebuilding from a full query. Callbacks run on the thread that did the write.
+    public interface ChangeListener {
+        void onEntryInserted(WeightEntry entry);
+
+        void onEntryDeleted(WeightEntry entry);
+
+        //Called once after a bulk write such as an import, instead of once per entry. Listeners
+        //that keep their own copy of the data should reload it
+        default void onEntriesReplaced(int userId) {}
+
+        //Called once per batch committed by addEntryAsync/deleteEntryAsync. By default each entry
+        //is reported on its own; listeners that post to the main thread can override this to post
+        //once per batch
+        default void onEntriesWritten(List<WeightEntry> inserted, List<WeightEntry> deleted) {
+            for (WeightEntry entry : inserted) {
+                onEntryInserted(entry);
+            }
+            for (WeightEntry entry : deleted) {
+                onEntryDeleted(entry);
+            }
+        }
+
+        //Called after any write that can change what a user's queries return, once per user per
+        //write or batch, after the callbacks above. Also called by refreshBmi, which changes no entries
+        default void onUserChanged(int userId) {}
+    }
+
+    //Epoch day cursor for getEntriesPageAfter that starts at the user's first entry
+    public static final int FROM_START = Integer.MIN_VALUE;
+
+    //Static so writes from any Activity's repository reach every listener in the process
+    private static final List<ChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
+    //Time spent in each kind of database call, to tell slow queries from slow rendering
+    private static final Metrics.Histogram INSERT_TIME = Metrics.histogram("db.insertEntry");
+    private static final Metrics.Histogram DELETE_TIME = Metrics.histogram("db.deleteEntry");
+    private static final Metrics.Histogram BATCH_TIME = Metrics.histogram("db.insertBatch");
+    private static final Metrics.Histogram PAGE_TIME = Metrics.histogram("db.page");
+    private static final Metrics.Histogram LOOKUP_TIME = Metrics.histogram("db.lookup");
+    private static final Metrics.Histogram SERIES_LOAD_TIME = Metrics.histogram("db.loadSeries");
+
+    //Full history of recently used users, shared by every repository in the process
+    private static final WeightSeriesCache seriesCache =
+            new WeightSeriesCache(WeightSeriesCache.DEFAULT_BUDGET_BYTES);
+    //Coalescing writer shared by every repository, so bursts from any screen share transactions.
+    //Started by the first async write
+    private static WeightWriteQueue writeQueue;
+
+    private final WeightEntryDAO weightDao;
+
+    public WeightRepository(WeightEntryDAO weightDao) {
+        this.weightDao = weightDao;
+    }
+    //Gets all weight entries (weight and date) associated to user id
+    public List<WeightEntry> getEntries(int userId) {
+        return weightDao.getAllWeightEntries(userId);
+    }
+    //Used to stop manually requerying data. This will be implemented in the line chart
+    public LiveData<List<WeightEntry>> observeEntries(int userId) {
+        return weightDao.observeAllWeightEntries(userId);
+    }
+
+    //The stream* methods below are like their observe* versions, but re-query only when this
+    //user's data is written (not when any row of the table changes), fold bursts of writes into
+    //one query, and emit only when the result is different from the last one. See UserLiveData
+
+    //Every method below that takes dates comes in two forms: YYYY-MM-DD strings, which throw
+    //IllegalArgumentException if a date is not a real calendar day, and epoch days (see EpochDays)
+    //for callers that already work in days
+
+    //Watches the entries between fromDate and toDate (inclusive, YYYY-MM-DD)
+    public LiveData<List<WeightEntry>> streamEntriesInRange(int userId, String fromDate, String toDate) {
+        return streamEntriesInRange(userId, parseDate(fromDate), parseDate(toDate));
+    }
+
+    public LiveData<List<WeightEntry>> streamEntriesInRange(int userId, int fromDay, int toDay) {
+        return new UserLiveData<>(userId, this, () -> weightDao.getEntriesInRange(userId, fromDay, toDay));
+    }
+
+    //Watches every dashboard stat together
+    public LiveData<DashboardStats> streamDashboardStats(int userId) {
+        return new UserLiveData<>(userId, this, () -> weightDao.getDashboardStats(userId));
+    }
+
+    //Watches total weight lost only. A new entry that leaves it unchanged does not emit
+    public LiveData<Double> streamTotalWeightLost(int userId) {
+        return new UserLiveData<>(userId, this, () -> {
+            DashboardStats stats = weightDao.getDashboardStats(userId);
+            return stats == null ? null : stats.getTotalWeightLost();
+        });
+    }
+
+    //Watches BMI only
+    public LiveData<Double> streamBMI(int userId) {
+        return new UserLiveData<>(userId, this, () -> {
+            DashboardStats stats = weightDao.getDashboardStats(userId);
+            return stats == null ? null : stats.getBmi();
+        });
+    }
+    //Gets one page of entries in date order after the given (date, id) cursor. Pass the date and id
+    //of the last row from the previous page, or a null or empty date and id 0 for the first page
+    public List<WeightEntry> getEntriesPageAfter(int userId, String afterDate, int afterId, int limit) {
+        int afterDay = afterDate == null || afterDate.isEmpty() ? FROM_START : parseDate(afterDate);
+        return getEntriesPageAfter(userId, afterDay, afterId, limit);
+    }
+
+    //Same with the cursor as an epoch day. Pass FROM_START for the first page
+    public List<WeightEntry> getEntriesPageAfter(int userId, int afterDay, int afterId, int limit) {
+        long start = Metrics.now();
+        List<WeightEntry> page = weightDao.getEntriesPageAfter(userId, afterDay, afterId, limit);
+        PAGE_TIME.recordSince(start);
+        return page;
+    }
+    //Gets one page of entries going back in time from the given (date, id) cursor, newest first.
+    //Passing id 0 returns only rows strictly before the date
+    public List<WeightEntry> getEntriesPageBefore(int userId, String beforeDate, int beforeId, int limit) {
+        return getEntriesPageBefore(userId, parseDate(beforeDate), beforeId, limit);
+    }
+
+    public List<WeightEntry> getEntriesPageBefore(int userId, int beforeDay, int beforeId, int limit) {
+        long start = Metrics.now();
+        List<WeightEntry> page = weightDao.getEntriesPageBefore(userId, beforeDay, beforeId, limit);
+        PAGE_TIME.recordSince(start);
+        return page;
+    }
+    //Watches only the entries between fromDate and toDate (inclusive, YYYY-MM-DD)
+    public LiveData<List<WeightEntry>> observeEntriesInRange(int userId, String fromDate, String toDate) {
+        return observeEntriesInRange(userId, parseDate(fromDate), parseDate(toDate));
+    }
+
+    public LiveData<List<WeightEntry>> observeEntriesInRange(int userId, int fromDay, int toDay) {
+        return weightDao.observeEntriesInRange(userId, fromDay, toDay);
+    }
+    //Finds the latest entry for one date straight from the database. Returns null if none exists
+    public WeightEntry findEntryOnDate(int userId, String date) {
+        return findEntryOnDate(userId, parseDate(date));
+    }
+
+    public WeightEntry findEntryOnDate(int userId, int epochDay) {
+        long start = Metrics.now();
+        WeightEntry entry = weightDao.getLatestEntryOnDate(userId, epochDay);
+        LOOKUP_TIME.recordSince(start);
+        return entry;
+    }
+    //Gets one row per day, week or month (WeightRollup.DAY, WEEK or MONTH) between two dates
+    //(inclusive, YYYY-MM-DD), each with the count, low, high, total and latest weight of that
+    //period. Month and year views read these instead of every entry. The first row is the period
+    //that contains fromDate. Must not be called on the main thread
+    public List<WeightRollup> getRollups(int userId, int period, String fromDate, String toDate) {
+        return getRollups(userId, period, parseDate(fromDate), parseDate(toDate));
+    }
+
+    public List<WeightRollup> getRollups(int userId, int period, int fromDay, int toDay) {
+        int from = WeightRollup.bucketOf(period, fromDay);
+        long start = Metrics.now();
+        List<WeightRollup> rollups = weightDao.getRollups(userId, period, from, toDay);
+        LOOKUP_TIME.recordSince(start);
+        return rollups;
+    }
+
+    //Watches the rollups between two dates. Turn each list into chart points with
+    //WeightSeries.fromRollups
+    public LiveData<List<WeightRollup>> streamRollups(int userId, int period, String fromDate, String toDate) {
+        return streamRollups(userId, period, parseDate(fromDate), parseDate(toDate));
+    }
+
+    public LiveData<List<WeightRollup>> streamRollups(int userId, int period, int fromDay, int toDay) {
+        int from = WeightRollup.bucketOf(period, fromDay);
+        return new UserLiveData<>(userId, this, () -> weightDao.getRollups(userId, period, from, toDay));
+    }
+
+    //Gets count, min, max and total weight between two dates (inclusive, YYYY-MM-DD). Read from
+    //the monthly and daily rollups, so a long range does not touch every entry
+    public WeightRangeStats getRangeStats(int userId, String fromDate, String toDate) {
+        return getRangeStats(userId, parseDate(fromDate), parseDate(toDate));
+    }
+
+    public WeightRangeStats getRangeStats(int userId, int fromDay, int toDay) {
+        long start = Metrics.now();
+        WeightRangeStats stats = weightDao.getRangeStats(userId, fromDay, toDay);
+        LOOKUP_TIME.recordSince(start);
+        return stats;
+    }
+
+    //Parses a YYYY-MM-DD argument. A bad date would otherwise reach the query as EpochDays.INVALID
+    //and quietly mean "from the beginning" or an empty range
+    private static int parseDate(String date) {
+        int day = EpochDays.parse(date);
+        if (day == EpochDays.INVALID) {
+            throw new IllegalArgumentException("Not a YYYY-MM-DD date: " + date);
+        }
+        return day;
+    }
+
+    //Gets a user's whole history from the shared cache only if another screen already loaded it
+    //with getSeries. Returns null instead of loading it, for one-off lookups that are cheaper as a
+    //point query. The series is read-only, the same as getSeries
+    public WeightSeries getCachedSeries(int userId) {
+        return seriesCache.get(userId);
+    }
+
+    //Gets a user's whole history as a date-sorted series. Served from the shared cache when another
+    //screen already loaded it, otherwise streamed from the database once and cached.
+    //The series is shared between threads, so it is read-only; take a copy() if it needs patching.
+    //For screens that show the whole history, such as the entry list. The dashboard only loads its
+    //window and uses getCachedSeries. Must not be called on the main thread
+    public WeightSeries getSeries(int userId) {
+        WeightSeries cached = getCachedSeries(userId);
+        if (cached != null) {
+            return cached;
+        }
+        //Read before loading, so a write that lands during the load keeps this result out of the cache
+        long version = seriesCache.version(userId);
+        long start = Metrics.now();
+        WeightSeries loaded;
+        try (Cursor cursor = weightDao.getEntriesCursor(userId)) {
+            loaded = WeightSeries.withCapacity(cursor.getCount());
+            while (cursor.moveToNext()) {
+                //Rows come in date order, so each insert is an append
+                loaded.insert(cursor.getInt(0), cursor.getDouble(1), cursor.getInt(2));
+            }
+        }
+        SERIES_LOAD_TIME.recordSince(start);
+        WeightSeries shared = loaded.asReadOnly();
+        seriesCache.put(userId, version, shared);
+        return shared;
+    }
+
+    //Saves the user's entries on or after fromDay (epoch day) with their total weight lost and BMI,
+    //so the dashboard can draw them on its next cold start before the database is open. The file is
+    //stamped with the user's stats version, which every write bumps, and is not rewritten while
+    //that version is unchanged. Returns true if the file was written. Must not be called on the
+    //main thread
+    public boolean saveSeriesSnapshot(File file, int userId, int fromDay) throws IOException {
+        long version = statsVersion(userId);
+        if (SeriesSnapshot.readVersion(file, userId) == version) {
+            return false;
+        }
+        DashboardStats stats = weightDao.getDashboardStats(userId);
+        WeightSeries series = WeightSeries.fromEntries(
+                weightDao.getEntriesInRange(userId, fromDay, Integer.MAX_VALUE));
+        //If the version moved, a write landed while loading and the rows may not match it. The next
+        //save will try again
+        if (statsVersion(userId) != version) {
+            return false;
+        }
+        SeriesSnapshot.write(file, userId, version, series, fromDay,
+                stats == null ? null : stats.getTotalWeightLost(),
+                stats == null ? null : stats.getBmi());
+        return true;
+    }
+
+    //Stats version of a user, 0 before their first entry
+    private long statsVersion(int userId) {
+        Long version = weightDao.getStatsVersion(userId);
+        return version == null ? 0 : version;
+    }
+
+    //Sets how much memory the shared series cache may use across all users. Least recently used
+    //users are dropped first when it is full
+    public static void setSeriesCacheBudget(long bytes) {
+        seriesCache.setBudgetBytes(bytes);
+    }
+
+    //Empties the shared series cache, for example from onTrimMemory
+    public static void clearSeriesCache() {
+        seriesCache.clear();
+    }
+
+    //Cache counters for a debug screen. They are also in Metrics as cache.series.*
+    public static long getSeriesCacheHits() {
+        return seriesCache.hits();
+    }
+
+    public static long getSeriesCacheMisses() {
+        return seriesCache.misses();
+    }
+
+    public static long getSeriesCacheEvictions() {
+        return seriesCache.evictions();
+    }
+
+    public static long getSeriesCacheBytes() {
+        return seriesCache.bytes();
+    }
+
+    //Adds new  weight entry to database. The user's stats row is updated in the same transaction
+    public void addEntry(WeightEntry entry) {
+        long start = Metrics.now();
+        long id = weightDao.insertAndUpdateStats(entry);
+        INSERT_TIME.recordSince(start);
+        seriesCache.invalidate(entry.getUserId());
+        //Stores the generated id so listeners can match the entry later
+        entry.setId((int) id);
+        for (ChangeListener listener : changeListeners) {
+            listener.onEntryInserted(entry);
+            listener.onUserChanged(entry.getUserId());
+        }
+    }
+
+    //Queues an entry to be added on the background writer. Writes that arrive within a few
+    //milliseconds of each other share one transaction, so a burst costs one commit and one
+    //dashboard refresh. The future completes with the entry (id set) once it is saved, and fails
+    //right away with RejectedExecutionException if too many writes are already waiting.
+    //Safe to call from the main thread
+    public CompletableFuture<WeightEntry> addEntryAsync(WeightEntry entry) {
+        return writeQueue().insert(entry);
+    }
+
+    //Queues an entry to be deleted on the background writer, batched the same way as addEntryAsync
+    public CompletableFuture<WeightEntry> deleteEntryAsync(WeightEntry entry) {
+        return writeQueue().delete(entry);
+    }
+
+    private WeightWriteQueue writeQueue() {
+        synchronized (WeightRepository.class) {
+            if (writeQueue == null) {
+                //Every DAO comes from the one AppDatabase, so whichever repository starts the
+                //writer can serve all of them
+                writeQueue = new WeightWriteQueue(weightDao, WeightRepository::onBatchCommitted);
+            }
+            return writeQueue;
+        }
+    }
+
+    //Runs on the writer thread after each batch commits
+    private static void onBatchCommitted(List<WeightEntry> inserted, List<WeightEntry> deleted) {
+        for (WeightEntry entry : inserted) {
+            seriesCache.invalidate(entry.getUserId());
+        }
+        for (WeightEntry entry : deleted) {
+            seriesCache.invalidate(entry.getUserId());
+        }
+        //Each user in the batch is reported once
+        Set<Integer> users = new LinkedHashSet<>();
+        for (WeightEntry entry : inserted) {
+            users.add(entry.getUserId());
+        }
+        for (WeightEntry entry : deleted) {
+            users.add(entry.getUserId());
+        }
+        for (ChangeListener listener : changeListeners) {
+            listener.onEntriesWritten(inserted, deleted);
+            for (int userId : users) {
+                listener.onUserChanged(userId);
+            }
+        }
+    }
+    //Deletes a specific weight entry from database and recomputes the user's stats row
+    public void deleteEntry(WeightEntry entry) {
+        long start = Metrics.now();
+        weightDao.deleteAndUpdateStats(entry);
+        DELETE_TIME.recordSince(start);
+        seriesCache.invalidate(entry.getUserId());
+        for (ChangeListener listener : changeListeners) {
+            listener.onEntryDeleted(entry);
+            listener.onUserChanged(entry.getUserId());
+        }
+    }
+
+    //Writes a batch of one user's entries in a single transaction and updates their stats row.
+    //Listeners are not told until notifyEntriesReplaced is called, so an import of many batches
+    //causes one reload instead of one per batch
+    public void addEntries(int userId, List<WeightEntry> batch) {
+        long start = Metrics.now();
+        weightDao.insertAllAndUpdateStats(userId, batch);
+        BATCH_TIME.recordSince(start);
+        seriesCache.invalidate(userId);
+    }
+
+    //Tells listeners that a user's entries were changed in bulk
+    public void notifyEntriesReplaced(int userId) {
+        seriesCache.invalidate(userId);
+        for (ChangeListener listener : changeListeners) {
+            listener.onEntriesReplaced(userId);
+            listener.onUserChanged(userId);
+        }
+    }
+
+    //Gets up to limit changes not yet uploaded by sync, oldest first, one per entry. Pass the
+    //version of the last change the server acknowledged, or 0 for everything
+    public List<ChangeLogEntry> getChangesAfter(int userId, long afterVersion, int limit) {
+        return weightDao.getChangesAfter(userId, afterVersion, limit);
+    }
+
+    //Forgets changes the server has acknowledged
+    public void acknowledgeChanges(int userId, long upToVersion) {
+        weightDao.deleteChangesUpTo(userId, upToVersion);
+    }
+
+    //Writes a batch of changes downloaded by sync in one transaction. Local changes after
+    //pendingAfterVersion that are newer than a download are kept. Like addEntries, listeners are
+    //not told until notifyEntriesReplaced is called
+    public void applySyncedChanges(int userId, List<ChangeLogEntry> changes, long pendingAfterVersion) {
+        long start = Metrics.now();
+        weightDao.applySyncedChanges(userId, changes, pendingAfterVersion);
+        BATCH_TIME.recordSince(start);
+        seriesCache.invalidate(userId);
+    }
+
+    //Opens a cursor over a user's entries (date as epoch day, weight, id) in date order so they can be
+    //streamed out without loading the whole history. The caller must close it
+    public Cursor openEntriesCursor(int userId) {
+        return weightDao.getEntriesCursor(userId);
+    }
+
+    //Starts receiving insert/delete events. Remember to remove the listener when done
+    public void addChangeListener(ChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    //Stops receiving insert/delete events
+    public void removeChangeListener(ChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    //Added new methods to grab stats for BMI and total weight lost
+    //Part of planned enhancement. Category 3: Databases
+
+    //The stats below read the user's user_stats row, which is kept up to date by addEntry and
+    //deleteEntry, so each one is a single primary key read instead of subqueries over every entry
+
+    //Gets the whole stats row (first/latest/min/max weight, entry count, BMI)
+    public LiveData<UserStats> observeUserStats(int userId) {
+        return weightDao.observeUserStats(userId);
+    }
+
+    //Reads the stats row once. Must not be called on the main thread. Returns null if the user
+    //has no entries yet
+    public UserStats getUserStats(int userId) {
+        long start = Metrics.now();
+        UserStats stats = weightDao.getUserStats(userId);
+        LOOKUP_TIME.recordSince(start);
+        return stats;
+    }
+
+    //Gets latest weight, total lost, BMI, entry count and date range together in one query
+    public LiveData<DashboardStats> observeDashboardStats(int userId) {
+        return weightDao.observeDashboardStats(userId);
+    }
+
+    //Gets Total weight lost stat
+    public LiveData<Double> observeTotalWeightLost(int userId) {
+        return Transformations.map(weightDao.observeUserStats(userId),
+                stats -> stats == null ? null : stats.getTotalWeightLost());
+    }
+
+    //Gets BMI stat
+    public LiveData<Double> observeBMI(int userId) {
+        return Transformations.map(weightDao.observeUserStats(userId),
+                stats -> stats == null ? null : stats.getBmi());
+    }
+
+    //Gets most recent weight
+    public LiveData<Double> observeLastestWeight(int userId) {
+        return Transformations.map(weightDao.observeUserStats(userId),
+                stats -> stats == null ? null : stats.getLatestWeight());
+    }
+
+    //Recalculates the stored BMI. Call this after the user's height is changed
+    public void refreshBmi(int userId) {
+        weightDao.refreshBmi(userId);
+        for (ChangeListener listener : changeListeners) {
+            listener.onUserChanged(userId);
+        }
+    }
+
+}
@@ -0,0 +1,189 @@
+package com.CS360.weighttracker.model;
+
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+
+import com.CS360.weighttracker.util.EpochDays;
+
+import java.util.Objects;
+
+//Creates a weight_rollups entity that summarizes a user's entries per day, week and month: how
+//many there are, lowest, highest, total and the latest weight
+
+//Part of Category three planned enhancement
+//Month and year views read one row per week or month instead of every entry. Rows are kept up to
+//date in the same transaction as each entry change. Unlike the old date HashMap index, which kept
+//only the last entry of a day, a day's row counts every weigh-in of that day.
+@Entity(
+        tableName = "weight_rollups",
+        //Also the index for reads: one user and period, a range of buckets
+        primaryKeys = {"userId", "period", "bucket"},
+        foreignKeys = {
+                @ForeignKey(
+                        //Connects to User database
+                        entity = User.class,
+                        parentColumns = "id",
+                        childColumns = "userId",
+                        //If user account is deleted, remove their rollups
+                        onDelete = ForeignKey.CASCADE
+                )
+        })
+
+public class WeightRollup {
+    //Values of period
+    public static final int DAY = 0;
+    public static final int WEEK = 1;
+    public static final int MONTH = 2;
+
+    private int userId;
+    private int period;
+    //Epoch day the period starts on: the day itself, the Monday of the week or the 1st of the month
+    private int bucket;
+    private int entryCount;
+    private double minWeight;
+    private double maxWeight;
+    private double sumWeight;
+    //Latest entry in the period, the one with the highest (date, id)
+    private double lastWeight;
+    private int lastDate;
+    private int lastId;
+
+    //Start of the period of the given kind that contains epochDay
+    public static int bucketOf(int period, int epochDay) {
+        switch (period) {
+            case WEEK:
+                return EpochDays.weekStart(epochDay);
+            case MONTH:
+                return EpochDays.monthStart(epochDay);
+            default:
+                return epochDay;
+        }
+    }
+
+    //Last day of the period that starts on bucket
+    public static int bucketEnd(int period, int bucket) {
+        switch (period) {
+            case WEEK:
+                return bucket + 6;
+            case MONTH:
+                return EpochDays.nextMonthStart(bucket) - 1;
+            default:
+                return bucket;
+        }
+    }
+
+    // Getters and Setters
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public int getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(int period) {
+        this.period = period;
+    }
+
+    public int getBucket() {
+        return bucket;
+    }
+
+    public void setBucket(int bucket) {
+        this.bucket = bucket;
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    public void setEntryCount(int entryCount) {
+        this.entryCount = entryCount;
+    }
+
+    public double getMinWeight() {
+        return minWeight;
+    }
+
+    public void setMinWeight(double minWeight) {
+        this.minWeight = minWeight;
+    }
+
+    public double getMaxWeight() {
+        return maxWeight;
+    }
+
+    public void setMaxWeight(double maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    public double getSumWeight() {
+        return sumWeight;
+    }
+
+    public void setSumWeight(double sumWeight) {
+        this.sumWeight = sumWeight;
+    }
+
+    public double getLastWeight() {
+        return lastWeight;
+    }
+
+    public void setLastWeight(double lastWeight) {
+        this.lastWeight = lastWeight;
+    }
+
+    public int getLastDate() {
+        return lastDate;
+    }
+
+    public void setLastDate(int lastDate) {
+        this.lastDate = lastDate;
+    }
+
+    public int getLastId() {
+        return lastId;
+    }
+
+    public void setLastId(int lastId) {
+        this.lastId = lastId;
+    }
+
+    //Average weight in the period. Rows only exist for periods with at least one entry
+    public double getAverageWeight() {
+        return sumWeight / entryCount;
+    }
+
+    //Compares every column, so observers can tell a re-emitted list with the same rows from a
+    //real change
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof WeightRollup)) {
+            return false;
+        }
+        WeightRollup other = (WeightRollup) o;
+        return userId == other.userId
+                && period == other.period
+                && bucket == other.bucket
+                && entryCount == other.entryCount
+                && Double.compare(minWeight, other.minWeight) == 0
+                && Double.compare(maxWeight, other.maxWeight) == 0
+                && Double.compare(sumWeight, other.sumWeight) == 0
+                && Double.compare(lastWeight, other.lastWeight) == 0
+                && lastDate == other.lastDate
+                && lastId == other.lastId;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(userId, period, bucket, entryCount, minWeight, maxWeight, sumWeight,
+                lastWeight, lastDate, lastId);
+    }
+}
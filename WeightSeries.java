@@ -0,0 +1,292 @@
+/*
+ * Part of planned enhancement: Category 2 - Algorithms and Data Structures
+ * Created: 10/17/26
+ */
+package com.CS360.weighttracker.util;
+
+import com.CS360.weighttracker.model.WeightEntry;
+import com.CS360.weighttracker.model.WeightRollup;
+
+import java.util.Arrays;
+import java.util.List;
+
+//A compact, date-sorted copy of a user's weight history stored as parallel primitive arrays.
+//Each row costs 16 bytes (int epoch day + double weight + int entry id) instead of a HashMap node,
+//a date String key and a boxed WeightEntry. Lookups use binary search, which is O(log n) and
+//allocates nothing.
+
+//Rows with the same date are all kept, in the order they were given. An exact lookup returns the
+//last one, which matches the old HashMap index where the last entry for a date won.
+
+//The series can be patched in place with insert/remove when the repository reports a change, so a
+//new entry does not require rebuilding the whole history. Patching is not thread-safe: a series
+//that is patched must stay on one thread (the dashboard's stays on the main thread). A series that
+//is shared between threads, like the ones in WeightRepository's cache, is handed out through
+//asReadOnly, whose insert and remove throw; callers that need to patch it take a copy().
+public final class WeightSeries {
+    private int[] days;
+    private double[] weights;
+    private int[] ids;
+    private int size;
+    private final boolean readOnly;
+
+    private WeightSeries(int[] days, double[] weights, int[] ids, int size, boolean readOnly) {
+        this.days = days;
+        this.weights = weights;
+        this.ids = ids;
+        this.size = size;
+        this.readOnly = readOnly;
+    }
+
+    //Creates a new empty series
+    public static WeightSeries empty() {
+        return new WeightSeries(new int[0], new double[0], new int[0], 0, false);
+    }
+
+    //Creates an empty series with room for capacity rows, for callers that know the row count
+    //up front and append in date order
+    public static WeightSeries withCapacity(int capacity) {
+        return new WeightSeries(new int[capacity], new double[capacity], new int[capacity], 0, false);
+    }
+
+    //Builds a series from Room rows. Rows with a missing or invalid date are skipped.
+    //If the list is already in date order (observeAllWeightEntries sorts by date) this is a single
+    //pass, otherwise the rows are sorted by date first.
+    public static WeightSeries fromEntries(List<WeightEntry> entries) {
+        //Checks list if null or empty
+        if (entries == null || entries.isEmpty()) {
+            return empty();
+        }
+        int[] days = new int[entries.size()];
+        double[] weights = new double[entries.size()];
+        int[] ids = new int[entries.size()];
+        int n = 0;
+        boolean sorted = true;
+        for (int i = 0; i < entries.size(); i++) {
+            WeightEntry w = entries.get(i);
+            //Skips null rows
+            if (w == null) {
+                continue;
+            }
+            int day = w.getEpochDay();
+            //Skips rows with a bad date, same as the HashMap index skipped null dates
+            if (day == EpochDays.INVALID) {
+                continue;
+            }
+            if (n > 0 && day < days[n - 1]) {
+                sorted = false;
+            }
+            days[n] = day;
+            weights[n] = w.getWeight();
+            ids[n] = w.getId();
+            n++;
+        }
+        if (!sorted) {
+            sortByDay(days, weights, ids, n);
+        }
+        return new WeightSeries(days, weights, ids, n, false);
+    }
+
+    //Builds a series with one row per week or month for long-range charts: each row is the period's
+    //average weight on the period's first day, with the id of its latest entry. Rollups come from
+    //the database in bucket order, so each insert is an append
+    public static WeightSeries fromRollups(List<WeightRollup> rollups) {
+        if (rollups == null || rollups.isEmpty()) {
+            return empty();
+        }
+        WeightSeries series = withCapacity(rollups.size());
+        for (WeightRollup r : rollups) {
+            series.insert(r.getBucket(), r.getAverageWeight(), r.getLastId());
+        }
+        return series;
+    }
+
+    //Read-only view over the same rows, for a finished series that other threads will read. It
+    //shares the arrays, so this series must not be patched afterwards
+    public WeightSeries asReadOnly() {
+        return readOnly ? this : new WeightSeries(days, weights, ids, size, true);
+    }
+
+    //Patchable copy of the rows, for callers that got a read-only series
+    public WeightSeries copy() {
+        return new WeightSeries(Arrays.copyOf(days, size), Arrays.copyOf(weights, size),
+                Arrays.copyOf(ids, size), size, false);
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    //Number of rows in the series
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    //Approximate heap size in bytes: 16 per allocated row plus the object and array headers
+    public long estimatedBytes() {
+        return 16L * days.length + 64;
+    }
+
+    //Epoch day of the row at position i
+    public int dayAt(int i) {
+        return days[i];
+    }
+
+    //Weight of the row at position i
+    public double weightAt(int i) {
+        return weights[i];
+    }
+
+    //Room id of the entry at position i
+    public int idAt(int i) {
+        return ids[i];
+    }
+
+    //True if the series holds exactly these rows, in this order, with the same days, weights and
+    //ids. Null rows and rows with a bad date are skipped, the same as fromEntries. Lets the
+    //dashboard tell a query result it already patched in from one that changed a value in place
+    public boolean matches(List<WeightEntry> entries) {
+        int i = 0;
+        if (entries != null) {
+            for (WeightEntry w : entries) {
+                if (w == null || w.getEpochDay() == EpochDays.INVALID) {
+                    continue;
+                }
+                if (i >= size || days[i] != w.getEpochDay() || ids[i] != w.getId()
+                        || Double.compare(weights[i], w.getWeight()) != 0) {
+                    return false;
+                }
+                i++;
+            }
+        }
+        return i == size;
+    }
+
+    //Adds one entry after any rows on the same day. Returns the position it was inserted at, or -1
+    //if an entry with this id is already on that day (the change was already applied).
+    //Appending a new latest date is O(1) amortized; a back-dated entry shifts the later rows.
+    public int insert(int epochDay, double weight, int id) {
+        checkWritable();
+        if (positionOfId(epochDay, id) >= 0) {
+            return -1;
+        }
+        int pos = upperBound(epochDay);
+        //Grows the arrays by doubling when full
+        if (size == days.length) {
+            int capacity = Math.max(16, size * 2);
+            days = Arrays.copyOf(days, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+        }
+        //Shifts later rows right by one to make room
+        System.arraycopy(days, pos, days, pos + 1, size - pos);
+        System.arraycopy(weights, pos, weights, pos + 1, size - pos);
+        System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+        days[pos] = epochDay;
+        weights[pos] = weight;
+        ids[pos] = id;
+        size++;
+        return pos;
+    }
+
+    //Removes the entry with the given id from its day. Returns the position it was removed from,
+    //or -1 if it was not found (the change was already applied)
+    public int remove(int epochDay, int id) {
+        checkWritable();
+        int pos = positionOfId(epochDay, id);
+        if (pos < 0) {
+            return -1;
+        }
+        //Shifts later rows left by one to close the gap
+        System.arraycopy(days, pos + 1, days, pos, size - pos - 1);
+        System.arraycopy(weights, pos + 1, weights, pos, size - pos - 1);
+        System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+        size--;
+        return pos;
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("Read-only series, patch a copy() instead");
+        }
+    }
+
+    //Finds the row for an entry id among the rows on one day. Returns -1 if not found
+    private int positionOfId(int epochDay, int id) {
+        for (int i = lowerBound(epochDay); i < size && days[i] == epochDay; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    //Finds the row for an exact day. Returns -1 if no entry exists for that day
+    public int indexOf(int epochDay) {
+        int i = upperBound(epochDay) - 1;
+        return (i >= 0 && days[i] == epochDay) ? i : -1;
+    }
+
+    //Finds the latest row on or before the given day. Returns -1 if every row is after it
+    public int floorIndex(int epochDay) {
+        return upperBound(epochDay) - 1;
+    }
+
+    //Finds the earliest row on or after the given day. Returns -1 if every row is before it
+    public int ceilingIndex(int epochDay) {
+        int i = lowerBound(epochDay);
+        return i < size ? i : -1;
+    }
+
+    //First position whose day is >= epochDay
+    private int lowerBound(int epochDay) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (days[mid] < epochDay) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    //First position whose day is > epochDay
+    private int upperBound(int epochDay) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (days[mid] <= epochDay) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    //Sorts the arrays by day without boxing. The day goes in the high 32 bits and the original
+    //position in the low 32 bits, so rows with the same day keep their original order.
+    private static void sortByDay(int[] days, double[] weights, int[] ids, int n) {
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = ((long) days[i] << 32) | i;
+        }
+        Arrays.sort(keys);
+        double[] originalWeights = Arrays.copyOf(weights, n);
+        int[] originalIds = Arrays.copyOf(ids, n);
+        for (int i = 0; i < n; i++) {
+            int from = (int) keys[i];
+            days[i] = (int) (keys[i] >> 32);
+            weights[i] = originalWeights[from];
+            ids[i] = originalIds[from];
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Part of planned enhancement: Category 3 - Databases
+ * Created: 10/17/26
+ */
+package com.CS360.weighttracker.repository;
+
+import com.CS360.weighttracker.util.Metrics;
+import com.CS360.weighttracker.util.WeightSeries;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//Process-wide cache of each user's full weight history as a WeightSeries, shared by every
+//WeightRepository so moving between screens does not read the same rows again. Every cached
+//series is read-only (WeightSeries.asReadOnly), since any thread may get the same one, and it is
+//published through this class's lock so readers on other threads see its rows.
+
+//The least recently used users are dropped once the cached series together take more than the byte
+//budget. A write through a repository drops only that user's series, and the next read rebuilds it.
+
+//Each user has a version number that is bumped on every write. A load that started before a write
+//finishes with an old version and is returned to its caller but not cached, so a series read while
+//a write was in progress is never served afterwards.
+final class WeightSeriesCache {
+    //About 250,000 rows across all users
+    static final long DEFAULT_BUDGET_BYTES = 4L * 1024 * 1024;
+
+    private static final Metrics.Counter HITS = Metrics.counter("cache.series.hits");
+    private static final Metrics.Counter MISSES = Metrics.counter("cache.series.misses");
+    private static final Metrics.Counter EVICTIONS = Metrics.counter("cache.series.evictions");
+
+    //Access order, so iteration starts at the least recently used user
+    private final LinkedHashMap<Integer, WeightSeries> series = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Integer, Long> versions = new HashMap<>();
+    private long budgetBytes;
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    WeightSeriesCache(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+        Metrics.gauge("cache.series.bytes", this::bytes);
+    }
+
+    //Returns the cached series, or null on a miss
+    synchronized WeightSeries get(int userId) {
+        WeightSeries cached = series.get(userId);
+        if (cached != null) {
+            hits++;
+            HITS.inc();
+        } else {
+            misses++;
+            MISSES.inc();
+        }
+        return cached;
+    }
+
+    //Version to pass to put() for a load that starts now
+    synchronized long version(int userId) {
+        Long v = versions.get(userId);
+        return v == null ? 0 : v;
+    }
+
+    //Caches a read-only view of a loaded series if the user has not been written since version was
+    //read. A series bigger than the whole budget is not cached. The loaded series must not be
+    //patched afterwards
+    synchronized void put(int userId, long version, WeightSeries loaded) {
+        if (version != version(userId) || loaded.estimatedBytes() > budgetBytes) {
+            return;
+        }
+        WeightSeries old = series.put(userId, loaded.asReadOnly());
+        if (old != null) {
+            bytes -= old.estimatedBytes();
+        }
+        bytes += loaded.estimatedBytes();
+        evictToBudget();
+    }
+
+    //Drops a user's series after a write
+    synchronized void invalidate(int userId) {
+        versions.put(userId, version(userId) + 1);
+        WeightSeries old = series.remove(userId);
+        if (old != null) {
+            bytes -= old.estimatedBytes();
+        }
+    }
+
+    //Drops every series, for example when the app is told memory is low
+    synchronized void clear() {
+        for (Integer userId : series.keySet()) {
+            versions.put(userId, version(userId) + 1);
+        }
+        series.clear();
+        bytes = 0;
+    }
+
+    //Changes the budget and evicts right away if the cache is now over it
+    synchronized void setBudgetBytes(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+        evictToBudget();
+    }
+
+    synchronized long bytes() {
+        return bytes;
+    }
+
+    synchronized long hits() {
+        return hits;
+    }
+
+    synchronized long misses() {
+        return misses;
+    }
+
+    synchronized long evictions() {
+        return evictions;
+    }
+
+    private void evictToBudget() {
+        Iterator<WeightSeries> it = series.values().iterator();
+        while (bytes > budgetBytes && it.hasNext()) {
+            bytes -= it.next().estimatedBytes();
+            it.remove();
+            evictions++;
+            EVICTIONS.inc();
+        }
+    }
+}
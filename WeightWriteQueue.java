@@ -0,0 +1,182 @@
+/*
+ * Part of planned enhancement: Category 3 - Databases
+ * Created: 10/17/26
+ */
+package com.CS360.weighttracker.repository;
+
+import com.CS360.weighttracker.Dao.WeightEntryDAO;
+import com.CS360.weighttracker.model.WeightEntry;
+import com.CS360.weighttracker.util.Metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+//Background writer that groups inserts and deletes arriving close together into one transaction.
+//Each transaction is one commit (one fsync) and one Room invalidation, so a burst of entries from
+//a scale sync or quick manual entry refreshes the dashboard once instead of once per entry.
+
+//After the first write of a batch arrives, the writer waits up to COALESCE_MILLIS for more before
+//committing. The queue is bounded: once MAX_QUEUED writes are waiting, new writes fail right away
+//with RejectedExecutionException instead of piling up in memory, the same as AuthService's hashing
+//queue.
+final class WeightWriteQueue {
+    static final int MAX_QUEUED = 1024;
+    //Long enough to catch a burst, short enough that a single manual entry still feels instant
+    private static final long COALESCE_MILLIS = 25;
+    //Keeps one transaction from holding the database lock for long
+    private static final int MAX_BATCH = 500;
+
+    private static final Metrics.Histogram WRITE_TIME = Metrics.histogram("db.writeBatch");
+    private static final Metrics.Counter WRITES = Metrics.counter("db.writes");
+    private static final Metrics.Counter BATCHES = Metrics.counter("db.writeBatches");
+    private static final Metrics.Counter REJECTED = Metrics.counter("db.writesRejected");
+
+    //Told about each batch after it commits, before the futures complete
+    interface Committed {
+        void onCommitted(List<WeightEntry> inserted, List<WeightEntry> deleted);
+    }
+
+    //One queued insert or delete and the future its caller is waiting on
+    private static final class Write {
+        final WeightEntry entry;
+        final boolean delete;
+        final CompletableFuture<WeightEntry> done = new CompletableFuture<>();
+
+        Write(WeightEntry entry, boolean delete) {
+            this.entry = entry;
+            this.delete = delete;
+        }
+    }
+
+    private final WeightEntryDAO dao;
+    private final Committed committed;
+    private final BlockingQueue<Write> queue = new ArrayBlockingQueue<>(MAX_QUEUED);
+
+    WeightWriteQueue(WeightEntryDAO dao, Committed committed) {
+        this.dao = dao;
+        this.committed = committed;
+        Thread writer = new Thread(this::run, "weight-writer");
+        //Do not keep the app process alive just for the writer
+        writer.setDaemon(true);
+        writer.start();
+        Metrics.gauge("db.writesQueued", queue::size);
+    }
+
+    //Queues an insert. The future completes with the entry, its id set, once it is committed
+    CompletableFuture<WeightEntry> insert(WeightEntry entry) {
+        return enqueue(new Write(entry, false));
+    }
+
+    //Queues a delete. The future completes with the entry once the delete is committed
+    CompletableFuture<WeightEntry> delete(WeightEntry entry) {
+        return enqueue(new Write(entry, true));
+    }
+
+    private CompletableFuture<WeightEntry> enqueue(Write write) {
+        if (!queue.offer(write)) {
+            REJECTED.inc();
+            write.done.completeExceptionally(
+                    new RejectedExecutionException("Too many writes waiting (" + MAX_QUEUED + ")"));
+        }
+        return write.done;
+    }
+
+    private void run() {
+        List<Write> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            try {
+                batch.add(queue.take());
+                //Collects whatever else arrives within the window, then anything already waiting
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(COALESCE_MILLIS);
+                while (batch.size() < MAX_BATCH) {
+                    long wait = deadline - System.nanoTime();
+                    Write next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                //Only happens if the process is shutting down. Writes already taken still go in
+                Thread.currentThread().interrupt();
+                write(batch);
+                return;
+            }
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    //Commits a batch. If the transaction fails, it has been rolled back, so each write is retried
+    //on its own and only the writes that fail again report an error
+    private void write(List<Write> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<Write> written = new ArrayList<>(batch.size());
+        try {
+            commit(batch);
+            written.addAll(batch);
+        } catch (RuntimeException batchFailed) {
+            for (Write w : batch) {
+                List<Write> single = new ArrayList<>(1);
+                single.add(w);
+                try {
+                    commit(single);
+                    written.add(w);
+                } catch (RuntimeException failed) {
+                    w.done.completeExceptionally(failed);
+                }
+            }
+        }
+        if (!written.isEmpty()) {
+            notifyCommitted(written);
+        }
+    }
+
+    private void commit(List<Write> batch) {
+        List<WeightEntry> inserts = new ArrayList<>(batch.size());
+        List<WeightEntry> deletes = new ArrayList<>();
+        split(batch, inserts, deletes);
+        long start = Metrics.now();
+        long[] ids = dao.applyWrites(inserts, deletes);
+        WRITE_TIME.recordSince(start);
+        WRITES.add(batch.size());
+        BATCHES.inc();
+        //Stores the generated ids so listeners and callers can match the entries later
+        for (int i = 0; i < inserts.size(); i++) {
+            inserts.get(i).setId((int) ids[i]);
+        }
+    }
+
+    //Tells the repository, then completes the futures, so a caller that waits on its future sees
+    //caches already updated. A listener that throws fails the futures like it would fail a direct
+    //addEntry call, but the writes stay committed and the writer keeps running
+    private void notifyCommitted(List<Write> written) {
+        List<WeightEntry> inserts = new ArrayList<>(written.size());
+        List<WeightEntry> deletes = new ArrayList<>();
+        split(written, inserts, deletes);
+        try {
+            committed.onCommitted(inserts, deletes);
+        } catch (RuntimeException listenerFailed) {
+            for (Write w : written) {
+                w.done.completeExceptionally(listenerFailed);
+            }
+            return;
+        }
+        for (Write w : written) {
+            w.done.complete(w.entry);
+        }
+    }
+
+    private static void split(List<Write> batch, List<WeightEntry> inserts, List<WeightEntry> deletes) {
+        for (Write w : batch) {
+            (w.delete ? deletes : inserts).add(w.entry);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.CS360.weighttracker.Dao;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.CS360.weighttracker.model.WeightRollup;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.Assert.*;
+
+//Runs the rollup backfill in MIGRATION_10_11 against a version 10 schema in SQLite (sqlite-jdbc)
+//and checks every bucket against the entries it was built from, including dates before 1970
+public class DatabaseMigrationsTest {
+    private Connection db;
+
+    @Before
+    public void createVersion10Schema() throws SQLException {
+        db = DriverManager.getConnection("jdbc:sqlite::memory:");
+        try (Statement st = db.createStatement()) {
+            st.execute("CREATE TABLE users (id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL)");
+            st.execute("CREATE TABLE weight_entries (id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "date INTEGER NOT NULL, weight REAL NOT NULL, userId INTEGER NOT NULL)");
+            st.execute("INSERT INTO users (id) VALUES (1), (2)");
+        }
+    }
+
+    @After
+    public void close() throws SQLException {
+        db.close();
+    }
+
+    //Forwards execSQL to the JDBC connection, which is all the migrations use
+    private SupportSQLiteDatabase wrap() {
+        return (SupportSQLiteDatabase) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{SupportSQLiteDatabase.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("execSQL") || args.length != 1) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    try (Statement st = db.createStatement()) {
+                        st.execute((String) args[0]);
+                    }
+                    return null;
+                });
+    }
+
+    private void insert(int id, int userId, int day, double weight) throws SQLException {
+        try (Statement st = db.createStatement()) {
+            st.execute("INSERT INTO weight_entries (id, date, weight, userId) VALUES ("
+                    + id + ", " + day + ", " + weight + ", " + userId + ")");
+        }
+    }
+
+    private long count(String sql) throws SQLException {
+        try (Statement st = db.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    @Test
+    public void rollups_includeDatesBefore1970() throws SQLException {
+        //1956-04-24, 1956-04-25 (two weigh-ins), 1969-12-31 and 2022-01-08
+        insert(1, 1, -5000, 200.0);
+        insert(2, 1, -4999, 199.0);
+        insert(3, 1, -4999, 198.5);
+        insert(4, 1, -1, 190.0);
+        insert(5, 1, 19000, 180.0);
+        insert(6, 2, -4999, 150.0);
+
+        DatabaseMigrations.MIGRATION_10_11.migrate(wrap());
+
+        //One daily row per user and date, holding the entry with the highest id
+        assertEquals(5, count("SELECT COUNT(*) FROM weight_rollups WHERE period = " + WeightRollup.DAY));
+        try (Statement st = db.createStatement();
+             ResultSet rs = st.executeQuery("SELECT entryCount, lastId, lastWeight, lastDate "
+                     + "FROM weight_rollups WHERE userId = 1 AND period = " + WeightRollup.DAY
+                     + " AND bucket = -4999")) {
+            assertTrue(rs.next());
+            assertEquals(2, rs.getInt(1));
+            assertEquals(3, rs.getInt(2));
+            assertEquals(198.5, rs.getDouble(3), 0);
+            assertEquals(-4999, rs.getInt(4));
+        }
+        //Every entry is counted exactly once in each period
+        for (int period : new int[]{WeightRollup.DAY, WeightRollup.WEEK, WeightRollup.MONTH}) {
+            assertEquals("period " + period, 6,
+                    count("SELECT SUM(entryCount) FROM weight_rollups WHERE period = " + period));
+        }
+        //Both 1956 dates are in the week of Monday 1956-04-23; 1969-12-31 is in the week of 12-29
+        assertEquals(1, count("SELECT COUNT(*) FROM weight_rollups WHERE userId = 1 AND period = "
+                + WeightRollup.WEEK + " AND bucket = -5001 AND entryCount = 3 AND lastId = 3"));
+        assertEquals(1, count("SELECT COUNT(*) FROM weight_rollups WHERE userId = 1 AND period = "
+                + WeightRollup.WEEK + " AND bucket = -3 AND lastId = 4"));
+        //1956-04-01 and 1969-12-01
+        assertEquals(1, count("SELECT COUNT(*) FROM weight_rollups WHERE userId = 1 AND period = "
+                + WeightRollup.MONTH + " AND bucket = -5023 AND entryCount = 3"));
+        assertEquals(1, count("SELECT COUNT(*) FROM weight_rollups WHERE userId = 1 AND period = "
+                + WeightRollup.MONTH + " AND bucket = -31 AND lastId = 4"));
+    }
+}
@@ -0,0 +1,307 @@
+package com.CS360.weighttracker.Dao;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+//Query plan regression suite. Reads every @Query in WeightEntryDAO from its source, so a new or
+//edited query is checked without touching this file, and runs EXPLAIN QUERY PLAN on it against
+//the app's schema in SQLite (sqlite-jdbc). Every query must find its rows through an index or
+//primary key (SEARCH, never SCAN of a table) and must not sort them in a temporary b-tree, except
+//the sorts listed in ALLOWED_SORTS.
+//The SELECT queries are also timed on 2,200,000 entries across 2,000 users and fail when they are
+//not much faster than a scan of the same table measured in the same run.
+public class QueryPlanTest {
+    private static final int USERS = 2000;
+    private static final int DAYS = 1000;
+    //First epoch day of every user's history (2022-01-01)
+    private static final int FIRST_DAY = 18993;
+    //Each SELECT's median time must stay under this fraction of the median time of reading one
+    //user's entries by scanning weight_entries (BASELINE_SQL), which is what a query costs once it
+    //loses its index. Both are measured on the same machine in the same run, so a slow CI runner
+    //slows both alike. The slowest indexed read here, one user's whole history, takes about 0.2% of
+    //the scan, so this still fails on a lost index or a sort of the whole table
+    private static final double BUDGET_FRACTION = 0.02;
+    private static final String BASELINE_SQL =
+            "SELECT * FROM weight_entries NOT INDEXED WHERE userId = :userId";
+    private static final int TIMED_RUNS = 21;
+
+    //Temporary b-tree sorts that are allowed, by DAO method, and why
+    private static final Map<String, String> ALLOWED_SORTS = new HashMap<>();
+
+    static {
+        //Groups by syncId and orders by version, which no one index can give. change_log only
+        //holds the changes the server has not received yet (deleteChangesUpTo drops the rest),
+        //so this sorts one sync's worth of rows, not the user's history
+        ALLOWED_SORTS.put("getChangesAfter", "change_log only holds unsent changes");
+    }
+
+    //Where the DAO source may be, depending on the directory the tests run from
+    private static final String[] DAO_PATHS = {
+            "src/main/java/com/CS360/weighttracker/Dao/WeightEntryDAO.java",
+            "app/src/main/java/com/CS360/weighttracker/Dao/WeightEntryDAO.java",
+            "WeightEntryDAO.java"
+    };
+
+    //Values bound to each named parameter when a query is timed
+    private static final Map<String, Object> PARAMS = new HashMap<>();
+
+    static {
+        PARAMS.put("userId", 7);
+        PARAMS.put("id", 7 * DAYS + 500);
+        PARAMS.put("syncId", 7L * DAYS + 500);
+        PARAMS.put("date", FIRST_DAY + 500);
+        PARAMS.put("fromDate", FIRST_DAY + 300);
+        PARAMS.put("toDate", FIRST_DAY + 665);
+        PARAMS.put("afterDate", FIRST_DAY + 400);
+        PARAMS.put("afterId", 0);
+        PARAMS.put("beforeDate", FIRST_DAY + 600);
+        PARAMS.put("beforeId", Integer.MAX_VALUE);
+        PARAMS.put("limit", 100);
+        PARAMS.put("period", 2);
+        PARAMS.put("bucket", FIRST_DAY + 31);
+        PARAMS.put("fromBucket", FIRST_DAY);
+        PARAMS.put("toBucket", FIRST_DAY + DAYS);
+        PARAMS.put("monthsFrom", FIRST_DAY + 334);
+        PARAMS.put("monthsTo", FIRST_DAY + 638);
+        PARAMS.put("afterVersion", 0L);
+        PARAMS.put("upToVersion", 0L);
+    }
+
+    private static Connection db;
+    private static List<DaoQuery> queries;
+
+    //One @Query and the DAO method it belongs to
+    private static final class DaoQuery {
+        final String method;
+        final String sql;
+
+        DaoQuery(String method, String sql) {
+            this.method = method;
+            this.sql = sql;
+        }
+    }
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        queries = readDaoQueries();
+        db = DriverManager.getConnection("jdbc:sqlite::memory:");
+        try (Statement s = db.createStatement()) {
+            createTables(s);
+            seed(s);
+            createIndexes(s);
+            s.execute("ANALYZE");
+        }
+    }
+
+    @AfterClass
+    public static void tearDown() throws SQLException {
+        db.close();
+    }
+
+    @Test
+    public void daoQueriesAreFound() {
+        //Guards against the parser silently finding nothing
+        assertTrue("found " + queries.size() + " queries", queries.size() >= 30);
+    }
+
+    @Test
+    public void everyQueryUsesAnIndexAndDoesNotSort() throws SQLException {
+        List<String> failures = new ArrayList<>();
+        for (DaoQuery q : queries) {
+            boolean sorts = false;
+            for (String detail : plan(q.sql)) {
+                //SCAN CONSTANT ROW is the one-row FROM of a SELECT made only of subqueries
+                if (detail.startsWith("SCAN ") && !detail.equals("SCAN CONSTANT ROW")) {
+                    failures.add(q.method + ": " + detail);
+                }
+                if (detail.contains("TEMP B-TREE")) {
+                    sorts = true;
+                    if (!ALLOWED_SORTS.containsKey(q.method)) {
+                        failures.add(q.method + ": " + detail);
+                    }
+                }
+            }
+            if (!sorts && ALLOWED_SORTS.containsKey(q.method)) {
+                failures.add(q.method + ": no longer sorts, remove it from ALLOWED_SORTS ("
+                        + ALLOWED_SORTS.get(q.method) + ")");
+            }
+        }
+        assertTrue("Queries that scan or sort:\n" + String.join("\n", failures), failures.isEmpty());
+    }
+
+    @Test
+    public void selectsStayWithinLatencyBudget() throws SQLException {
+        double budget = medianMillis(BASELINE_SQL) * BUDGET_FRACTION;
+        List<String> failures = new ArrayList<>();
+        for (DaoQuery q : queries) {
+            if (!q.sql.trim().toUpperCase().startsWith("SELECT")) {
+                continue;
+            }
+            double millis = medianMillis(q.sql);
+            if (millis > budget) {
+                failures.add(String.format("%s: %.3f ms", q.method, millis));
+            }
+        }
+        assertTrue(String.format("Queries over %.3f ms:%n", budget) + String.join("\n", failures),
+                failures.isEmpty());
+    }
+
+    private static List<String> plan(String sql) throws SQLException {
+        List<String> details = new ArrayList<>();
+        try (PreparedStatement ps = prepare("EXPLAIN QUERY PLAN " + sql, false);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                details.add(rs.getString("detail"));
+            }
+        }
+        return details;
+    }
+
+    //Counts the rows inside SQLite instead of reading them over JDBC, so the time is the
+    //query's own work and not the cost of copying each row into Java
+    private static double medianMillis(String sql) throws SQLException {
+        double[] runs = new double[TIMED_RUNS];
+        try (PreparedStatement ps = prepare("SELECT COUNT(*) FROM (" + sql + ")", true)) {
+            //Warm-up so the first run's page cache misses are not counted
+            drain(ps);
+            for (int i = 0; i < TIMED_RUNS; i++) {
+                long start = System.nanoTime();
+                drain(ps);
+                runs[i] = (System.nanoTime() - start) / 1e6;
+            }
+        }
+        Arrays.sort(runs);
+        return runs[TIMED_RUNS / 2];
+    }
+
+    private static void drain(PreparedStatement ps) throws SQLException {
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                rs.getLong(1);
+            }
+        }
+    }
+
+    //Turns Room's :name parameters into ? and binds them. Plans do not depend on the values, so
+    //unknown names are bound to NULL unless the query is going to be timed
+    private static PreparedStatement prepare(String sql, boolean requireValues) throws SQLException {
+        Matcher m = Pattern.compile(":(\\w+)").matcher(sql);
+        List<Object> values = new ArrayList<>();
+        StringBuffer jdbcSql = new StringBuffer();
+        while (m.find()) {
+            String name = m.group(1);
+            if (requireValues && !PARAMS.containsKey(name)) {
+                throw new AssertionError("No test value for :" + name + " in " + sql);
+            }
+            values.add(PARAMS.get(name));
+            m.appendReplacement(jdbcSql, "?");
+        }
+        m.appendTail(jdbcSql);
+        PreparedStatement ps = db.prepareStatement(jdbcSql.toString());
+        for (int i = 0; i < values.size(); i++) {
+            ps.setObject(i + 1, values.get(i));
+        }
+        return ps;
+    }
+
+    //Collects every @Query string in the DAO source and the name of the method under it
+    private static List<DaoQuery> readDaoQueries() throws IOException {
+        Path source = null;
+        for (String candidate : DAO_PATHS) {
+            if (Files.exists(Paths.get(candidate))) {
+                source = Paths.get(candidate);
+                break;
+            }
+        }
+        assertNotNull("WeightEntryDAO.java not found from " + Paths.get("").toAbsolutePath(), source);
+        String text = new String(Files.readAllBytes(source), StandardCharsets.UTF_8);
+
+        List<DaoQuery> found = new ArrayList<>();
+        Matcher annotation = Pattern.compile(
+                "@Query\\(\\s*((?:\"(?:[^\"\\\\]|\\\\.)*\"\\s*\\+?\\s*)+)\\)\\s*[^;(]*?(\\w+)\\s*\\(").matcher(text);
+        Pattern literal = Pattern.compile("\"((?:[^\"\\\\]|\\\\.)*)\"");
+        while (annotation.find()) {
+            StringBuilder sql = new StringBuilder();
+            Matcher part = literal.matcher(annotation.group(1));
+            while (part.find()) {
+                sql.append(part.group(1));
+            }
+            found.add(new DaoQuery(annotation.group(2), sql.toString()));
+        }
+        return found;
+    }
+
+    //Same tables and indexes as the Room entities (see the migrations in DatabaseMigrations). The
+    //indexes are made after seeding, since building each once is faster than updating it on every
+    //insert
+    private static void createTables(Statement s) throws SQLException {
+        s.execute("CREATE TABLE users (id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                "username TEXT, heightInches REAL NOT NULL DEFAULT 0)");
+        s.execute("CREATE TABLE weight_entries (id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                "date INTEGER NOT NULL, weight REAL NOT NULL, userId INTEGER NOT NULL, " +
+                "syncId INTEGER NOT NULL DEFAULT 0, " +
+                "FOREIGN KEY(userId) REFERENCES users(id) ON UPDATE NO ACTION ON DELETE CASCADE)");
+        s.execute("CREATE TABLE user_stats (userId INTEGER NOT NULL, entryCount INTEGER NOT NULL, " +
+                "firstWeight REAL, firstDate INTEGER, latestWeight REAL, latestDate INTEGER, " +
+                "minWeight REAL, maxWeight REAL, bmi REAL, version INTEGER NOT NULL DEFAULT 0, " +
+                "PRIMARY KEY(userId))");
+        s.execute("CREATE TABLE change_log (version INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                "userId INTEGER NOT NULL, date INTEGER NOT NULL, weight REAL NOT NULL, " +
+                "deleted INTEGER NOT NULL, updatedAt INTEGER NOT NULL, syncId INTEGER NOT NULL DEFAULT 0)");
+        s.execute("CREATE TABLE weight_rollups (userId INTEGER NOT NULL, period INTEGER NOT NULL, " +
+                "bucket INTEGER NOT NULL, entryCount INTEGER NOT NULL, minWeight REAL NOT NULL, " +
+                "maxWeight REAL NOT NULL, sumWeight REAL NOT NULL, lastWeight REAL NOT NULL, " +
+                "lastDate INTEGER NOT NULL, lastId INTEGER NOT NULL, PRIMARY KEY(userId, period, bucket))");
+    }
+
+    private static void createIndexes(Statement s) throws SQLException {
+        s.execute("CREATE INDEX index_weight_entries_userId_date_id_weight " +
+                "ON weight_entries (userId, date, id, weight)");
+        s.execute("CREATE UNIQUE INDEX index_weight_entries_syncId ON weight_entries (syncId)");
+        s.execute("CREATE INDEX index_change_log_userId_version ON change_log (userId, version)");
+    }
+
+    //USERS users with one entry a day for DAYS days, and a second weigh-in every tenth day
+    private static void seed(Statement s) throws SQLException {
+        s.execute("WITH RECURSIVE n(i) AS (SELECT 1 UNION ALL SELECT i + 1 FROM n WHERE i < " + USERS + ") " +
+                "INSERT INTO users (id, username, heightInches) SELECT i, 'user' || i, 70 FROM n");
+        s.execute("WITH RECURSIVE d(i) AS (SELECT 0 UNION ALL SELECT i + 1 FROM d WHERE i < " + (DAYS - 1) + ") " +
+                "INSERT INTO weight_entries (date, weight, userId, syncId) " +
+                "SELECT " + FIRST_DAY + " + d.i, 150 + (u.id % 50) + (d.i % 7) * 0.3, u.id, u.id * " + DAYS + " + d.i " +
+                "FROM users u, d ORDER BY u.id, d.i");
+        s.execute("INSERT INTO weight_entries (date, weight, userId, syncId) " +
+                "SELECT date, weight - 0.5, userId, -syncId - 1 FROM weight_entries WHERE (date - " + FIRST_DAY + ") % 10 = 0");
+        s.execute("INSERT INTO user_stats (userId, entryCount, firstDate, latestDate, minWeight, maxWeight) " +
+                "SELECT userId, COUNT(*), MIN(date), MAX(date), MIN(weight), MAX(weight) " +
+                "FROM weight_entries GROUP BY userId");
+        s.execute("INSERT INTO weight_rollups SELECT userId, 0, date, COUNT(*), MIN(weight), MAX(weight), " +
+                "SUM(weight), MAX(weight), date, MAX(id) FROM weight_entries GROUP BY userId, date");
+        s.execute("INSERT INTO weight_rollups SELECT userId, 2, date - date % 30, COUNT(*), MIN(weight), " +
+                "MAX(weight), SUM(weight), MAX(weight), MAX(date), MAX(id) FROM weight_entries " +
+                "GROUP BY userId, date - date % 30");
+        s.execute("INSERT INTO change_log (userId, date, weight, deleted, updatedAt, syncId) " +
+                "SELECT userId, date, weight, 0, 0, syncId FROM weight_entries WHERE date > " + (FIRST_DAY + DAYS - 30));
+    }
+}
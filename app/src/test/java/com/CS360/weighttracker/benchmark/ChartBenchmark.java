@@ -0,0 +1,77 @@
+package com.CS360.weighttracker.benchmark;
+
+import com.CS360.weighttracker.model.WeightEntry;
+import com.CS360.weighttracker.util.ChartUtils;
+import com.CS360.weighttracker.util.EpochDays;
+import com.CS360.weighttracker.util.HashMapWeightLookup;
+import com.CS360.weighttracker.util.WeightSeries;
+import com.github.mikephil.charting.data.LineData;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+//Building the dashboard chart's points from a user's history: from the entry list with one point
+//per entry, from the series downsampled to the screen width, and zoomed in on a tenth of it.
+//Only the time spent in ChartUtils is meaningful off the device, since the chart library's classes
+//do less work on the JVM than on Android. See HotPathBenchmarks for how to run it
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChartBenchmark {
+    //About a phone screen's width in pixels, the most points the dashboard asks for
+    private static final int MAX_POINTS = 1080;
+
+    //Entries in the user's history, one per day
+    @Param({"10", "1000", "100000", "1000000"})
+    public int n;
+
+    private List<WeightEntry> entries;
+    private WeightSeries series;
+    private final List<String> labels = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        int firstDay = EpochDays.parse("2000-01-01");
+        entries = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            WeightEntry e = new WeightEntry(firstDay + i, 150 + random.nextInt(1000) / 10.0, 1);
+            e.setId(i + 1);
+            entries.add(e);
+        }
+        series = HashMapWeightLookup.buildSeries(entries);
+    }
+
+    @Benchmark
+    public LineData fromEntries() {
+        return ChartUtils.buildWeightLineData(entries, labels);
+    }
+
+    @Benchmark
+    public LineData fromSeries() {
+        return ChartUtils.buildWeightLineData(series, MAX_POINTS);
+    }
+
+    @Benchmark
+    public LineData zoomedIn() {
+        return ChartUtils.buildWeightLineData(series, n * 9 / 20, n * 11 / 20, MAX_POINTS);
+    }
+}
@@ -0,0 +1,34 @@
+package com.CS360.weighttracker.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+//Runs every JMH benchmark in this package with the GC profiler, which adds allocated bytes per
+//operation (gc.alloc.rate.norm) to the times. baseline.json in this directory is the JMH JSON of
+//such a run (the JVM and its options are recorded in each result), so a change to one of these
+//paths can be re-run and compared against it, for example with https://jmh.morethan.io.
+//After a change that moves the numbers on purpose, write a new baseline.json and commit it with
+//the change.
+
+//From the unit test classpath (JMH's annotation processor must have run on this package), with an
+//optional file to write the JSON results to:
+//  java -cp <test classpath> com.CS360.weighttracker.benchmark.HotPathBenchmarks [results.json]
+//One benchmark or size only, with JMH's own launcher:
+//  java -cp <test classpath> org.openjdk.jmh.Main LookupBenchmark.buildSeries -p n=1000 -prof gc
+public final class HotPathBenchmarks {
+    //stop instantiation
+    private HotPathBenchmarks() {}
+
+    public static void main(String[] args) throws RunnerException {
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(HotPathBenchmarks.class.getPackage().getName() + "\\..*Benchmark\\.")
+                .addProfiler("gc");
+        if (args.length > 0) {
+            options.resultFormat(ResultFormatType.JSON).result(args[0]);
+        }
+        new Runner(options.build()).run();
+    }
+}
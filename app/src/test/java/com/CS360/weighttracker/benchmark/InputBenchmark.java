@@ -0,0 +1,57 @@
+package com.CS360.weighttracker.benchmark;
+
+import com.CS360.weighttracker.util.InputValidator;
+import com.CS360.weighttracker.util.PasswordUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+//Validating typed input and hashing a password, which do not depend on the history size.
+//See HotPathBenchmarks for how to run it
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InputBenchmark {
+    private final String date = "2025-02-28";
+    private final String weight = "182.4";
+    private final String password = "correct horse battery staple";
+    private String salt;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        salt = PasswordUtils.generateSalt();
+    }
+
+    @Benchmark
+    public InputValidator.InputValidationResult validateDate() {
+        return InputValidator.validateDate(date);
+    }
+
+    @Benchmark
+    public InputValidator.InputValidationResult validateWeight() {
+        return InputValidator.validateWeight(weight);
+    }
+
+    //One login's worth of hashing at the fixed iteration count, in milliseconds
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2, time = 1)
+    @Measurement(iterations = 3, time = 2)
+    public String hashPassword() {
+        return PasswordUtils.hashPassword(password, salt, PasswordUtils.ITERS);
+    }
+}
@@ -0,0 +1,90 @@
+package com.CS360.weighttracker.benchmark;
+
+import com.CS360.weighttracker.model.WeightEntry;
+import com.CS360.weighttracker.util.EpochDays;
+import com.CS360.weighttracker.util.HashMapWeightLookup;
+import com.CS360.weighttracker.util.WeightSeries;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+//Building the date index and the series from a user's history, and looking up one date in each.
+//The history and the looked-up dates are seeded, so runs on the same machine are comparable.
+//See HotPathBenchmarks for how to run it
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LookupBenchmark {
+    //Entries in the user's history, one per day
+    @Param({"10", "1000", "100000", "1000000"})
+    public int n;
+
+    private List<WeightEntry> entries;
+    private Map<String, WeightEntry> index;
+    private WeightSeries series;
+    //Dates looked up in turn, so every lookup is not for the same key
+    private String[] lookups;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        int firstDay = EpochDays.parse("2000-01-01");
+        entries = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            WeightEntry e = new WeightEntry(firstDay + i, 150 + random.nextInt(1000) / 10.0, 1);
+            e.setId(i + 1);
+            entries.add(e);
+        }
+        index = HashMapWeightLookup.buildIndex(entries);
+        series = HashMapWeightLookup.buildSeries(entries);
+        lookups = new String[1024];
+        for (int i = 0; i < lookups.length; i++) {
+            lookups[i] = EpochDays.format(firstDay + random.nextInt(n));
+        }
+    }
+
+    private String nextLookup() {
+        next = (next + 1) & (lookups.length - 1);
+        return lookups[next];
+    }
+
+    @Benchmark
+    public Map<String, WeightEntry> buildIndex() {
+        return HashMapWeightLookup.buildIndex(entries);
+    }
+
+    @Benchmark
+    public WeightSeries buildSeries() {
+        return HashMapWeightLookup.buildSeries(entries);
+    }
+
+    @Benchmark
+    public WeightEntry findByDateInIndex() {
+        return HashMapWeightLookup.findByDate(index, nextLookup());
+    }
+
+    @Benchmark
+    public int findByDateInSeries() {
+        return HashMapWeightLookup.findByDate(series, nextLookup());
+    }
+}
@@ -0,0 +1,45 @@
+package com.CS360.weighttracker.model;
+
+import com.CS360.weighttracker.util.EpochDays;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+//A date string that does not parse must be rejected, never stored as EpochDays.INVALID
+public class WeightEntryTest {
+    @Test
+    public void stringConstructor_storesTheEpochDay() {
+        WeightEntry entry = new WeightEntry("2024-02-29", 180.5, 3);
+        assertEquals(EpochDays.parse("2024-02-29"), entry.getEpochDay());
+        assertEquals("2024-02-29", entry.getDate());
+        assertEquals(180.5, entry.getWeight(), 0);
+        assertEquals(3, entry.getUserId());
+    }
+
+    @Test
+    public void stringConstructor_rejectsBadDates() {
+        for (String date : new String[]{null, "", "2023-02-29", "2024-13-01", "01/02/2024", " 2024-01-01"}) {
+            try {
+                new WeightEntry(date, 180, 1);
+                fail("accepted " + date);
+            } catch (IllegalArgumentException expected) {
+                //ok
+            }
+        }
+    }
+
+    @Test
+    public void setDate_rejectsBadDatesAndKeepsTheOldOne() {
+        WeightEntry entry = new WeightEntry("2024-01-01", 180, 1);
+        try {
+            entry.setDate("2024-02-30");
+            fail("accepted 2024-02-30");
+        } catch (IllegalArgumentException expected) {
+            //ok
+        }
+        assertEquals("2024-01-01", entry.getDate());
+        entry.setDate("2024-03-01");
+        assertEquals("2024-03-01", entry.getDate());
+    }
+}
@@ -0,0 +1,86 @@
+package com.CS360.weighttracker.repository;
+
+import com.CS360.weighttracker.Dao.WeightEntryDAO;
+import com.CS360.weighttracker.util.EpochDays;
+
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+//The date arguments the repository hands to the DAO: strings and epoch days must reach the same
+//query, and a bad date must fail instead of turning into EpochDays.INVALID
+public class WeightRepositoryTest {
+    //Every DAO call as "method arg1 arg2 ..."
+    private final List<String> calls = new ArrayList<>();
+
+    private WeightRepository repository() {
+        WeightEntryDAO dao = (WeightEntryDAO) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{WeightEntryDAO.class}, (proxy, method, args) -> {
+                    StringBuilder call = new StringBuilder(method.getName());
+                    for (Object arg : args == null ? new Object[0] : args) {
+                        call.append(' ').append(arg);
+                    }
+                    calls.add(call.toString());
+                    return method.getReturnType() == List.class ? Collections.emptyList() : null;
+                });
+        return new WeightRepository(dao);
+    }
+
+    @Test
+    public void stringAndEpochDayForms_runTheSameQuery() {
+        WeightRepository repository = repository();
+        int day = EpochDays.parse("2024-02-29");
+
+        repository.getEntriesPageAfter(1, "2024-02-29", 5, 10);
+        repository.getEntriesPageAfter(1, day, 5, 10);
+        repository.getEntriesPageBefore(1, "2024-02-29", 0, 1);
+        repository.getEntriesPageBefore(1, day, 0, 1);
+        repository.findEntryOnDate(1, "2024-02-29");
+        repository.findEntryOnDate(1, day);
+
+        assertEquals(calls.get(0), calls.get(1));
+        assertEquals("getEntriesPageAfter 1 " + day + " 5 10", calls.get(0));
+        assertEquals(calls.get(2), calls.get(3));
+        assertEquals(calls.get(4), calls.get(5));
+    }
+
+    @Test
+    public void emptyOrNullCursor_startsFromTheFirstEntry() {
+        WeightRepository repository = repository();
+        repository.getEntriesPageAfter(1, "", 0, 10);
+        repository.getEntriesPageAfter(1, (String) null, 0, 10);
+        repository.getEntriesPageAfter(1, WeightRepository.FROM_START, 0, 10);
+
+        String first = "getEntriesPageAfter 1 " + WeightRepository.FROM_START + " 0 10";
+        assertEquals(Arrays.asList(first, first, first), calls);
+    }
+
+    @Test
+    public void badDates_throwBeforeQuerying() {
+        WeightRepository repository = repository();
+        List<Runnable> lookups = Arrays.asList(
+                () -> repository.getEntriesPageAfter(1, "2024-02-30", 0, 10),
+                () -> repository.getEntriesPageBefore(1, (String) null, 0, 10),
+                () -> repository.findEntryOnDate(1, "yesterday"),
+                () -> repository.getRangeStats(1, "2024-01-01", "2024-13-01"),
+                () -> repository.getRollups(1, 0, "", "2024-01-01"),
+                () -> repository.streamEntriesInRange(1, "2024/01/01", "2024-01-31"),
+                () -> repository.observeEntriesInRange(1, "2024-01-01", "2024-1-31"),
+                () -> repository.streamRollups(1, 0, "2023-02-29", "2024-01-01"));
+        for (int i = 0; i < lookups.size(); i++) {
+            try {
+                lookups.get(i).run();
+                fail("lookup " + i + " accepted a bad date");
+            } catch (IllegalArgumentException expected) {
+                //ok
+            }
+        }
+        assertTrue(calls.isEmpty());
+    }
+}
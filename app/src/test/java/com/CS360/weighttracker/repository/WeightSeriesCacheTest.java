@@ -0,0 +1,102 @@
+package com.CS360.weighttracker.repository;
+
+import com.CS360.weighttracker.util.WeightSeries;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+//Budget, eviction order, invalidation and the version check that keeps a load racing a write out
+//of the cache
+public class WeightSeriesCacheTest {
+    //A series of n rows on consecutive days, sized exactly so estimatedBytes is 16 * n + 64
+    private static WeightSeries series(int n) {
+        WeightSeries s = WeightSeries.withCapacity(n);
+        for (int i = 0; i < n; i++) {
+            s.insert(i, 180, i);
+        }
+        return s;
+    }
+
+    @Test
+    public void put_cachesAReadOnlyView() {
+        WeightSeriesCache cache = new WeightSeriesCache(WeightSeriesCache.DEFAULT_BUDGET_BYTES);
+        WeightSeries loaded = series(10);
+        cache.put(1, cache.version(1), loaded);
+
+        WeightSeries cached = cache.get(1);
+        assertTrue(cached.isReadOnly());
+        assertEquals(10, cached.size());
+        assertEquals(1, cache.hits());
+        assertNull(cache.get(2));
+        assertEquals(1, cache.misses());
+        try {
+            cached.insert(20, 180, 20);
+            fail("cached series accepted an insert");
+        } catch (UnsupportedOperationException expected) {
+            //A caller that needs to patch takes a copy
+        }
+        WeightSeries copy = cached.copy();
+        assertEquals(10, copy.insert(20, 180, 20));
+        assertEquals(10, cache.get(1).size());
+    }
+
+    @Test
+    public void put_skipsALoadThatRacedAWrite() {
+        WeightSeriesCache cache = new WeightSeriesCache(WeightSeriesCache.DEFAULT_BUDGET_BYTES);
+        long version = cache.version(1);
+        //A write lands while the series is loading
+        cache.invalidate(1);
+        cache.put(1, version, series(10));
+        assertNull(cache.get(1));
+
+        cache.put(1, cache.version(1), series(10));
+        assertNotNull(cache.get(1));
+        cache.invalidate(1);
+        assertNull(cache.get(1));
+        assertEquals(0, cache.bytes());
+    }
+
+    @Test
+    public void budget_evictsLeastRecentlyUsed() {
+        long each = series(100).estimatedBytes();
+        WeightSeriesCache cache = new WeightSeriesCache(3 * each);
+        for (int user = 1; user <= 3; user++) {
+            cache.put(user, cache.version(user), series(100));
+        }
+        assertEquals(3 * each, cache.bytes());
+        //Touches user 1, so user 2 is now the least recently used
+        assertNotNull(cache.get(1));
+        cache.put(4, cache.version(4), series(100));
+
+        assertEquals(1, cache.evictions());
+        assertNull(cache.get(2));
+        assertNotNull(cache.get(1));
+        assertNotNull(cache.get(3));
+        assertNotNull(cache.get(4));
+
+        cache.setBudgetBytes(each);
+        assertEquals(each, cache.bytes());
+        assertEquals(3, cache.evictions());
+    }
+
+    @Test
+    public void oversizedSeries_isNotCached() {
+        WeightSeriesCache cache = new WeightSeriesCache(1000);
+        cache.put(1, cache.version(1), series(100));
+        assertNull(cache.get(1));
+        assertEquals(0, cache.bytes());
+    }
+
+    @Test
+    public void clear_dropsEverythingAndOutdatesLoadsInFlight() {
+        WeightSeriesCache cache = new WeightSeriesCache(WeightSeriesCache.DEFAULT_BUDGET_BYTES);
+        cache.put(1, cache.version(1), series(10));
+        long version = cache.version(1);
+        cache.clear();
+        assertEquals(0, cache.bytes());
+        assertNull(cache.get(1));
+        cache.put(1, version, series(10));
+        assertNull(cache.get(1));
+    }
+}
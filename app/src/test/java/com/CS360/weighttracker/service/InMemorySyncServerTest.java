@@ -0,0 +1,113 @@
+package com.CS360.weighttracker.service;
+
+import com.CS360.weighttracker.model.ChangeLogEntry;
+import com.CS360.weighttracker.util.SyncCodec;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+//Conflict rules of the stand-in server: the later change to an entry wins, a tie goes to the
+//larger device id, replays change nothing, and entries on the same date are kept apart
+public class InMemorySyncServerTest {
+    private static final int USER = 1;
+
+    @Test
+    public void laterChangeWins_whicheverArrivesFirst() {
+        InMemorySyncServer server = new InMemorySyncServer();
+        push(server, "b", delete(10L, 20000, 200L));
+        push(server, "a", add(10L, 20000, 180.0, 100L));
+
+        List<ChangeLogEntry> pulled = pullAll(server, "c");
+        assertEquals(1, pulled.size());
+        assertTrue(pulled.get(0).isDeleted());
+        assertEquals(200L, pulled.get(0).getUpdatedAt());
+    }
+
+    @Test
+    public void newerChangeReplacesOlder() {
+        InMemorySyncServer server = new InMemorySyncServer();
+        push(server, "a", add(10L, 20000, 180.0, 100L));
+        push(server, "b", delete(10L, 20000, 200L));
+
+        List<ChangeLogEntry> pulled = pullAll(server, "c");
+        assertEquals(1, pulled.size());
+        assertTrue(pulled.get(0).isDeleted());
+    }
+
+    @Test
+    public void tieGoesToLargerDeviceId() {
+        InMemorySyncServer server = new InMemorySyncServer();
+        push(server, "b", add(10L, 20000, 181.0, 100L));
+        push(server, "a", add(10L, 20000, 179.0, 100L));
+
+        assertEquals(181.0, pullAll(server, "c").get(0).getWeight(), 0.0);
+
+        InMemorySyncServer reversed = new InMemorySyncServer();
+        push(reversed, "a", add(10L, 20000, 179.0, 100L));
+        push(reversed, "b", add(10L, 20000, 181.0, 100L));
+
+        assertEquals(181.0, pullAll(reversed, "c").get(0).getWeight(), 0.0);
+    }
+
+    @Test
+    public void replayedPushChangesNothing() {
+        InMemorySyncServer server = new InMemorySyncServer();
+        byte[] batch = SyncCodec.encode(1L, false, Arrays.asList(add(10L, 20000, 180.0, 100L)));
+        server.push(USER, "a", batch);
+        SyncCodec.Batch first = SyncCodec.decode(server.pull(USER, "c", 0, 100), USER);
+
+        server.push(USER, "a", batch);
+
+        SyncCodec.Batch after = SyncCodec.decode(server.pull(USER, "c", first.version, 100), USER);
+        assertTrue(after.changes.isEmpty());
+        assertEquals(1, server.getRowCount(USER));
+    }
+
+    @Test
+    public void entriesOnSameDateAreKept() {
+        InMemorySyncServer server = new InMemorySyncServer();
+        push(server, "a", add(10L, 20000, 180.0, 100L), add(11L, 20000, 178.5, 101L));
+        push(server, "b", add(12L, 20000, 179.0, 50L));
+
+        assertEquals(3, server.getRowCount(USER));
+        assertEquals(3, pullAll(server, "c").size());
+    }
+
+    @Test
+    public void pullSkipsOwnChangesAndPages() {
+        InMemorySyncServer server = new InMemorySyncServer();
+        push(server, "a", add(1L, 20000, 180.0, 1L), add(2L, 20001, 180.0, 2L));
+        push(server, "b", add(3L, 20002, 180.0, 3L), add(4L, 20003, 180.0, 4L),
+                add(5L, 20004, 180.0, 5L));
+
+        SyncCodec.Batch page = SyncCodec.decode(server.pull(USER, "a", 0, 2), USER);
+        assertTrue(page.hasMore);
+        assertEquals(2, page.changes.size());
+        assertEquals(3L, page.changes.get(0).getSyncId());
+
+        SyncCodec.Batch rest = SyncCodec.decode(server.pull(USER, "a", page.version, 2), USER);
+        assertFalse(rest.hasMore);
+        assertEquals(1, rest.changes.size());
+        assertEquals(5L, rest.changes.get(0).getSyncId());
+    }
+
+    private static ChangeLogEntry add(long syncId, int day, double weight, long time) {
+        return new ChangeLogEntry(USER, syncId, day, weight, false, time);
+    }
+
+    private static ChangeLogEntry delete(long syncId, int day, long time) {
+        return new ChangeLogEntry(USER, syncId, day, 0, true, time);
+    }
+
+    private static void push(InMemorySyncServer server, String device, ChangeLogEntry... changes) {
+        server.push(USER, device, SyncCodec.encode(changes.length, false, Arrays.asList(changes)));
+    }
+
+    private static List<ChangeLogEntry> pullAll(InMemorySyncServer server, String device) {
+        return SyncCodec.decode(server.pull(USER, device, 0, 1000), USER).changes;
+    }
+}
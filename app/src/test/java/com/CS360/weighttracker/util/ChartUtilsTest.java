@@ -0,0 +1,94 @@
+package com.CS360.weighttracker.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+//LTTB downsampling: which rows are kept, where they are written, and that a lone peak survives
+public class ChartUtilsTest {
+    private static WeightSeries series(double... weights) {
+        WeightSeries series = WeightSeries.withCapacity(weights.length);
+        for (int i = 0; i < weights.length; i++) {
+            series.insert(i, weights[i], i);
+        }
+        return series;
+    }
+
+    private static WeightSeries wave(int n) {
+        double[] weights = new double[n];
+        for (int i = 0; i < n; i++) {
+            weights[i] = 180 + 5 * Math.sin(i / 7.0) + (i % 3);
+        }
+        return series(weights);
+    }
+
+    @Test
+    public void thresholdAtLeastRange_keepsEveryRow() {
+        WeightSeries s = wave(50);
+        int[] out = new int[50];
+        assertEquals(40, ChartUtils.downsampleLttb(s, 10, 50, 40, out, 0));
+        for (int k = 0; k < 40; k++) {
+            assertEquals(10 + k, out[k]);
+        }
+        assertEquals(0, ChartUtils.downsampleLttb(s, 20, 20, 5, out, 0));
+    }
+
+    @Test
+    public void smallThreshold_keepsOnlyTheEnds() {
+        int[] out = new int[2];
+        assertEquals(2, ChartUtils.downsampleLttb(wave(50), 5, 45, 2, out, 0));
+        assertEquals(5, out[0]);
+        assertEquals(44, out[1]);
+    }
+
+    @Test
+    public void downsample_keepsEndpointsAndOneRowPerBucket() {
+        for (int n = 4; n <= 300; n += 17) {
+            for (int threshold = 3; threshold < n; threshold += 5) {
+                WeightSeries s = wave(n);
+                int[] out = new int[threshold];
+                int count = ChartUtils.downsampleLttb(s, 0, n, threshold, out, 0);
+
+                assertEquals(threshold, count);
+                assertEquals(0, out[0]);
+                assertEquals(n - 1, out[count - 1]);
+                for (int k = 1; k < count; k++) {
+                    assertTrue("n=" + n + " threshold=" + threshold, out[k - 1] < out[k]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void downsample_appendsAtOutPosWithinRange() {
+        WeightSeries s = wave(200);
+        int[] out = new int[3 + 20];
+        out[0] = -7;
+        int count = ChartUtils.downsampleLttb(s, 50, 150, 20, out, 3);
+
+        assertEquals(23, count);
+        assertEquals(-7, out[0]);
+        assertEquals(50, out[3]);
+        assertEquals(149, out[22]);
+        for (int k = 3; k < count; k++) {
+            assertTrue(out[k] >= 50 && out[k] < 150);
+        }
+    }
+
+    @Test
+    public void downsample_keepsASpike() {
+        double[] weights = new double[500];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = 180;
+        }
+        weights[237] = 240;
+        int[] out = new int[10];
+        int count = ChartUtils.downsampleLttb(series(weights), 0, 500, 10, out, 0);
+
+        boolean kept = false;
+        for (int k = 0; k < count; k++) {
+            kept |= out[k] == 237;
+        }
+        assertTrue(kept);
+    }
+}
@@ -0,0 +1,85 @@
+package com.CS360.weighttracker.util;
+
+import org.junit.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+import static org.junit.Assert.*;
+
+//Checks the epoch day arithmetic against java.time over a wide range, plus the leap day and
+//format cases the validators depend on
+public class EpochDaysTest {
+    //1870-01-01 to 2130-12-31, which covers every date the app accepts
+    private static final int FIRST = (int) LocalDate.of(1870, 1, 1).toEpochDay();
+    private static final int LAST = (int) LocalDate.of(2130, 12, 31).toEpochDay();
+
+    @Test
+    public void parseAndFormat_matchJavaTime() {
+        for (int day = FIRST; day <= LAST; day++) {
+            String text = LocalDate.ofEpochDay(day).toString();
+            assertEquals(text, day, EpochDays.parse(text));
+            assertEquals(text, EpochDays.format(day));
+        }
+    }
+
+    @Test
+    public void parse_leapDays() {
+        assertEquals(LocalDate.of(2024, 2, 29).toEpochDay(), EpochDays.parse("2024-02-29"));
+        assertEquals(LocalDate.of(2000, 2, 29).toEpochDay(), EpochDays.parse("2000-02-29"));
+        //Not leap years: divisible by 100 but not by 400, and an ordinary odd year
+        assertEquals(EpochDays.INVALID, EpochDays.parse("1900-02-29"));
+        assertEquals(EpochDays.INVALID, EpochDays.parse("2023-02-29"));
+        assertEquals(EpochDays.INVALID, EpochDays.parse("2024-02-30"));
+    }
+
+    @Test
+    public void parse_rejectsBadShapes() {
+        String[] bad = {
+                null, "", "2024-1-01", "2024-01-1", "2024/01/01", "20240101", "2024-01-01 ",
+                "2024-13-01", "2024-00-10", "2024-04-31", "2024-01-00", "abcd-01-01", "2024-0a-01"
+        };
+        for (String s : bad) {
+            assertEquals(String.valueOf(s), EpochDays.INVALID, EpochDays.parse(s));
+        }
+    }
+
+    @Test
+    public void parse_range() {
+        String text = "  2024-03-01  ";
+        assertEquals(LocalDate.of(2024, 3, 1).toEpochDay(), EpochDays.parse(text, 2, 12));
+    }
+
+    @Test
+    public void minusYears_clampsLeapDay() {
+        int leap = EpochDays.parse("2024-02-29");
+        assertEquals("2023-02-28", EpochDays.format(EpochDays.minusYears(leap, 1)));
+        assertEquals("2020-02-29", EpochDays.format(EpochDays.minusYears(leap, 4)));
+        assertEquals("1874-02-28", EpochDays.format(EpochDays.minusYears(leap, 150)));
+        for (int day = FIRST + 366 * 150; day <= LAST; day += 7) {
+            LocalDate date = LocalDate.ofEpochDay(day);
+            assertEquals(date.minusYears(150).toEpochDay(), EpochDays.minusYears(day, 150));
+        }
+    }
+
+    @Test
+    public void weekAndMonthStarts_matchJavaTime() {
+        for (int day = FIRST; day <= LAST; day++) {
+            LocalDate date = LocalDate.ofEpochDay(day);
+            long monday = date.minusDays(date.getDayOfWeek().getValue() - DayOfWeek.MONDAY.getValue())
+                    .toEpochDay();
+            assertEquals(monday, EpochDays.weekStart(day));
+            assertEquals(date.withDayOfMonth(1).toEpochDay(), EpochDays.monthStart(day));
+            assertEquals(date.withDayOfMonth(1).plusMonths(1).toEpochDay(), EpochDays.nextMonthStart(day));
+        }
+    }
+
+    @Test
+    public void lengthOfMonth_matchesJavaTime() {
+        for (int year = 1870; year <= 2130; year++) {
+            for (int month = 1; month <= 12; month++) {
+                assertEquals(LocalDate.of(year, month, 1).lengthOfMonth(), EpochDays.lengthOfMonth(year, month));
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.CS360.weighttracker.util;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+//The parse fast paths must accept exactly what the validate methods accept and give the same value.
+//The weight cases go through parsePlainDecimal and its Double.parseDouble fallback
+public class InputValidatorTest {
+    private static void assertSameWeight(String input) {
+        InputValidator.InputValidationResult slow = InputValidator.validateWeight(input);
+        double fast = InputValidator.parseWeight(input);
+        if (slow.ok) {
+            assertEquals(input, Double.parseDouble(slow.value), fast, 0);
+            assertEquals(input, Double.doubleToLongBits(Double.parseDouble(input.trim())),
+                    Double.doubleToLongBits(fast));
+        } else {
+            assertTrue(input, Double.isNaN(fast));
+        }
+    }
+
+    @Test
+    public void parseWeight_plainDecimals() {
+        assertEquals(182.0, InputValidator.parseWeight("182"), 0);
+        assertEquals(182.4, InputValidator.parseWeight("182.4"), 0);
+        assertEquals(182.0, InputValidator.parseWeight("182."), 0);
+        assertEquals(30.0, InputValidator.parseWeight(" 30 "), 0);
+        assertEquals(1000.0, InputValidator.parseWeight("1000.000"), 0);
+    }
+
+    @Test
+    public void parseWeight_rejectsWhatValidateRejects() {
+        String[] inputs = {
+                null, "", "   ", ".", "..5", "1.2.3", "abc", "12a", "29.99", "1000.01", "-50", "1e9", "NaN"
+        };
+        for (String s : inputs) {
+            assertTrue(String.valueOf(s), Double.isNaN(InputValidator.parseWeight(s)));
+            if (s != null) {
+                assertFalse(s, InputValidator.validateWeight(s).ok);
+            }
+        }
+    }
+
+    @Test
+    public void parseWeight_fallbackForms() {
+        //Signs, exponents and long decimals skip the fast path but are still accepted
+        for (String s : Arrays.asList("+150", "1.5e2", "150.123456789012345678", "0150.5", "150d", "0x96p0")) {
+            assertSameWeight(s);
+        }
+    }
+
+    @Test
+    public void parseWeight_sameDoubleAsParseDouble() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            int digits = 2 + random.nextInt(4);
+            int decimals = random.nextInt(8);
+            StringBuilder sb = new StringBuilder();
+            for (int d = 0; d < digits; d++) {
+                sb.append((char) ('0' + random.nextInt(10)));
+            }
+            if (decimals > 0 || random.nextBoolean()) {
+                sb.append('.');
+            }
+            for (int d = 0; d < decimals; d++) {
+                sb.append((char) ('0' + random.nextInt(10)));
+            }
+            assertSameWeight(sb.toString());
+        }
+    }
+
+    @Test
+    public void parseDate_matchesValidateDate() {
+        LocalDate today = LocalDate.now();
+        String[] inputs = {
+                today.toString(),
+                " " + today + " ",
+                today.plusDays(1).toString(),
+                today.minusYears(150).toString(),
+                today.minusYears(150).minusDays(1).toString(),
+                "2024-02-29", "2023-02-29", "2024-13-01", "2024/01/01", "", null
+        };
+        for (String s : inputs) {
+            int day = InputValidator.parseDate(s);
+            if (s != null && InputValidator.validateDate(s).ok) {
+                assertEquals(s, LocalDate.parse(s.trim()).toEpochDay(), day);
+            } else {
+                assertEquals(String.valueOf(s), EpochDays.INVALID, day);
+            }
+        }
+        assertTrue(InputValidator.validateDate(today.toString()).ok);
+        assertFalse(InputValidator.validateDate(today.plusDays(1).toString()).ok);
+    }
+
+    @Test
+    public void batchParsers_countRejectedRows() {
+        double[] weights = new double[4];
+        assertEquals(2, InputValidator.parseWeights(Arrays.asList("180", "x", "181.5", "5"), weights));
+        assertEquals(181.5, weights[2], 0);
+        assertTrue(Double.isNaN(weights[1]));
+
+        int[] days = new int[3];
+        assertEquals(1, InputValidator.parseDates(Arrays.asList("2024-02-29", "2024-02-30", "2020-01-01"), days));
+        assertEquals(EpochDays.INVALID, days[1]);
+        assertEquals(LocalDate.of(2020, 1, 1).toEpochDay(), days[2]);
+    }
+}
@@ -0,0 +1,97 @@
+package com.CS360.weighttracker.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+//Histogram bucket bounds at every power of two, and percentiles within one bucket of the exact value
+public class MetricsTest {
+    private static void assertInBucket(long value) {
+        int bucket = Metrics.Histogram.bucketOf(value);
+        assertTrue(value + " below its bucket", Metrics.Histogram.lowerBound(bucket) <= value);
+        if (value < Long.MAX_VALUE) {
+            assertTrue(value + " above its bucket", value < Metrics.Histogram.lowerBound(bucket + 1));
+        }
+    }
+
+    @Test
+    public void bucketOf_smallValuesAreExact() {
+        for (int v = 0; v < 8; v++) {
+            assertEquals(v, Metrics.Histogram.bucketOf(v));
+            assertEquals(v, Metrics.Histogram.lowerBound(v));
+        }
+        //8 to 15 are still one value per bucket
+        for (int v = 8; v < 16; v++) {
+            assertEquals(v, Metrics.Histogram.lowerBound(Metrics.Histogram.bucketOf(v)));
+        }
+    }
+
+    @Test
+    public void bucketOf_valuesFallInsideTheirBucket() {
+        for (long v = 0; v < 100_000; v++) {
+            assertInBucket(v);
+        }
+        for (int exponent = 3; exponent < 63; exponent++) {
+            long power = 1L << exponent;
+            assertInBucket(power - 1);
+            assertInBucket(power);
+            assertInBucket(power + 1);
+            //A new power of two always starts a new bucket
+            assertEquals(Metrics.Histogram.bucketOf(power - 1) + 1, Metrics.Histogram.bucketOf(power));
+        }
+        assertInBucket(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void lowerBound_isTheInverseOfBucketOf() {
+        int last = Metrics.Histogram.bucketOf(Long.MAX_VALUE);
+        for (int b = 0; b <= last; b++) {
+            assertEquals(b, Metrics.Histogram.bucketOf(Metrics.Histogram.lowerBound(b)));
+            if (b > 0) {
+                assertTrue(Metrics.Histogram.lowerBound(b - 1) < Metrics.Histogram.lowerBound(b));
+            }
+        }
+    }
+
+    @Test
+    public void record_extremesAndNegatives() {
+        Metrics.Histogram h = new Metrics.Histogram();
+        h.record(-5);
+        h.record(Long.MAX_VALUE);
+        assertEquals(2, h.count());
+        assertEquals(Long.MAX_VALUE, h.max());
+        assertEquals(0, h.percentile(50), 0);
+        assertEquals(0, new Metrics.Histogram().percentile(99), 0);
+
+        //Values below 16 have a bucket each, so they come back exactly
+        Metrics.Histogram small = new Metrics.Histogram();
+        small.record(5);
+        small.record(13);
+        assertEquals(5, small.percentile(50), 0);
+        assertEquals(13, small.percentile(100), 0);
+    }
+
+    @Test
+    public void percentile_withinOneBucketOfExact() {
+        Random random = new Random(3);
+        Metrics.Histogram h = new Metrics.Histogram();
+        long[] values = new long[10_000];
+        for (int i = 0; i < values.length; i++) {
+            //Log-uniform between 1 µs and 100 ms, like real latencies
+            values[i] = (long) Math.pow(10, 3 + 5 * random.nextDouble());
+            h.record(values[i]);
+        }
+        Arrays.sort(values);
+        for (double p : new double[]{1, 50, 90, 99, 99.9, 100}) {
+            long exact = values[(int) Math.ceil(values.length * p / 100.0) - 1];
+            double reported = h.percentile(p);
+            //Buckets are an eighth of a power of two wide, so the middle is within 1/16 of the value
+            assertEquals("p" + p, exact, reported, exact / 8.0);
+            assertTrue(reported <= h.max());
+        }
+        assertEquals(values[values.length - 1], h.max());
+    }
+}
@@ -0,0 +1,105 @@
+package com.CS360.weighttracker.util;
+
+import com.CS360.weighttracker.model.ChangeLogEntry;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+//Round trips for the sync batch format, including the cases the delta encoding has to get right:
+//dates going backwards, deletes between weights, weights with more than two decimals
+public class SyncCodecTest {
+    private static final int USER = 7;
+
+    @Test
+    public void roundTrip_keepsEveryField() {
+        List<ChangeLogEntry> changes = Arrays.asList(
+                new ChangeLogEntry(USER, 42L, 20000, 180.4, false, 1_700_000_000_000L),
+                //Two weigh-ins on the same date are two entries
+                new ChangeLogEntry(USER, -5L, 20000, 179.9, false, 1_700_000_000_500L),
+                //Back-dated entry, so the day difference is negative
+                new ChangeLogEntry(USER, Long.MIN_VALUE, 19990, 181.0, false, 1_700_000_100_000L),
+                new ChangeLogEntry(USER, Long.MAX_VALUE, 20001, 0, true, 1_700_000_200_000L),
+                //More than two decimals, sent as a raw double
+                new ChangeLogEntry(USER, 7L, 20002, 178.123456, false, 1_600_000_000_000L),
+                //Back to hundredths after a raw weight and a delete
+                new ChangeLogEntry(USER, 8L, 20003, 178.1, false, 1_600_000_000_001L));
+
+        SyncCodec.Batch batch = SyncCodec.decode(SyncCodec.encode(99L, true, changes), USER);
+
+        assertEquals(99L, batch.version);
+        assertTrue(batch.hasMore);
+        assertEquals(changes.size(), batch.changes.size());
+        for (int i = 0; i < changes.size(); i++) {
+            assertSameChange(changes.get(i), batch.changes.get(i));
+        }
+    }
+
+    @Test
+    public void roundTrip_emptyBatch() {
+        SyncCodec.Batch batch = SyncCodec.decode(
+                SyncCodec.encode(0L, false, Collections.<ChangeLogEntry>emptyList()), USER);
+
+        assertEquals(0L, batch.version);
+        assertFalse(batch.hasMore);
+        assertTrue(batch.changes.isEmpty());
+    }
+
+    @Test
+    public void roundTrip_aYearOfDailyEntries() {
+        List<ChangeLogEntry> changes = new ArrayList<>();
+        double weight = 200.0;
+        for (int day = 0; day < 365; day++) {
+            weight -= (day % 3) * 0.1;
+            changes.add(new ChangeLogEntry(USER, 1000L + day * 7919L, 19000 + day,
+                    Math.round(weight * 100) / 100.0, false, 1_700_000_000_000L + day * 86_400_000L));
+        }
+
+        byte[] data = SyncCodec.encode(365L, false, changes);
+        SyncCodec.Batch batch = SyncCodec.decode(data, USER);
+
+        for (int i = 0; i < changes.size(); i++) {
+            assertSameChange(changes.get(i), batch.changes.get(i));
+        }
+        //8 bytes of syncId plus a few bytes of deltas per entry
+        assertTrue("bytes per entry: " + (double) data.length / changes.size(),
+                data.length < changes.size() * 16);
+    }
+
+    @Test
+    public void decode_rejectsTruncatedBatch() {
+        byte[] data = SyncCodec.encode(5L, false, Arrays.asList(
+                new ChangeLogEntry(USER, 1L, 20000, 180.0, false, 1L),
+                new ChangeLogEntry(USER, 2L, 20001, 180.5, false, 2L)));
+        for (int length = 0; length < data.length; length++) {
+            try {
+                SyncCodec.decode(Arrays.copyOf(data, length), USER);
+                fail("decoded a batch cut to " + length + " bytes");
+            } catch (IllegalArgumentException expected) {
+                //cut short
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decode_rejectsImpossibleCount() {
+        //version 1, hasMore 0, count 100 with no changes after it
+        SyncCodec.decode(new byte[] {1, 0, 100}, USER);
+    }
+
+    private static void assertSameChange(ChangeLogEntry expected, ChangeLogEntry actual) {
+        assertEquals(USER, actual.getUserId());
+        assertEquals(expected.getSyncId(), actual.getSyncId());
+        assertEquals(expected.getEpochDay(), actual.getEpochDay());
+        assertEquals(expected.isDeleted(), actual.isDeleted());
+        if (!expected.isDeleted()) {
+            assertEquals(expected.getWeight(), actual.getWeight(), 0.0);
+        }
+        assertEquals(expected.getUpdatedAt(), actual.getUpdatedAt());
+    }
+}
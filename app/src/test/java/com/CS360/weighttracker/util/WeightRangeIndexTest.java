@@ -0,0 +1,120 @@
+package com.CS360.weighttracker.util;
+
+import com.CS360.weighttracker.model.WeightRangeStats;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+//Compares range queries and nearest lookups with a plain scan over the same series, for every
+//size up to a few hundred rows so each tree shape (odd sizes, powers of two) is covered
+public class WeightRangeIndexTest {
+    //Random series with gaps between days and some days holding several entries
+    private static WeightSeries randomSeries(Random random, int n) {
+        WeightSeries series = WeightSeries.withCapacity(n);
+        int day = 19000;
+        for (int i = 0; i < n; i++) {
+            day += random.nextInt(4) == 0 ? 0 : 1 + random.nextInt(5);
+            series.insert(day, 150 + random.nextInt(1000) / 10.0, i);
+        }
+        return series;
+    }
+
+    @Test
+    public void query_matchesScan() {
+        Random random = new Random(7);
+        for (int n = 0; n <= 200; n++) {
+            WeightSeries series = randomSeries(random, n);
+            WeightRangeIndex index = WeightRangeIndex.build(series);
+            int first = n == 0 ? 19000 : series.dayAt(0);
+            int last = n == 0 ? 19000 : series.dayAt(n - 1);
+            for (int q = 0; q < 50; q++) {
+                int from = first - 3 + random.nextInt(last - first + 7);
+                int to = from + random.nextInt(last - first + 7) - 2;
+                assertMatchesScan(series, index, from, to);
+            }
+        }
+    }
+
+    @Test
+    public void query_singleDayWithSeveralEntries() {
+        WeightSeries series = WeightSeries.empty();
+        series.insert(10, 180, 1);
+        series.insert(11, 181, 2);
+        series.insert(11, 175, 3);
+        series.insert(11, 183, 4);
+        series.insert(12, 170, 5);
+        WeightRangeStats stats = WeightRangeIndex.build(series).query(11, 11);
+
+        assertEquals(3, stats.getEntryCount());
+        assertEquals(175, stats.getMinWeight(), 0);
+        assertEquals(183, stats.getMaxWeight(), 0);
+        assertEquals(539, stats.getTotalWeight(), 1e-9);
+    }
+
+    @Test
+    public void query_emptyResults() {
+        WeightSeries series = WeightSeries.empty();
+        assertEquals(0, WeightRangeIndex.build(series).query(0, 100).getEntryCount());
+
+        series.insert(10, 180, 1);
+        series.insert(20, 181, 2);
+        WeightRangeIndex index = WeightRangeIndex.build(series);
+        for (int[] range : new int[][]{{11, 19}, {0, 9}, {21, 30}, {20, 10}}) {
+            WeightRangeStats stats = index.query(range[0], range[1]);
+            assertEquals(0, stats.getEntryCount());
+            assertNull(stats.getMinWeight());
+            assertNull(stats.getMaxWeight());
+        }
+    }
+
+    @Test
+    public void nearestIndex_matchesScan() {
+        Random random = new Random(11);
+        for (int n = 0; n <= 100; n++) {
+            WeightSeries series = randomSeries(random, n);
+            WeightRangeIndex index = WeightRangeIndex.build(series);
+            for (int day = 18990; day <= 19000 + 6 * n + 10; day++) {
+                //Closest day, earlier one on a tie, last row on that day
+                int expected = -1;
+                for (int i = 0; i < n; i++) {
+                    if (expected < 0) {
+                        expected = i;
+                        continue;
+                    }
+                    long best = Math.abs((long) series.dayAt(expected) - day);
+                    long gap = Math.abs((long) series.dayAt(i) - day);
+                    if (gap < best || (gap == best && series.dayAt(i) == series.dayAt(expected))) {
+                        expected = i;
+                    }
+                }
+                assertEquals("n=" + n + " day=" + day, expected, index.nearestIndex(day));
+            }
+        }
+    }
+
+    private static void assertMatchesScan(WeightSeries series, WeightRangeIndex index, int from, int to) {
+        int count = 0;
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        double total = 0;
+        for (int i = 0; i < series.size(); i++) {
+            if (series.dayAt(i) >= from && series.dayAt(i) <= to) {
+                count++;
+                min = Math.min(min, series.weightAt(i));
+                max = Math.max(max, series.weightAt(i));
+                total += series.weightAt(i);
+            }
+        }
+        WeightRangeStats stats = index.query(from, to);
+        String range = from + ".." + to;
+        assertEquals(range, count, stats.getEntryCount());
+        if (count > 0) {
+            assertEquals(range, min, stats.getMinWeight(), 0);
+            assertEquals(range, max, stats.getMaxWeight(), 0);
+            assertEquals(range, total, stats.getTotalWeight(), 1e-6);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.CS360.weighttracker.util;
+
+import com.CS360.weighttracker.model.WeightEntry;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+//Lookups and in-place patches on the primitive series, with the cases the dashboard relies on:
+//several weigh-ins on one day, the same change applied twice, and rows that arrive out of order
+public class WeightSeriesTest {
+    private static WeightEntry entry(int id, int day, double weight) {
+        WeightEntry e = new WeightEntry(day, weight, 1);
+        e.setId(id);
+        return e;
+    }
+
+    @Test
+    public void fromEntries_sortsByDayAndKeepsSameDayOrder() {
+        List<WeightEntry> rows = Arrays.asList(
+                entry(1, 20, 180.0),
+                entry(2, 10, 181.0),
+                entry(3, 20, 179.5),
+                null,
+                entry(4, EpochDays.INVALID, 200.0),
+                entry(5, 10, 182.0));
+        WeightSeries series = WeightSeries.fromEntries(rows);
+
+        assertEquals(4, series.size());
+        //Day 10 rows first, then day 20 rows, each in the order they were given
+        assertEquals(2, series.idAt(0));
+        assertEquals(5, series.idAt(1));
+        assertEquals(1, series.idAt(2));
+        assertEquals(3, series.idAt(3));
+        assertTrue(series.matches(Arrays.asList(
+                entry(2, 10, 181.0), entry(5, 10, 182.0), entry(1, 20, 180.0), entry(3, 20, 179.5))));
+    }
+
+    @Test
+    public void lookups_onDuplicateDays() {
+        WeightSeries series = WeightSeries.fromEntries(Arrays.asList(
+                entry(1, 10, 180.0), entry(2, 10, 181.0), entry(3, 20, 179.0), entry(4, 20, 178.0)));
+
+        //Exact and floor lookups return the last row on the day, ceiling the first
+        assertEquals(1, series.indexOf(10));
+        assertEquals(3, series.indexOf(20));
+        assertEquals(-1, series.indexOf(15));
+        assertEquals(1, series.floorIndex(15));
+        assertEquals(3, series.floorIndex(20));
+        assertEquals(-1, series.floorIndex(9));
+        assertEquals(2, series.ceilingIndex(11));
+        assertEquals(0, series.ceilingIndex(10));
+        assertEquals(-1, series.ceilingIndex(21));
+    }
+
+    @Test
+    public void insert_goesAfterRowsOnTheSameDay() {
+        WeightSeries series = WeightSeries.fromEntries(Arrays.asList(
+                entry(1, 10, 180.0), entry(2, 20, 179.0)));
+
+        assertEquals(1, series.insert(10, 181.0, 3));
+        assertEquals(3, series.idAt(1));
+        assertEquals(1, series.indexOf(10));
+        //Back-dated and new latest entries
+        assertEquals(0, series.insert(5, 182.0, 4));
+        assertEquals(4, series.insert(30, 178.0, 5));
+        assertEquals(5, series.size());
+    }
+
+    @Test
+    public void insertAndRemove_sameIdTwiceIsANoOp() {
+        WeightSeries series = WeightSeries.fromEntries(Collections.singletonList(entry(1, 10, 180.0)));
+
+        assertEquals(1, series.insert(10, 181.0, 2));
+        //The same change reported again
+        assertEquals(-1, series.insert(10, 181.0, 2));
+        assertEquals(2, series.size());
+
+        //The same id on another day is a different row
+        assertEquals(2, series.insert(11, 181.0, 2));
+        assertEquals(3, series.size());
+
+        assertEquals(1, series.remove(10, 2));
+        assertEquals(-1, series.remove(10, 2));
+        assertEquals(2, series.size());
+        assertEquals(1, series.idAt(0));
+        assertEquals(2, series.idAt(1));
+        assertEquals(11, series.dayAt(1));
+
+        //Wrong day for the id
+        assertEquals(-1, series.remove(10, 2));
+        assertEquals(-1, series.remove(12, 1));
+    }
+
+    @Test
+    public void insert_growsFromEmpty() {
+        WeightSeries series = WeightSeries.empty();
+        List<WeightEntry> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            int day = 1000 - i / 3;
+            series.insert(day, 150 + i, i);
+            expected.add(entry(i, day, 150 + i));
+        }
+        assertEquals(100, series.size());
+        for (int i = 1; i < series.size(); i++) {
+            assertTrue(series.dayAt(i - 1) <= series.dayAt(i));
+        }
+        //Same-day rows stay in the order they were inserted
+        assertTrue(series.matches(sortedCopy(expected)));
+    }
+
+    @Test
+    public void matches_detectsChangedWeightIdOrLength() {
+        List<WeightEntry> rows = Arrays.asList(entry(1, 10, 180.0), entry(2, 11, 181.0));
+        WeightSeries series = WeightSeries.fromEntries(rows);
+
+        assertTrue(series.matches(rows));
+        assertFalse(series.matches(Arrays.asList(entry(1, 10, 180.0), entry(2, 11, 181.5))));
+        assertFalse(series.matches(Arrays.asList(entry(1, 10, 180.0), entry(3, 11, 181.0))));
+        assertFalse(series.matches(Collections.singletonList(entry(1, 10, 180.0))));
+        assertFalse(series.matches(null));
+        assertTrue(WeightSeries.empty().matches(null));
+    }
+
+    @Test
+    public void readOnlyView_rejectsPatchesAndCopyIsIndependent() {
+        WeightSeries series = WeightSeries.fromEntries(Arrays.asList(entry(1, 10, 180.0), entry(2, 11, 181.0)));
+        WeightSeries view = series.asReadOnly();
+
+        assertTrue(view.isReadOnly());
+        assertSame(view, view.asReadOnly());
+        assertEquals(1, view.indexOf(11));
+        try {
+            view.insert(12, 179.0, 3);
+            fail("read-only series accepted an insert");
+        } catch (UnsupportedOperationException expected) {
+            //ok
+        }
+        try {
+            view.remove(10, 1);
+            fail("read-only series accepted a remove");
+        } catch (UnsupportedOperationException expected) {
+            //ok
+        }
+
+        WeightSeries copy = view.copy();
+        assertFalse(copy.isReadOnly());
+        assertEquals(0, copy.remove(10, 1));
+        assertEquals(2, view.size());
+        assertEquals(1, view.idAt(0));
+    }
+
+    //The rows in the order fromEntries keeps them: by day, then by position in the list
+    private static List<WeightEntry> sortedCopy(List<WeightEntry> rows) {
+        List<WeightEntry> copy = new ArrayList<>(rows);
+        copy.sort((a, b) -> Integer.compare(a.getEpochDay(), b.getEpochDay()));
+        return copy;
+    }
+}